@@ -1,6 +1,16 @@
 package com.rakesh.accounts;
 
+import com.rakesh.accounts.cache.CustomerCacheEvictEvent;
+import com.rakesh.accounts.cache.CustomerCacheProperties;
+import com.rakesh.accounts.cache.SnapshotCacheProperties;
+import com.rakesh.accounts.config.CustomerDetailsProperties;
+import com.rakesh.accounts.datasource.DataSourceRoutingProperties;
 import com.rakesh.accounts.dto.AccountsContactInfoDto;
+import com.rakesh.accounts.feign.ConcurrencyLimitProperties;
+import com.rakesh.accounts.feign.HedgingProperties;
+import com.rakesh.accounts.feign.HttpClientPoolProperties;
+import com.rakesh.accounts.outbox.OutboxProperties;
+import com.rakesh.accounts.repository.NaturalIdRepositoryImpl;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Contact;
@@ -9,8 +19,11 @@ import io.swagger.v3.oas.annotations.info.License;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.bus.jackson.RemoteApplicationEventScan;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 // This is enabled to use feign client in our service so that it can communicate with other services
@@ -27,6 +40,12 @@ location of our classes so that spring can create bean of them, using the below
 use the bean with the name auditAwareImpl to understand the current auditor.*/
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
 
+// Every repository gets the natural id lookup of NaturalIdRepository
+@EnableJpaRepositories(repositoryBaseClass = NaturalIdRepositoryImpl.class)
+
+// This is used by the OutboxRelay which publishes the outbox table in the background
+@EnableScheduling
+
 // This is used for enabling documentation using swagger
 @OpenAPIDefinition(
     info =
@@ -44,7 +63,22 @@ use the bean with the name auditAwareImpl to understand the current auditor.*/
 /*This annotation tells spring to see the POJO class where we are mapping our variables to use the
 properties from the yml file, we use the given class as a replacement for @Value or Environment variable
 to read the properties*/
-@EnableConfigurationProperties(value = {AccountsContactInfoDto.class})
+@EnableConfigurationProperties(
+    value = {
+      AccountsContactInfoDto.class,
+      CustomerDetailsProperties.class,
+      CustomerCacheProperties.class,
+      OutboxProperties.class,
+      SnapshotCacheProperties.class,
+      HedgingProperties.class,
+      ConcurrencyLimitProperties.class,
+      HttpClientPoolProperties.class,
+      DataSourceRoutingProperties.class
+    })
+
+/*Our own events that are sent over spring cloud bus have to be registered, so that the receiving instances know
+how to deserialize them*/
+@RemoteApplicationEventScan(basePackageClasses = CustomerCacheEvictEvent.class)
 public class AccountsApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,89 @@
+package com.rakesh.accounts.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rakesh.accounts.dto.CustomerDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.bus.ServiceMatcher;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*Bounded near cache of CustomerDto keyed by mobile number, this saves the two DB queries of fetchAccount for
+customers that are read again and again.
+evict() drops the entry locally and publishes a CustomerCacheEvictEvent, spring cloud bus forwards that event to
+all the other accounts instances where onEvict() drops their copy too. Inside a transaction both happen only after
+the commit, evicting earlier would let a concurrent fetchAccount load the old row again and cache it.
+The hit, miss and eviction counts are registered in the Micrometer registry under the name cache=customerDto,
+so they show up in /actuator/prometheus along with the rest of the metrics of this service.*/
+@Component
+@Log4j2
+public class CustomerCache {
+
+  private static final String CACHE_NAME = "customerDto";
+
+  private final Cache<String, CustomerDto> cache;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final ServiceMatcher serviceMatcher;
+  private final Destination destination;
+
+  public CustomerCache(
+      CustomerCacheProperties properties,
+      MeterRegistry meterRegistry,
+      ApplicationEventPublisher applicationEventPublisher,
+      ServiceMatcher serviceMatcher,
+      Destination.Factory destinationFactory,
+      @Value("${spring.application.name}") String applicationName) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .recordStats()
+            .build();
+    this.applicationEventPublisher = applicationEventPublisher;
+    this.serviceMatcher = serviceMatcher;
+    // Every instance registered with the same application name receives the eviction
+    this.destination = destinationFactory.getDestination(applicationName + ":**");
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public CustomerDto get(String mobileNumber, Function<String, CustomerDto> loader) {
+    return cache.get(mobileNumber, loader);
+  }
+
+  public void evict(String mobileNumber) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evictNow(mobileNumber);
+            }
+          });
+    } else {
+      evictNow(mobileNumber);
+    }
+  }
+
+  private void evictNow(String mobileNumber) {
+    cache.invalidate(mobileNumber);
+    applicationEventPublisher.publishEvent(
+        new CustomerCacheEvictEvent(
+            this, serviceMatcher.getBusId(), destination, mobileNumber));
+  }
+
+  @EventListener
+  public void onEvict(CustomerCacheEvictEvent event) {
+    if (!serviceMatcher.isFromSelf(event)) {
+      log.debug("Evicting customer {} on request from {}", event.getMobileNumber(), event.getOriginService());
+      cache.invalidate(event.getMobileNumber());
+    }
+  }
+}
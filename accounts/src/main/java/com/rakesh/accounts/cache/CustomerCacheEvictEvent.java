@@ -0,0 +1,23 @@
+package com.rakesh.accounts.cache;
+
+import lombok.Getter;
+import org.springframework.cloud.bus.event.Destination;
+import org.springframework.cloud.bus.event.RemoteApplicationEvent;
+
+/*This event travels over spring cloud bus (RabbitMQ) to every accounts instance, so that when one instance
+changes a customer all the other instances drop their cached copy of it. The no-args constructor is needed by
+Jackson to rebuild the event on the receiving side.*/
+@Getter
+public class CustomerCacheEvictEvent extends RemoteApplicationEvent {
+
+  private String mobileNumber;
+
+  @SuppressWarnings("unused")
+  public CustomerCacheEvictEvent() {}
+
+  public CustomerCacheEvictEvent(
+      Object source, String originService, Destination destination, String mobileNumber) {
+    super(source, originService, destination);
+    this.mobileNumber = mobileNumber;
+  }
+}
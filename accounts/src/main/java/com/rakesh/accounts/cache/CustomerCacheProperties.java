@@ -0,0 +1,17 @@
+package com.rakesh.accounts.cache;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Size and expiry of the in-process cache that sits in front of fetchAccount. The expiry is only a safety net,
+entries are normally evicted as soon as the customer or account is changed on any of the accounts instances.*/
+@ConfigurationProperties(prefix = "customer-cache")
+@Getter
+@Setter
+public class CustomerCacheProperties {
+
+  private long maximumSize = 10_000;
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+}
@@ -0,0 +1,84 @@
+package com.rakesh.accounts.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/*Coalesces concurrent identical calls. The first caller of a key (the leader) runs the call, every caller that
+arrives for the same key while it is running waits for the leader's result instead of running the call again.
+Nothing is cached, the key is forgotten as soon as the leader finishes. Every follower gets the leader's result
+through its own share function (eg:- a copy with the follower's own request data), so callers never hold the
+same mutable instance.
+A follower waits at most maxWait, after that it runs the call on its own, so a stuck leader can not hold the
+followers for longer than that. The counters single.flight.calls{outcome=leader|collapsed|wait_timeout} show
+how many calls were saved.*/
+public class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final long maxWaitNanos;
+  private final Counter leaders;
+  private final Counter collapsed;
+  private final Counter waitTimeouts;
+
+  public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+    this.maxWaitNanos = maxWait.toNanos();
+    this.leaders = counter(name, "leader", meterRegistry);
+    this.collapsed = counter(name, "collapsed", meterRegistry);
+    this.waitTimeouts = counter(name, "wait_timeout", meterRegistry);
+  }
+
+  /**
+   * @param key - calls with equal keys are coalesced
+   * @param call - run by the leader, and by a follower that waited longer than maxWait
+   * @param share - turns the leader's result into the result of a follower
+   * @return the result of the call
+   */
+  public V execute(K key, Supplier<V> call, UnaryOperator<V> share) {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> leaderFlight = inFlight.putIfAbsent(key, flight);
+    if (leaderFlight == null) {
+      leaders.increment();
+      try {
+        V value = call.get();
+        flight.complete(value);
+        return value;
+      } catch (RuntimeException exception) {
+        flight.completeExceptionally(exception);
+        throw exception;
+      } finally {
+        inFlight.remove(key, flight);
+      }
+    }
+
+    collapsed.increment();
+    try {
+      return share.apply(leaderFlight.get(maxWaitNanos, TimeUnit.NANOSECONDS));
+    } catch (TimeoutException exception) {
+      waitTimeouts.increment();
+      return call.get();
+    } catch (ExecutionException exception) {
+      // The followers get the same exception as the leader, eg:- ResourceNotFoundException
+      if (exception.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(exception.getCause());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the call of " + key, exception);
+    }
+  }
+
+  private static Counter counter(String name, String outcome, MeterRegistry meterRegistry) {
+    return Counter.builder("single.flight.calls")
+        .tag("name", name)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
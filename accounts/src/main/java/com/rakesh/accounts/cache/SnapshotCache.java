@@ -0,0 +1,130 @@
+package com.rakesh.accounts.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+
+/*Bounded cache of the last good answer of a remote service, keyed by mobile number.
+get() implements stale-while-revalidate on top of it, see SnapshotCacheProperties for the windows, and
+lastKnownGood() is what the feign fallbacks serve when the remote service is down.
+A snapshot inside the fresh window is served as a plain copy, as if it came from the remote service. Older
+snapshots are served as a copy carrying their age in seconds, so the caller can tell them apart from a live answer,
+and such copies are never stored back (isLive). copy(value, null) gives the plain copy.*/
+@Log4j2
+public class SnapshotCache<V> {
+
+  private record Snapshot<V>(V value, long storedAtMillis) {}
+
+  private final Cache<String, Snapshot<V>> cache;
+  private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+  private final long freshForMillis;
+  private final long staleWhileRevalidateMillis;
+  private final Executor refreshExecutor;
+  private final BiFunction<V, Long, V> copy;
+  private final Predicate<V> isLive;
+  private final Counter staleServed;
+  private final Counter backgroundRefreshes;
+
+  public SnapshotCache(
+      String name,
+      SnapshotCacheProperties properties,
+      Executor refreshExecutor,
+      BiFunction<V, Long, V> copy,
+      Predicate<V> isLive,
+      MeterRegistry meterRegistry) {
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getStaleIfError())
+            .recordStats()
+            .build();
+    this.freshForMillis = properties.getFreshFor().toMillis();
+    this.staleWhileRevalidateMillis = properties.getStaleWhileRevalidate().toMillis();
+    this.refreshExecutor = refreshExecutor;
+    this.copy = copy;
+    this.isLive = isLive;
+    this.staleServed =
+        Counter.builder("snapshot.cache.stale.served").tag("cache", name).register(meterRegistry);
+    this.backgroundRefreshes =
+        Counter.builder("snapshot.cache.refreshes").tag("cache", name).register(meterRegistry);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+  }
+
+  /**
+   * @param key - mobile number
+   * @param loader - call to the remote service
+   * @return the snapshot when it is inside the fresh or stale-while-revalidate window, else the answer of the
+   *     loader
+   */
+  public V get(String key, Supplier<V> loader) {
+    Snapshot<V> snapshot = cache.getIfPresent(key);
+    if (snapshot != null) {
+      long ageMillis = System.currentTimeMillis() - snapshot.storedAtMillis();
+      if (ageMillis <= freshForMillis) {
+        return copy.apply(snapshot.value(), null);
+      }
+      if (ageMillis <= freshForMillis + staleWhileRevalidateMillis) {
+        refreshInBackground(key, loader);
+        return serve(snapshot, ageMillis);
+      }
+    }
+    return load(key, loader);
+  }
+
+  public V lastKnownGood(String key) {
+    Snapshot<V> snapshot = cache.getIfPresent(key);
+    if (snapshot == null) {
+      return null;
+    }
+    return serve(snapshot, System.currentTimeMillis() - snapshot.storedAtMillis());
+  }
+
+  public void put(String key, V value) {
+    if (value != null && isLive.test(value)) {
+      cache.put(key, new Snapshot<>(value, System.currentTimeMillis()));
+    }
+  }
+
+  private V load(String key, Supplier<V> loader) {
+    V value = loader.get();
+    put(key, value);
+    return value;
+  }
+
+  /*Only one refresh per key is in flight, the other requests keep getting the snapshot meanwhile. The refresh
+  executor is bounded, when it is saturated the refresh is skipped and a later request tries again.*/
+  private void refreshInBackground(String key, Supplier<V> loader) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+    backgroundRefreshes.increment();
+    try {
+      CompletableFuture.runAsync(() -> load(key, loader), refreshExecutor)
+          .whenComplete(
+              (ignored, exception) -> {
+                refreshing.remove(key);
+                if (exception != null) {
+                  log.debug("Background refresh of {} failed : {}", key, exception.getMessage());
+                }
+              });
+    } catch (RejectedExecutionException exception) {
+      refreshing.remove(key);
+    }
+  }
+
+  private V serve(Snapshot<V> snapshot, long ageMillis) {
+    staleServed.increment();
+    return copy.apply(snapshot.value(), ageMillis / 1000);
+  }
+}
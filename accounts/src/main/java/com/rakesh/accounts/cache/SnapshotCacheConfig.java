@@ -0,0 +1,66 @@
+package com.rakesh.accounts.cache;
+
+import com.rakesh.accounts.dto.CardsDto;
+import com.rakesh.accounts.dto.LoansDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class SnapshotCacheConfig {
+
+  /*The background refreshes get a small pool of their own, so they never take a thread from the loans and cards
+  legs of fetchCustomerDetails. A refresh that does not fit is rejected and simply skipped.*/
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolTaskExecutor snapshotRefreshExecutor(SnapshotCacheProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("snapshot-refresh-");
+    executor.setCorePoolSize(properties.getRefreshThreads());
+    executor.setMaxPoolSize(properties.getRefreshThreads());
+    executor.setQueueCapacity(properties.getRefreshQueueCapacity());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+  @Bean
+  public SnapshotCache<CardsDto> cardsSnapshotCache(
+      SnapshotCacheProperties properties,
+      ThreadPoolTaskExecutor snapshotRefreshExecutor,
+      MeterRegistry meterRegistry) {
+    return new SnapshotCache<>(
+        "cardsSnapshot",
+        properties,
+        snapshotRefreshExecutor,
+        (cardsDto, stalenessSeconds) -> {
+          CardsDto copy = new CardsDto();
+          BeanUtils.copyProperties(cardsDto, copy);
+          copy.setStalenessSeconds(stalenessSeconds);
+          return copy;
+        },
+        cardsDto -> cardsDto.getStalenessSeconds() == null,
+        meterRegistry);
+  }
+
+  @Bean
+  public SnapshotCache<LoansDto> loansSnapshotCache(
+      SnapshotCacheProperties properties,
+      ThreadPoolTaskExecutor snapshotRefreshExecutor,
+      MeterRegistry meterRegistry) {
+    return new SnapshotCache<>(
+        "loansSnapshot",
+        properties,
+        snapshotRefreshExecutor,
+        (loansDto, stalenessSeconds) -> {
+          LoansDto copy = new LoansDto();
+          BeanUtils.copyProperties(loansDto, copy);
+          copy.setStalenessSeconds(stalenessSeconds);
+          return copy;
+        },
+        loansDto -> loansDto.getStalenessSeconds() == null,
+        meterRegistry);
+  }
+}
@@ -0,0 +1,26 @@
+package com.rakesh.accounts.cache;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Windows of the last known good cards and loans snapshots, same meaning as the Cache-Control directives:
+fresh-for - a snapshot younger than this is served as it is, cards/loans are not called at all.
+stale-while-revalidate - a snapshot older than fresh-for but still inside this window is served right away and
+  cards/loans are called in the background to refresh it.
+stale-if-error - how long a snapshot is kept to be served by the fallback when cards/loans are down.
+refresh-threads and refresh-queue-capacity bound the pool of the background refreshes, a refresh that does not
+fit is skipped.*/
+@ConfigurationProperties(prefix = "snapshot-cache")
+@Getter
+@Setter
+public class SnapshotCacheProperties {
+
+  private long maximumSize = 10_000;
+  private Duration freshFor = Duration.ofSeconds(5);
+  private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+  private Duration staleIfError = Duration.ofHours(1);
+  private int refreshThreads = 2;
+  private int refreshQueueCapacity = 100;
+}
@@ -0,0 +1,67 @@
+package com.rakesh.accounts.config;
+
+import com.rakesh.accounts.cache.SingleFlight;
+import com.rakesh.accounts.dto.CustomerDetailsDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class CustomerDetailsExecutorConfig {
+
+  /*This executor runs the loans and cards calls of fetchCustomerDetails in parallel. The tracing context
+  (trace_id/span_id) is carried onto these threads by the OpenTelemetry java agent which instruments the JDK
+  executors, the decorator below copies the logging MDC so that the logs written by the forked tasks still
+  carry the same trace and correlation information as the request thread.
+  We are on Java 17, hence a bounded platform thread pool is used here instead of virtual threads. When the
+  pool is saturated a leg is rejected and served from the snapshot cache or reported as partial, running it on the
+  request thread instead would lose both the parallelism and the per leg deadline.*/
+  @Bean(destroyMethod = "shutdown")
+  public ThreadPoolTaskExecutor customerDetailsExecutor(CustomerDetailsProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("customer-details-");
+    executor.setCorePoolSize(properties.getExecutorThreads());
+    executor.setMaxPoolSize(properties.getExecutorThreads());
+    executor.setQueueCapacity(properties.getExecutorQueueCapacity());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setTaskDecorator(mdcTaskDecorator());
+    executor.initialize();
+    return executor;
+  }
+
+  /*Concurrent fetchCustomerDetails calls for the same mobile number (app refreshes, retried batch jobs) share a
+  single DB read and a single loans and cards call.*/
+  @Bean
+  public SingleFlight<String, CustomerDetailsDto> customerDetailsSingleFlight(
+      CustomerDetailsProperties properties, MeterRegistry meterRegistry) {
+    return new SingleFlight<>("customerDetails", properties.getCoalescingMaxWait(), meterRegistry);
+  }
+
+  private TaskDecorator mdcTaskDecorator() {
+    return runnable -> {
+      Map<String, String> callerContext = MDC.getCopyOfContextMap();
+      return () -> {
+        Map<String, String> previousContext = MDC.getCopyOfContextMap();
+        setContext(callerContext);
+        try {
+          runnable.run();
+        } finally {
+          setContext(previousContext);
+        }
+      };
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(context);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.rakesh.accounts.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*These properties tune the fan-out done by fetchCustomerDetails, every downstream leg (loans and cards) gets its
+own deadline which is counted from the moment the leg is forked. If a leg does not answer within its deadline we
+stop waiting for it and the response is marked as partial instead of failing the whole request.*/
+@ConfigurationProperties(prefix = "customer-details")
+@Getter
+@Setter
+public class CustomerDetailsProperties {
+
+  private Duration loansTimeout = Duration.ofSeconds(2);
+  private Duration cardsTimeout = Duration.ofSeconds(2);
+
+  // Size of the pool that runs the downstream legs, each request uses two threads from it
+  private int executorThreads = 32;
+  private int executorQueueCapacity = 256;
+
+  // Longest time a request waits for an identical in-flight request of the same mobile number to finish
+  private Duration coalescingMaxWait = Duration.ofSeconds(3);
+}
@@ -11,6 +11,19 @@ public final class AccountsConstants {
     public static final String STATUS_417 = "417";
     public static final String MESSAGE_417_UPDATE = "Update operation failed. Please try again or contact Dev team";
     public static final String MESSAGE_417_DELETE = "Delete operation failed. Please try again or contact Dev team";
+  public static final String LOANS_SECTION = "loans";
+  public static final String CARDS_SECTION = "cards";
+  public static final int CUSTOMER_DETAILS_BATCH_LIMIT = 500;
+  public static final String ACCOUNT_NUMBER_SEQUENCE = "account_number";
+  public static final String CUSTOMER_MOBILE_NUMBER_KEY = "uk_customer_mobile_number";
+  public static final int IMPORT_CHUNK_SIZE = 500;
+  public static final String IMPORT_CREATED = "CREATED";
+  public static final String IMPORT_DUPLICATE = "DUPLICATE";
+  public static final String IMPORT_INVALID = "INVALID";
+  public static final String IMPORT_FAILED = "FAILED";
+  public static final String NDJSON = "application/x-ndjson";
+  public static final int CUSTOMER_PAGE_DEFAULT_SIZE = 50;
+  public static final int CUSTOMER_PAGE_MAX_SIZE = 500;
 /*  public static final String STATUS_500 = "500";
   public static final String MESSAGE_500 ="An error occurred. Please try again or contact Dev team";*/
     private AccountsConstants(){
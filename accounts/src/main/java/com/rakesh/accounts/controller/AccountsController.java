@@ -1,8 +1,11 @@
 package com.rakesh.accounts.controller;
 
 import com.rakesh.accounts.constants.AccountsConstants;
+import com.rakesh.accounts.dto.AccountImportResultDto;
 import com.rakesh.accounts.dto.AccountsContactInfoDto;
+import com.rakesh.accounts.dto.CustomerAccountView;
 import com.rakesh.accounts.dto.CustomerDto;
+import com.rakesh.accounts.dto.CustomerPageDto;
 import com.rakesh.accounts.dto.ErrorResponseDto;
 import com.rakesh.accounts.dto.ResponseDto;
 import com.rakesh.accounts.service.AccountServiceInterf;
@@ -13,12 +16,19 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -80,6 +90,91 @@ public class AccountsController {
         .body(new ResponseDto(AccountsConstants.STATUS_201, AccountsConstants.MESSAGE_201));
   }
 
+  /*The request body is a NDJSON file, one CustomerDto per line, eg:- curl -H "Content-Type: application/x-ndjson"
+  --data-binary @customers.ndjson. It is read and answered as a stream, the result of every line is written back
+  as one NDJSON line, so any number of customers can be onboarded in one call without holding them in memory.*/
+  @PostMapping(
+      path = "/create/bulk",
+      consumes = AccountsConstants.NDJSON,
+      produces = AccountsConstants.NDJSON)
+  // Below are for swagger
+  @Operation(
+      summary = "Bulk Create Accounts REST API",
+      description = "REST API to onboard many customers from a NDJSON stream",
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "HTTP status OK, one result per line of the input",
+            content = @Content(schema = @Schema(implementation = AccountImportResultDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+      })
+  public void createAccountsInBulk(InputStream ndjson, HttpServletResponse response)
+      throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(AccountsConstants.NDJSON);
+    accountServiceInterf.importAccounts(ndjson, response.getOutputStream());
+  }
+
+  /*Streams every customer with its account as NDJSON, one CustomerAccountView per line. Nothing is collected in
+  a list on the way, the rows go from the DB cursor straight to the response.*/
+  @GetMapping(path = "/export", produces = AccountsConstants.NDJSON)
+  // Below are for swagger
+  @Operation(
+      summary = "Export Accounts REST API",
+      description = "REST API to export all the customers and their accounts as NDJSON",
+      responses = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "HTTP status OK",
+            content = @Content(schema = @Schema(implementation = CustomerAccountView.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+      })
+  public void exportAccounts(HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(AccountsConstants.NDJSON);
+    accountServiceInterf.exportAccounts(response.getOutputStream());
+  }
+
+  @GetMapping("/customers")
+  // Below are for swagger
+  @Operation(
+      summary = "List Customers REST API",
+      description =
+          "REST API to browse the customers page by page, pass the continuationToken of a page with"
+              + " the same filters to get the next one",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP status OK"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "HTTP status Bad Request",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+      })
+  public ResponseEntity<CustomerPageDto> fetchCustomers(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime createdAfter,
+      @RequestParam(required = false) String accountType,
+      @RequestParam(defaultValue = "" + AccountsConstants.CUSTOMER_PAGE_DEFAULT_SIZE)
+          @Min(value = 1, message = "Page size must be at least 1")
+          @Max(
+              value = AccountsConstants.CUSTOMER_PAGE_MAX_SIZE,
+              message = "Page size must not exceed " + AccountsConstants.CUSTOMER_PAGE_MAX_SIZE)
+          int pageSize,
+      @RequestParam(required = false) String continuationToken) {
+    CustomerPageDto customerPageDto =
+        accountServiceInterf.fetchCustomers(createdAfter, accountType, pageSize, continuationToken);
+    return ResponseEntity.status(HttpStatus.OK).body(customerPageDto);
+  }
+
   @GetMapping("/fetch")
   // Below are for swagger
   @Operation(
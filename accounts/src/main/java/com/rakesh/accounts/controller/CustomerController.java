@@ -1,5 +1,6 @@
 package com.rakesh.accounts.controller;
 
+import com.rakesh.accounts.constants.AccountsConstants;
 import com.rakesh.accounts.dto.CustomerDetailsDto;
 import com.rakesh.accounts.dto.ErrorResponseDto;
 import com.rakesh.accounts.service.CustomerServiceInterface;
@@ -8,7 +9,10 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.util.List;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -57,4 +61,41 @@ public class CustomerController {
     log.debug("fetchCustomerDetails method end");
     return ResponseEntity.status(HttpStatus.OK).body(customerDetailsDto);
   }
+
+  @Operation(
+      summary = "Fetch Customer Details in bulk REST API",
+      description =
+          "REST API to fetch Customer details of up to "
+              + AccountsConstants.CUSTOMER_DETAILS_BATCH_LIMIT
+              + " mobile numbers, mobile numbers that are not registered are left out of the response",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+      })
+  @PostMapping("/fetchCustomerDetails/batch")
+  public ResponseEntity<List<CustomerDetailsDto>> fetchCustomerDetailsBatch(
+      @RequestHeader("eazybank-correlation-id") String correlationId,
+      @RequestBody
+          @NotEmpty(message = "Mobile numbers cannot be empty")
+          @Size(
+              max = AccountsConstants.CUSTOMER_DETAILS_BATCH_LIMIT,
+              message =
+                  "At most "
+                      + AccountsConstants.CUSTOMER_DETAILS_BATCH_LIMIT
+                      + " mobile numbers are allowed")
+          List<
+                  @Pattern(
+                      regexp = "(^$|[0-9]{10})",
+                      message = "Mobile number must be 10 digits")
+                  String>
+              mobileNumbers) {
+    log.debug("fetchCustomerDetailsBatch method start for {} mobile numbers", mobileNumbers.size());
+    List<CustomerDetailsDto> customerDetailsDtos =
+        customerServiceInterface.fetchCustomerDetails(mobileNumbers, correlationId);
+    log.debug("fetchCustomerDetailsBatch method end");
+    return ResponseEntity.status(HttpStatus.OK).body(customerDetailsDtos);
+  }
 }
@@ -0,0 +1,93 @@
+package com.rakesh.accounts.datasource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*Remembers the sessions that wrote recently, ReplicaRoutingDataSource sends their reads to the primary.
+The session of the current request is bound to the thread by ReadYourWritesFilter. The pins are kept in this
+instance only, so it works when the follow up read reaches the same instance (sticky load balancing), it is a
+best effort and not a guarantee across instances.
+A write of a request whose session is only known from its JSON body is pinned by ReadYourWritesFilter once the
+request is done. readFromPrimary() sends the reads of a block to the primary, eg:- the ones that fill a cache.*/
+public class ReadYourWrites {
+
+  private static final ThreadLocal<String> SESSION = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> WROTE_WITHOUT_SESSION = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> PRIMARY_READ = new ThreadLocal<>();
+  private static final int PURGE_EVERY = 1024;
+
+  private final ConcurrentHashMap<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+  private final AtomicInteger writesSincePurge = new AtomicInteger();
+  private final long windowNanos;
+
+  public ReadYourWrites(DataSourceRoutingProperties properties) {
+    this.windowNanos = properties.getReadYourWritesWindow().toNanos();
+  }
+
+  public static void bind(String session) {
+    SESSION.set(session);
+  }
+
+  public static void clear() {
+    SESSION.remove();
+    WROTE_WITHOUT_SESSION.remove();
+  }
+
+  // True when the current request wrote before its session was known, see ReadYourWritesFilter
+  public static boolean wroteWithoutSession() {
+    return Boolean.TRUE.equals(WROTE_WITHOUT_SESSION.get());
+  }
+
+  public static <T> T readFromPrimary(Supplier<T> reads) {
+    Boolean outer = PRIMARY_READ.get();
+    PRIMARY_READ.set(Boolean.TRUE);
+    try {
+      return reads.get();
+    } finally {
+      if (outer == null) {
+        PRIMARY_READ.remove();
+      }
+    }
+  }
+
+  public void recordWrite() {
+    String session = SESSION.get();
+    if (session == null) {
+      WROTE_WITHOUT_SESSION.set(Boolean.TRUE);
+      return;
+    }
+    pin(session);
+  }
+
+  public void pin(String session) {
+    if (windowNanos <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    pinnedUntil.put(session, now + windowNanos);
+    if (writesSincePurge.incrementAndGet() >= PURGE_EVERY) {
+      writesSincePurge.set(0);
+      pinnedUntil.values().removeIf(until -> until - now <= 0);
+    }
+  }
+
+  public boolean isPinned() {
+    if (PRIMARY_READ.get() != null) {
+      return true;
+    }
+    String session = SESSION.get();
+    if (session == null) {
+      return false;
+    }
+    Long until = pinnedUntil.get(session);
+    if (until == null) {
+      return false;
+    }
+    if (until - System.nanoTime() > 0) {
+      return true;
+    }
+    pinnedUntil.remove(session, until);
+    return false;
+  }
+}
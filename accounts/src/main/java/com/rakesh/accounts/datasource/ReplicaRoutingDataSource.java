@@ -0,0 +1,102 @@
+package com.rakesh.accounts.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*Picks the primary or a replica for every connection. Read only transactions go round robin over the replicas
+that passed the last health check, unless the session is pinned by ReadYourWrites, and everything else goes to the
+primary. When no replica is healthy the reads fall back to the primary.
+It has to sit behind a LazyConnectionDataSourceProxy, the transaction manager asks for the connection before it
+marks the transaction as read only, the proxy delays the real getConnection() to the first statement.*/
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  private static final String PRIMARY = "primary";
+
+  private final Map<String, HikariDataSource> replicas;
+  private final ReadYourWrites readYourWrites;
+  private final int healthCheckTimeoutSeconds;
+  private final ScheduledExecutorService healthChecker;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private volatile List<String> healthyReplicas;
+
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      Map<String, HikariDataSource> replicas,
+      ReadYourWrites readYourWrites,
+      DataSourceRoutingProperties properties) {
+    Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+    targetDataSources.put(PRIMARY, primary);
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(primary);
+    this.replicas = replicas;
+    this.readYourWrites = readYourWrites;
+    this.healthCheckTimeoutSeconds =
+        (int) Math.max(1, properties.getHealthCheckTimeout().toSeconds());
+    this.healthyReplicas = List.of();
+    this.healthChecker =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "replica-health-check");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.healthChecker.scheduleWithFixedDelay(
+        this::checkReplicas,
+        0,
+        properties.getHealthCheckInterval().toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (TransactionSynchronizationManager.isActualTransactionActive()) {
+        readYourWrites.recordWrite();
+      }
+      return PRIMARY;
+    }
+    List<String> healthy = healthyReplicas;
+    if (healthy.isEmpty() || readYourWrites.isPinned()) {
+      return PRIMARY;
+    }
+    return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+  }
+
+  private void checkReplicas() {
+    List<String> healthy = new ArrayList<>(replicas.size());
+    replicas.forEach(
+        (name, replica) -> {
+          try (Connection connection = replica.getConnection()) {
+            if (connection.isValid(healthCheckTimeoutSeconds)) {
+              healthy.add(name);
+            }
+          } catch (SQLException exception) {
+            log.warn("Replica {} failed the health check : {}", name, exception.getMessage());
+          }
+        });
+    if (!healthy.equals(healthyReplicas)) {
+      log.info("Healthy replicas are now {}", healthy);
+    }
+    healthyReplicas = List.copyOf(healthy);
+  }
+
+  @Override
+  public void close() {
+    healthChecker.shutdownNow();
+    replicas.values().forEach(HikariDataSource::close);
+  }
+}
@@ -0,0 +1,31 @@
+package com.rakesh.accounts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+// For swagger
+@Schema(
+    name = "AccountImportResult",
+    description = "Schema to hold the outcome of one record of a bulk account import")
+public class AccountImportResultDto {
+
+  @Schema(description = "Line number of the record in the uploaded file", example = "1")
+  private long line;
+
+  @Schema(description = "Mobile number of the record, when it could be read", example = "1234567890")
+  private String mobileNumber;
+
+  @Schema(description = "CREATED, DUPLICATE, INVALID or FAILED", example = "CREATED")
+  private String status;
+
+  @Schema(description = "Account number of the created account", example = "1000000001")
+  private Long accountNumber;
+
+  @Schema(description = "Reason the record was not imported")
+  private String message;
+}
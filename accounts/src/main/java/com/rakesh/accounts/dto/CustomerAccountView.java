@@ -0,0 +1,46 @@
+package com.rakesh.accounts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*Flat view of a customer joined with its account. It is filled directly by a JPQL constructor expression, so
+no entity is loaded in the persistence context for it.*/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+// For swagger
+@Schema(
+    name = "CustomerAccount",
+    description = "Schema to hold a customer together with its account in one flat record")
+public class CustomerAccountView {
+
+  @Schema(description = "Id of the customer", example = "1")
+  private Long customerId;
+
+  @Schema(description = "Name of the customer", example = "Rakesh")
+  private String name;
+
+  @Schema(description = "Email address of the customer", example = "abc@xyz.com")
+  private String email;
+
+  @Schema(description = "Mobile number of the customer", example = "1234567890")
+  private String mobileNumber;
+
+  @Schema(description = "Time the customer was created")
+  private LocalDateTime createdAt;
+
+  @Schema(description = "Account number of the customer", example = "1000000001")
+  private Long accountNumber;
+
+  @Schema(description = "Account type", example = "Savings")
+  private String accountType;
+
+  @Schema(description = "Branch address of the account", example = "123 NewYork")
+  private String branchAddress;
+
+  @Schema(description = "Whether the account creation communication was sent")
+  private Boolean communicationSw;
+}
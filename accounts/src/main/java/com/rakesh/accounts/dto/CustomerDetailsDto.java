@@ -5,6 +5,8 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Data;
 
 @Data
@@ -40,4 +42,15 @@ public class CustomerDetailsDto {
 
   @Schema(description = "Cards details of the customer")
   private CardsDto cardsDto;
+
+  @Schema(description = "True when one or more sections could not be fetched in time")
+  private boolean partial;
+
+  @Schema(description = "Sections missing from a partial response", example = "[\"loans\"]")
+  private List<String> partialSections = new ArrayList<>();
+
+  public void markPartial(String section) {
+    this.partial = true;
+    this.partialSections.add(section);
+  }
 }
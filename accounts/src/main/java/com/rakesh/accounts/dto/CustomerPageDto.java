@@ -0,0 +1,21 @@
+package com.rakesh.accounts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+// For swagger
+@Schema(name = "CustomerPage", description = "Schema to hold one page of the customer listing")
+public class CustomerPageDto {
+
+  @Schema(description = "Customers of this page, ordered by customer id")
+  private List<CustomerAccountView> customers;
+
+  @Schema(
+      description =
+          "Token to pass to get the next page with the same filters, null when this is the last page")
+  private String continuationToken;
+}
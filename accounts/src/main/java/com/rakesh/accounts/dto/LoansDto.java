@@ -1,5 +1,6 @@
 package com.rakesh.accounts.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
@@ -36,4 +37,12 @@ public class LoansDto {
   @PositiveOrZero(message = "Total outstanding amount should be equal or greater than zero")
   @Schema(description = "Total outstanding amount against a loan", example = "99000")
   private int outstandingAmount;
+
+  /*Set only when the loans service did not answer live and the details come from the last known good snapshot
+  kept in the accounts service, tells how old that snapshot is.*/
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  @Schema(
+      description = "Age in seconds of the cached loans details, absent when they are live",
+      example = "12")
+  private Long stalenessSeconds;
 }
@@ -11,6 +11,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// Not kept in the hibernate second level cache, for the same reason as Customer
 public class Accounts extends BaseEntity {
 
   @Id private Long accountNumber;
@@ -6,6 +6,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import lombok.*;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Getter
 @Setter
@@ -13,19 +16,33 @@ import org.hibernate.annotations.GenericGenerator;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+/*Not kept in the hibernate second level cache: every accounts instance changes customers, mobile number included,
+and a per instance cache is only evicted by the writes of its own instance. Another instance would go on mapping
+the old mobile number to this customer, eg:- deleteAccount there would delete the customer that now has the new
+number. The reads of fetchAccount are cached by CustomerCache, which is evicted on all the instances.*/
 public class Customer extends BaseEntity {
 
   @Id
-  /*Here generator is native means I'm telling to the spring data JPA framework,whatever database that
-  I'm using, please try to generate the sequence number or the primary key value based upon the native
-  style of my database.*/
-  @GeneratedValue(strategy = GenerationType.AUTO, generator = "native")
-  @GenericGenerator(name = "native")
+  /*The ids are taken from the customer_seq table with the pooled-lo optimizer, every trip to that table reserves
+  50 ids which are then assigned in memory. We moved away from the native generator because on MySQL it means
+  IDENTITY, and with IDENTITY hibernate has to run every insert on its own to read the generated id back, which
+  disables JDBC batch inserts.*/
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+  @GenericGenerator(
+      name = "customer_seq",
+      type = SequenceStyleGenerator.class,
+      parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "customer_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+      })
   private Long customerId;
 
   private String name;
 
   private String email;
 
+  // Mutable because the mobile number of a customer can be changed through /api/update
+  @NaturalId(mutable = true)
   private String mobileNumber;
 }
@@ -0,0 +1,42 @@
+package com.rakesh.accounts.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/*A message that still has to be published to the broker. It is inserted in the same transaction as the data it
+talks about, so either both are saved or none of them, and the OutboxRelay publishes it later on.*/
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEvent extends BaseEntity {
+
+  @Id
+  // Same pooled-lo generator as Customer, so the outbox rows are batch inserted along with the customers
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+  @GenericGenerator(
+      name = "outbox_event_seq",
+      type = SequenceStyleGenerator.class,
+      parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "outbox_event_seq"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+      })
+  private Long eventId;
+
+  // Name of the StreamBridge binding the payload has to be sent to, eg:- sendCommunication-out-0
+  private String bindingName;
+
+  // JSON representation of the message
+  private String payload;
+}
@@ -57,6 +57,18 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     return new ResponseEntity<>(errorResponseDTO, HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(InvalidContinuationTokenException.class)
+  public ResponseEntity<ErrorResponseDto> handleInvalidContinuationTokenException(
+      InvalidContinuationTokenException exception, WebRequest webRequest) {
+    ErrorResponseDto errorResponseDTO =
+        new ErrorResponseDto(
+            webRequest.getDescription(false),
+            HttpStatus.BAD_REQUEST,
+            exception.getMessage(),
+            LocalDateTime.now());
+    return new ResponseEntity<>(errorResponseDTO, HttpStatus.BAD_REQUEST);
+  }
+
   /*  This will handle all other exceptions that might occur in our code during runtime and are not user
   defined like others as above.
   If any exception occurs then spring framework will first check if there is any ExceptionHandler present or
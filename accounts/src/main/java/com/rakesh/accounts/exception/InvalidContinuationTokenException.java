@@ -0,0 +1,12 @@
+package com.rakesh.accounts.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidContinuationTokenException extends RuntimeException {
+
+  public InvalidContinuationTokenException(String continuationToken) {
+    super(String.format("Continuation token %s is not valid", continuationToken));
+  }
+}
@@ -0,0 +1,37 @@
+package com.rakesh.accounts.exception;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import org.hibernate.exception.ConstraintViolationException;
+
+/*Tells which unique key of schema.sql an insert or update ran into. Instead of checking with a select before
+writing, which lets a concurrent request slip in between, we just write and let the DB reject the duplicate.*/
+public final class UniqueKeys {
+
+  private UniqueKeys() {
+    // restrict instantiation
+  }
+
+  /**
+   * @param failure - the exception thrown by the repository or by the commit, it is checked with all its causes
+   * @param keyName - name of the unique key in schema.sql
+   * @return true if the failure is a violation of the given unique key
+   */
+  public static boolean isViolated(Throwable failure, String keyName) {
+    String key = keyName.toLowerCase(Locale.ROOT);
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      // MySQL 8 reports the key as <table>.<key name>
+      if (cause instanceof ConstraintViolationException violation
+          && violation.getConstraintName() != null
+          && violation.getConstraintName().toLowerCase(Locale.ROOT).endsWith(key)) {
+        return true;
+      }
+      if (cause instanceof SQLException sqlException
+          && sqlException.getMessage() != null
+          && sqlException.getMessage().toLowerCase(Locale.ROOT).contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,11 @@
+package com.rakesh.accounts.feign;
+
+/*Thrown by the ConcurrencyLimitingClient instead of queuing a call when the limit of the remote service is
+reached, the circuit breaker then answers from the fallback right away. It is in the ignore-exceptions of the
+circuit breaker, the remote service did not fail so it must not count as a failure.*/
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+  public ConcurrencyLimitExceededException(String clientName, int limit) {
+    super(String.format("Concurrency limit %s of %s reached", limit, clientName));
+  }
+}
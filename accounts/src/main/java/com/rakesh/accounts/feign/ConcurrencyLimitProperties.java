@@ -0,0 +1,24 @@
+package com.rakesh.accounts.feign;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Adaptive limit of the concurrent calls from this service to each of loans and cards, see ConcurrencyLimiter.
+alpha and beta are the estimated number of queued requests at the remote service under which the limit grows and
+above which it shrinks, they are scaled by log10 of the current limit.*/
+@ConfigurationProperties(prefix = "feign-concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = true;
+  private int initialLimit = 20;
+  private int minLimit = 5;
+  private int maxLimit = 200;
+  private int alpha = 3;
+  private int beta = 6;
+
+  // The no load RTT is measured again after this many samples, so the limit can follow a service that got faster
+  private int minRttProbeInterval = 1000;
+}
@@ -0,0 +1,91 @@
+package com.rakesh.accounts.feign;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*Vegas style adaptive concurrency limit of one remote service.
+The smallest RTT seen is taken as the latency of the service without any queuing, so for a call with RTT rtt
+about limit * (1 - minRtt / rtt) requests are waiting in a queue at the service. While that estimate is under
+alpha the limit grows, above beta it shrinks, and a failed call (error, timeout, 5xx) cuts it by 10%.
+The limit only grows when at least half of it is really used, else an idle client would grow it for nothing.
+The gauges feign.concurrency.limit and feign.concurrency.inflight and the counter feign.concurrency.rejected are
+tagged with the client name.*/
+public class ConcurrencyLimiter {
+
+  private final String clientName;
+  private final ConcurrencyLimitProperties properties;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rejected;
+  private volatile double limit;
+  private long minRttNanos = Long.MAX_VALUE;
+  private int samplesSinceProbe;
+
+  public ConcurrencyLimiter(
+      String clientName, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+    this.clientName = clientName;
+    this.properties = properties;
+    this.limit = properties.getInitialLimit();
+    Gauge.builder("feign.concurrency.limit", this, ConcurrencyLimiter::getLimit)
+        .tag("client", clientName)
+        .register(meterRegistry);
+    Gauge.builder("feign.concurrency.inflight", inFlight, AtomicInteger::get)
+        .tag("client", clientName)
+        .register(meterRegistry);
+    this.rejected =
+        Counter.builder("feign.concurrency.rejected").tag("client", clientName).register(meterRegistry);
+  }
+
+  /**
+   * @return the number of calls in flight when this one started
+   * @throws ConcurrencyLimitExceededException when the limit is reached, the call must not be sent
+   */
+  public int acquire() {
+    int current = inFlight.incrementAndGet();
+    int currentLimit = getLimit();
+    if (current > currentLimit) {
+      inFlight.decrementAndGet();
+      rejected.increment();
+      throw new ConcurrencyLimitExceededException(clientName, currentLimit);
+    }
+    return current;
+  }
+
+  public void onSuccess(long rttNanos, int inFlightAtStart) {
+    inFlight.decrementAndGet();
+    update(rttNanos, inFlightAtStart);
+  }
+
+  public void onDropped() {
+    inFlight.decrementAndGet();
+    synchronized (this) {
+      limit = Math.max(properties.getMinLimit(), limit * 0.9);
+    }
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  private synchronized void update(long rttNanos, int inFlightAtStart) {
+    if (++samplesSinceProbe >= properties.getMinRttProbeInterval()) {
+      samplesSinceProbe = 0;
+      minRttNanos = rttNanos;
+    }
+    minRttNanos = Math.min(minRttNanos, rttNanos);
+
+    double currentLimit = limit;
+    double queueSize = Math.ceil(currentLimit * (1 - (double) minRttNanos / rttNanos));
+    double step = Math.max(1, Math.log10(currentLimit));
+    double newLimit = currentLimit;
+    if (queueSize < properties.getAlpha() * step) {
+      if (inFlightAtStart * 2 >= currentLimit) {
+        newLimit = currentLimit + step;
+      }
+    } else if (queueSize > properties.getBeta() * step) {
+      newLimit = currentLimit - step;
+    }
+    limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+  }
+}
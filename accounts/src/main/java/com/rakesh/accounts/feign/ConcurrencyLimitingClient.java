@@ -0,0 +1,56 @@
+package com.rakesh.accounts.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.Map;
+
+/*Feign client decorator applying the ConcurrencyLimiter of the target service to every request. A call over the
+limit is not queued, it fails at once with ConcurrencyLimitExceededException and ends in the fallback.
+5xx and 429 answers count as dropped, the service is overloaded or broken and the limit has to come down.*/
+public class ConcurrencyLimitingClient implements Client {
+
+  private final Client delegate;
+  private final Map<String, ConcurrencyLimiter> limiters;
+  private final ConcurrencyLimitProperties properties;
+  private final MeterRegistry meterRegistry;
+
+  public ConcurrencyLimitingClient(
+      Client delegate,
+      Map<String, ConcurrencyLimiter> limiters,
+      ConcurrencyLimitProperties properties,
+      MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.limiters = limiters;
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    if (request.requestTemplate() == null || request.requestTemplate().feignTarget() == null) {
+      return delegate.execute(request, options);
+    }
+    ConcurrencyLimiter limiter =
+        limiters.computeIfAbsent(
+            request.requestTemplate().feignTarget().name(),
+            clientName -> new ConcurrencyLimiter(clientName, properties, meterRegistry));
+    int inFlightAtStart = limiter.acquire();
+    long startedAt = System.nanoTime();
+    Response response;
+    try {
+      response = delegate.execute(request, options);
+    } catch (IOException | RuntimeException exception) {
+      limiter.onDropped();
+      throw exception;
+    }
+    if (response.status() >= 500 || response.status() == 429) {
+      limiter.onDropped();
+    } else {
+      limiter.onSuccess(System.nanoTime() - startedAt, inFlightAtStart);
+    }
+    return response;
+  }
+}
@@ -0,0 +1,65 @@
+package com.rakesh.accounts.feign;
+
+import feign.Capability;
+import feign.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/*Capability beans are picked up by spring cloud openfeign and applied to every feign client (loans and cards),
+enrich(Client) wraps the load balanced client, below the circuit breaker. So a failure that comes out of these
+decorators still counts for the circuit breaker and still ends up in the fallback.*/
+@Configuration
+public class FeignCapabilitiesConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  @ConditionalOnProperty(prefix = "feign-hedging", name = "enabled", havingValue = "true")
+  public ThreadPoolTaskExecutor feignHedgingExecutor(HedgingProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("feign-hedging-");
+    executor.setCorePoolSize(properties.getExecutorThreads());
+    executor.setMaxPoolSize(properties.getExecutorThreads());
+    // No queue, when all the threads are busy the request is sent without hedging on the caller thread
+    executor.setQueueCapacity(0);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.initialize();
+    return executor;
+  }
+
+  /*One capability applies all the decorators so that their order is fixed, from the inside out:
+  load balanced client -> concurrency limit -> hedging. Each hedge is a real call, so it takes a slot of the
+  concurrency limit too. Spring cloud openfeign calls enrich() once per feign client, the limiters are shared
+  through the map so every client name has a single limiter and a single set of gauges.*/
+  @Bean
+  public Capability feignClientCapability(
+      HedgingProperties hedgingProperties,
+      ConcurrencyLimitProperties concurrencyLimitProperties,
+      @Qualifier("feignHedgingExecutor") ObjectProvider<ThreadPoolTaskExecutor> feignHedgingExecutor,
+      MeterRegistry meterRegistry) {
+    Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    return new Capability() {
+      @Override
+      public Client enrich(Client client) {
+        Client enriched = client;
+        if (concurrencyLimitProperties.isEnabled()) {
+          enriched =
+              new ConcurrencyLimitingClient(
+                  enriched, limiters, concurrencyLimitProperties, meterRegistry);
+        }
+        if (hedgingProperties.isEnabled()) {
+          enriched =
+              new HedgingClient(
+                  enriched, hedgingProperties, feignHedgingExecutor.getObject(), meterRegistry);
+        }
+        return enriched;
+      }
+    };
+  }
+}
@@ -0,0 +1,147 @@
+package com.rakesh.accounts.feign;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import lombok.extern.log4j.Log4j2;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.http.ssl.TLS;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.cloud.openfeign.support.FeignHttpClientProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*With feign-hc5 on the classpath spring cloud openfeign sends the loans and cards calls through a pooled Apache
+HttpClient 5 instead of a new HttpURLConnection per call, so connections are reused (keep-alive) instead of
+being left in TIME_WAIT. Here we replace the connection manager it would build with the same settings plus the
+instrumentation:
+- httpcomponents.httpclient.pool.* gauges, leased/available/pending connections of the pool
+- feign.http.connect histogram, time taken to open a new connection, see TimedConnectionSocketFactory
+Both get the application tag from management.metrics.tags like every other metric.
+spring.cloud.openfeign.httpclient.disable-ssl-validation is honoured as by the connection manager this one replaces,
+no certificate or host name check on https when it is true.
+HTTP/2 is opt-in: build with the http2 maven profile (adds feign-java11) and set
+spring.cloud.openfeign.httpclient.hc5.enabled=false and spring.cloud.openfeign.http2client.enabled=true, the feign
+clients then use the JDK HttpClient and this configuration is not used.*/
+@Configuration
+@Log4j2
+@ConditionalOnProperty(
+    value = "spring.cloud.openfeign.httpclient.hc5.enabled",
+    havingValue = "true",
+    matchIfMissing = true)
+public class FeignHttpClientConfig {
+
+  private static final String POOL_NAME = "feign";
+
+  @Bean(destroyMethod = "close")
+  public PoolingHttpClientConnectionManager feignConnectionManager(
+      FeignHttpClientProperties httpClientProperties, MeterRegistry meterRegistry) {
+    Registry<ConnectionSocketFactory> socketFactories =
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register(
+                "http",
+                new TimedConnectionSocketFactory(
+                    PlainConnectionSocketFactory.getSocketFactory(), "http", meterRegistry))
+            .register(
+                "https",
+                new TimedConnectionSocketFactory.Layered(
+                    httpsSocketFactory(httpClientProperties.isDisableSslValidation()),
+                    "https",
+                    meterRegistry))
+            .build();
+    FeignHttpClientProperties.Hc5Properties hc5 = httpClientProperties.getHc5();
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager(
+            socketFactories,
+            PoolConcurrencyPolicy.valueOf(hc5.getPoolConcurrencyPolicy().name()),
+            PoolReusePolicy.valueOf(hc5.getPoolReusePolicy().name()),
+            TimeValue.of(
+                httpClientProperties.getTimeToLive(), httpClientProperties.getTimeToLiveUnit()));
+    // Per route means per loans/cards instance, so one slow instance can not take all the connections
+    connectionManager.setMaxTotal(httpClientProperties.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(httpClientProperties.getMaxConnectionsPerRoute());
+    connectionManager.setDefaultSocketConfig(
+        SocketConfig.custom()
+            .setSoTimeout(Timeout.of(hc5.getSocketTimeout(), hc5.getSocketTimeoutUnit()))
+            .build());
+    return connectionManager;
+  }
+
+  // Same TLS versions and SSL context as the https socket factory of spring cloud openfeign
+  private static LayeredConnectionSocketFactory httpsSocketFactory(boolean disableSslValidation) {
+    SSLConnectionSocketFactoryBuilder builder =
+        SSLConnectionSocketFactoryBuilder.create().setTlsVersions(TLS.V_1_3, TLS.V_1_2);
+    if (disableSslValidation) {
+      try {
+        SSLContext sslContext = SSLContext.getInstance("SSL");
+        sslContext.init(null, new TrustManager[] {new TrustAllManager()}, new SecureRandom());
+        builder.setSslContext(sslContext).setHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+      } catch (GeneralSecurityException exception) {
+        log.warn("Error creating SSLContext, the SSL validation stays enabled", exception);
+      }
+    } else {
+      builder.setSslContext(SSLContexts.createSystemDefault());
+    }
+    return builder.build();
+  }
+
+  @Bean
+  public MeterBinder hc5ConnectionPoolMetrics(PoolingHttpClientConnectionManager feignConnectionManager) {
+    return new PoolingHttpClientConnectionManagerMetricsBinder(feignConnectionManager, POOL_NAME);
+  }
+
+  /*A Keep-Alive timeout sent by loans/cards is honoured as DefaultConnectionKeepAliveStrategy does, keep-alive is
+  only used for the responses without one.*/
+  @Bean
+  public HttpClientBuilderCustomizer hc5KeepAliveCustomizer(HttpClientPoolProperties properties) {
+    TimeValue keepAlive = TimeValue.of(properties.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS);
+    return builder ->
+        builder
+            .setKeepAliveStrategy(
+                (response, context) ->
+                    response.containsHeader(HttpHeaders.KEEP_ALIVE)
+                        ? DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                            response, context)
+                        : keepAlive)
+            .evictIdleConnections(
+                TimeValue.of(properties.getIdleEviction().toMillis(), TimeUnit.MILLISECONDS));
+  }
+
+  // Accepts every certificate, only used with disable-ssl-validation
+  private static final class TrustAllManager implements X509TrustManager {
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {}
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+      return new X509Certificate[0];
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package com.rakesh.accounts.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.log4j.Log4j2;
+
+/*Feign client decorator doing the hedging, see HedgingProperties.
+The delegate is the load balanced client, so the hedge goes through the load balancer again and with the default
+round robin it lands on the next instance of the service, not on the slow one. The first successful response wins
+and the body of the other one is closed as soon as it arrives.*/
+@Log4j2
+public class HedgingClient implements Client {
+
+  private static final long REFRESH_DELAY_EVERY_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long TOKEN = 1_000;
+
+  private final Client delegate;
+  private final HedgingProperties properties;
+  private final Executor executor;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, ClientHedge> hedges = new ConcurrentHashMap<>();
+
+  public HedgingClient(
+      Client delegate, HedgingProperties properties, Executor executor, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.properties = properties;
+    this.executor = executor;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Response execute(Request request, Request.Options options) throws IOException {
+    if (!isHedgeable(request)) {
+      return delegate.execute(request, options);
+    }
+    ClientHedge hedge =
+        hedges.computeIfAbsent(request.requestTemplate().feignTarget().name(), ClientHedge::new);
+    hedge.earnBudget();
+
+    long startedAt = System.nanoTime();
+    CompletableFuture<Response> primary;
+    try {
+      primary = send(request, options);
+    } catch (RejectedExecutionException exception) {
+      return delegate.execute(request, options);
+    }
+    try {
+      Response response = primary.get(hedge.delayNanos(), TimeUnit.NANOSECONDS);
+      hedge.record(System.nanoTime() - startedAt);
+      return response;
+    } catch (TimeoutException exception) {
+      // handled below, the primary is slow
+    } catch (ExecutionException exception) {
+      throw unwrap(exception.getCause());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      primary.thenAccept(HedgingClient::close);
+      throw new IOException("Interrupted while waiting for " + request.url(), exception);
+    }
+
+    if (!hedge.spendBudget()) {
+      hedge.budgetExhausted.increment();
+      return await(primary, startedAt, hedge);
+    }
+    CompletableFuture<Response> secondary;
+    try {
+      secondary = send(request, options);
+    } catch (RejectedExecutionException exception) {
+      return await(primary, startedAt, hedge);
+    }
+    hedge.sent.increment();
+    return await(firstSuccessful(primary, secondary, hedge), startedAt, hedge);
+  }
+
+  private boolean isHedgeable(Request request) {
+    return request.httpMethod() == Request.HttpMethod.GET
+        && request.requestTemplate() != null
+        && request.requestTemplate().feignTarget() != null
+        && properties.getPaths().contains(request.requestTemplate().path());
+  }
+
+  private CompletableFuture<Response> send(Request request, Request.Options options) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return delegate.execute(request, options);
+          } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+          }
+        },
+        executor);
+  }
+
+  private static CompletableFuture<Response> firstSuccessful(
+      CompletableFuture<Response> primary, CompletableFuture<Response> secondary, ClientHedge hedge) {
+    CompletableFuture<Response> winner = new CompletableFuture<>();
+    AtomicInteger failures = new AtomicInteger();
+    primary.whenComplete((response, exception) -> offer(winner, response, exception, failures));
+    secondary.whenComplete(
+        (response, exception) -> {
+          if (offer(winner, response, exception, failures)) {
+            hedge.won.increment();
+          }
+        });
+    return winner;
+  }
+
+  // Returns true when this response became the winner, a losing response is closed straight away
+  private static boolean offer(
+      CompletableFuture<Response> winner,
+      Response response,
+      Throwable exception,
+      AtomicInteger failures) {
+    if (exception != null) {
+      if (failures.incrementAndGet() == 2) {
+        winner.completeExceptionally(exception);
+      }
+      return false;
+    }
+    if (winner.complete(response)) {
+      return true;
+    }
+    close(response);
+    return false;
+  }
+
+  private static Response await(
+      CompletableFuture<Response> response, long startedAt, ClientHedge hedge) throws IOException {
+    try {
+      Response result = response.get();
+      hedge.record(System.nanoTime() - startedAt);
+      return result;
+    } catch (ExecutionException exception) {
+      throw unwrap(exception.getCause());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      response.thenAccept(HedgingClient::close);
+      throw new IOException("Interrupted while waiting for the response", exception);
+    }
+  }
+
+  private static IOException unwrap(Throwable cause) {
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause instanceof UncheckedIOException uncheckedIOException) {
+      return uncheckedIOException.getCause();
+    }
+    if (cause instanceof IOException ioException) {
+      return ioException;
+    }
+    if (cause instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    return new IOException(cause);
+  }
+
+  private static void close(Response response) {
+    if (response != null) {
+      response.close();
+    }
+  }
+
+  /*Latency, delay and budget of one feign client (loans, cards). The p95 is read from a Timer keeping the last
+  minute of latencies, it is recomputed at most once a second because taking the snapshot is not free.*/
+  private final class ClientHedge {
+
+    private final Timer latency;
+    private final Counter sent;
+    private final Counter won;
+    private final Counter budgetExhausted;
+    private final AtomicLong budget = new AtomicLong();
+    private volatile long delayNanos;
+    private volatile long delayComputedAt;
+
+    private ClientHedge(String clientName) {
+      this.latency =
+          Timer.builder("feign.hedging.latency")
+              .tag("client", clientName)
+              .publishPercentiles(properties.getPercentile())
+              .distributionStatisticExpiry(Duration.ofMinutes(1))
+              .register(meterRegistry);
+      this.sent = counter(clientName, "sent");
+      this.won = counter(clientName, "won");
+      this.budgetExhausted = counter(clientName, "budget_exhausted");
+      this.delayNanos = properties.getMaxDelay().toNanos();
+      this.delayComputedAt = System.nanoTime();
+    }
+
+    private Counter counter(String clientName, String outcome) {
+      return Counter.builder("feign.hedging.hedges")
+          .tag("client", clientName)
+          .tag("outcome", outcome)
+          .register(meterRegistry);
+    }
+
+    private void record(long nanos) {
+      latency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private long delayNanos() {
+      long now = System.nanoTime();
+      if (now - delayComputedAt >= REFRESH_DELAY_EVERY_NANOS) {
+        delayComputedAt = now;
+        long percentileNanos = properties.getMaxDelay().toNanos();
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+          if (value.value() > 0) {
+            percentileNanos = (long) value.value(TimeUnit.NANOSECONDS);
+          }
+        }
+        delayNanos =
+            Math.max(
+                properties.getMinDelay().toNanos(),
+                Math.min(properties.getMaxDelay().toNanos(), percentileNanos));
+      }
+      return delayNanos;
+    }
+
+    private void earnBudget() {
+      long earned = (long) (properties.getBudgetRatio() * TOKEN);
+      long cap = properties.getMaxBudgetTokens() * TOKEN;
+      budget.getAndUpdate(current -> Math.min(cap, current + earned));
+    }
+
+    private boolean spendBudget() {
+      long before = budget.getAndUpdate(current -> current >= TOKEN ? current - TOKEN : current);
+      return before >= TOKEN;
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.rakesh.accounts.feign;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Request hedging of the feign clients, off unless feign-hedging.enabled is true.
+A hedge (second copy of the request) is sent when the first one has not answered after the recent p95 latency of
+that client, clamped between min-delay and max-delay. Every request earns budget-ratio of a hedge token and every
+hedge spends a whole one, so hedges can never add more than budget-ratio (5%) of extra load.*/
+@ConfigurationProperties(prefix = "feign-hedging")
+@Getter
+@Setter
+public class HedgingProperties {
+
+  private boolean enabled = false;
+
+  // Only GET requests to these paths are hedged, they must be idempotent
+  private List<String> paths = List.of("/api/fetch");
+
+  private double percentile = 0.95;
+  private Duration minDelay = Duration.ofMillis(20);
+  private Duration maxDelay = Duration.ofSeconds(1);
+  private double budgetRatio = 0.05;
+
+  // Unused tokens that can be saved up, lets a short burst of slow responses be hedged
+  private int maxBudgetTokens = 10;
+
+  private int executorThreads = 32;
+}
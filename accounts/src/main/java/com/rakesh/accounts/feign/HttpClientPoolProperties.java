@@ -0,0 +1,20 @@
+package com.rakesh.accounts.feign;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Keep-alive and idle eviction of the pooled connections of the feign clients. The pool sizes themselves are the
+standard spring.cloud.openfeign.httpclient.max-connections and max-connections-per-route properties.*/
+@ConfigurationProperties(prefix = "feign-http-pool")
+@Getter
+@Setter
+public class HttpClientPoolProperties {
+
+  // How long a connection is kept for reuse when loans/cards do not send a Keep-Alive header
+  private Duration keepAlive = Duration.ofSeconds(30);
+
+  // Connections idle for longer than this are closed by a background thread, before the server closes them
+  private Duration idleEviction = Duration.ofSeconds(20);
+}
@@ -0,0 +1,116 @@
+package com.rakesh.accounts.feign;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+/*Socket factory decorator recording how long it takes to open a new connection (TCP connect, and the TLS
+handshake for https) in the feign.http.connect histogram. A pooled connection that is reused is not counted, so
+the count of this timer is also the number of new connections opened.
+Use it as it is for http and the Layered one for https, only a layered factory can tunnel through a proxy.*/
+public class TimedConnectionSocketFactory implements ConnectionSocketFactory {
+
+  private final ConnectionSocketFactory delegate;
+  private final Timer success;
+  private final Timer failure;
+
+  public TimedConnectionSocketFactory(
+      ConnectionSocketFactory delegate, String scheme, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.success = timer(scheme, "success", meterRegistry);
+    this.failure = timer(scheme, "failure", meterRegistry);
+  }
+
+  @Override
+  public Socket createSocket(HttpContext context) throws IOException {
+    return delegate.createSocket(context);
+  }
+
+  @Override
+  public Socket connectSocket(
+      TimeValue connectTimeout,
+      Socket socket,
+      HttpHost host,
+      InetSocketAddress remoteAddress,
+      InetSocketAddress localAddress,
+      HttpContext context)
+      throws IOException {
+    long startedAt = System.nanoTime();
+    try {
+      Socket connected =
+          delegate.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+      success.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      return connected;
+    } catch (IOException exception) {
+      failure.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      throw exception;
+    }
+  }
+
+  @Override
+  public Socket connectSocket(
+      Socket socket,
+      HttpHost host,
+      InetSocketAddress remoteAddress,
+      InetSocketAddress localAddress,
+      Timeout connectTimeout,
+      Object attachment,
+      HttpContext context)
+      throws IOException {
+    long startedAt = System.nanoTime();
+    try {
+      Socket connected =
+          delegate.connectSocket(
+              socket, host, remoteAddress, localAddress, connectTimeout, attachment, context);
+      success.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      return connected;
+    } catch (IOException exception) {
+      failure.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      throw exception;
+    }
+  }
+
+  private static Timer timer(String scheme, String outcome, MeterRegistry meterRegistry) {
+    return Timer.builder("feign.http.connect")
+        .description("Time taken to open a new connection of the feign clients")
+        .tag("scheme", scheme)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  // The TLS variant, also used to tunnel https through a proxy
+  public static class Layered extends TimedConnectionSocketFactory
+      implements LayeredConnectionSocketFactory {
+
+    private final LayeredConnectionSocketFactory delegate;
+
+    public Layered(
+        LayeredConnectionSocketFactory delegate, String scheme, MeterRegistry meterRegistry) {
+      super(delegate, scheme, meterRegistry);
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context)
+        throws IOException {
+      return delegate.createLayeredSocket(socket, target, port, context);
+    }
+
+    @Override
+    public Socket createLayeredSocket(
+        Socket socket, String target, int port, Object attachment, HttpContext context)
+        throws IOException {
+      return delegate.createLayeredSocket(socket, target, port, attachment, context);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.rakesh.accounts.functions;
 
 import com.rakesh.accounts.service.AccountServiceInterf;
+import java.util.List;
 import java.util.function.Consumer;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.context.annotation.Bean;
@@ -12,12 +13,17 @@ we are updating the DB with the dta that is received, we have told spring about
 @Log4j2
 public class AccountsFunctions {
 
+  /*The binding of this consumer runs in batch mode (see updateCommunication-in-0 in the yml), so we receive all
+  the account numbers returned by one poll of the broker and flip them with a single UPDATE statement.
+  The offsets of the batch are committed only after this method returns, i.e. after the DB transaction is
+  committed. If the update fails the whole batch is delivered again, which is safe as setting the flag twice
+  has no effect.*/
   @Bean
-  public Consumer<Long> updateCommunication(AccountServiceInterf accountsService) {
-    return accountNumber -> {
-      log.info(
-          "Updating Communication status for the account number : " + accountNumber.toString());
-      accountsService.updateCommunicationStatus(accountNumber);
+  public Consumer<List<Long>> updateCommunication(AccountServiceInterf accountsService) {
+    return accountNumbers -> {
+      log.info("Updating Communication status for {} account numbers", accountNumbers.size());
+      int updated = accountsService.updateCommunicationStatus(accountNumbers);
+      log.debug("Communication status updated for {} accounts", updated);
     };
   }
 }
@@ -0,0 +1,81 @@
+package com.rakesh.accounts.generator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*Hands out unique account numbers without a DB round trip per number. Numbers come from the number_sequence table,
+but instead of reading the table for every number we lease a whole block of them (block-size) in one short
+transaction and then hand them out from memory with an AtomicLong, so the hot path takes no lock at all.
+Only the thread that finds the block exhausted goes back to the DB to lease the next block.
+A number handed out is never handed out again, even across instances, because every block is reserved with a
+row lock on the sequence row. Numbers of a block that is not fully used (eg:- on a restart) are simply skipped.*/
+@Component
+public class NumberAllocator {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate leaseTransaction;
+  private final int blockSize;
+  private final ConcurrentMap<String, Block> blocks = new ConcurrentHashMap<>();
+
+  public NumberAllocator(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${number-allocator.block-size:100}") int blockSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    // The lease is committed on its own, so the block stays reserved even if the caller rolls back
+    this.leaseTransaction = new TransactionTemplate(transactionManager);
+    this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.blockSize = blockSize;
+  }
+
+  /**
+   * @param sequenceName - Name of the row in number_sequence table
+   * @return the next unique number of the given sequence
+   */
+  public long next(String sequenceName) {
+    while (true) {
+      Block block = blocks.get(sequenceName);
+      if (block != null) {
+        long number = block.next().getAndIncrement();
+        if (number < block.end()) {
+          return number;
+        }
+      }
+      refill(sequenceName, block);
+    }
+  }
+
+  private synchronized void refill(String sequenceName, Block exhaustedBlock) {
+    // Another thread may have already leased a new block while we were waiting for the lock
+    if (blocks.get(sequenceName) == exhaustedBlock) {
+      blocks.put(sequenceName, lease(sequenceName));
+    }
+  }
+
+  private Block lease(String sequenceName) {
+    Long start =
+        leaseTransaction.execute(
+            status -> {
+              Long nextValue =
+                  jdbcTemplate.queryForObject(
+                      "select next_value from number_sequence where sequence_name = ? for update",
+                      Long.class,
+                      sequenceName);
+              jdbcTemplate.update(
+                  "update number_sequence set next_value = ? where sequence_name = ?",
+                  nextValue + blockSize,
+                  sequenceName);
+              return nextValue;
+            });
+    return new Block(new AtomicLong(start), start + blockSize);
+  }
+
+  private record Block(AtomicLong next, long end) {}
+}
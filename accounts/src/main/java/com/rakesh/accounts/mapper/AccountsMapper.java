@@ -1,6 +1,7 @@
 package com.rakesh.accounts.mapper;
 
 import com.rakesh.accounts.dto.AccountsDto;
+import com.rakesh.accounts.dto.CustomerAccountView;
 import com.rakesh.accounts.entity.Accounts;
 
 public class AccountsMapper {
@@ -18,4 +19,11 @@ public class AccountsMapper {
     accounts.setBranchAddress(accountsDto.getBranchAddress());
     return accounts;
   }
+
+  public static AccountsDto mapToAccountsDto(CustomerAccountView view, AccountsDto accountsDto) {
+    accountsDto.setAccountNumber(view.getAccountNumber());
+    accountsDto.setAccountType(view.getAccountType());
+    accountsDto.setBranchAddress(view.getBranchAddress());
+    return accountsDto;
+  }
 }
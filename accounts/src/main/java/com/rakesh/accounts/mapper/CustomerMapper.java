@@ -1,8 +1,14 @@
 package com.rakesh.accounts.mapper;
 
+import com.rakesh.accounts.dto.AccountsDto;
+import com.rakesh.accounts.dto.CardsDto;
+import com.rakesh.accounts.dto.CustomerAccountView;
 import com.rakesh.accounts.dto.CustomerDetailsDto;
 import com.rakesh.accounts.dto.CustomerDto;
+import com.rakesh.accounts.dto.LoansDto;
 import com.rakesh.accounts.entity.Customer;
+import java.util.ArrayList;
+import org.springframework.beans.BeanUtils;
 
 public class CustomerMapper {
 
@@ -27,4 +33,39 @@ public class CustomerMapper {
     customerDetailsDto.setMobileNumber(customer.getMobileNumber());
     return customerDetailsDto;
   }
+
+  public static CustomerDto mapToCustomerDto(CustomerAccountView view, CustomerDto customerDto) {
+    customerDto.setName(view.getName());
+    customerDto.setEmail(view.getEmail());
+    customerDto.setMobileNumber(view.getMobileNumber());
+    return customerDto;
+  }
+
+  public static CustomerDetailsDto mapToCustomerDetailsDto(
+      CustomerAccountView view, CustomerDetailsDto customerDetailsDto) {
+    customerDetailsDto.setName(view.getName());
+    customerDetailsDto.setEmail(view.getEmail());
+    customerDetailsDto.setMobileNumber(view.getMobileNumber());
+    return customerDetailsDto;
+  }
+
+  // Deep copy, nothing of the returned dto is shared with the given one
+  public static CustomerDetailsDto copyCustomerDetailsDto(CustomerDetailsDto customerDetailsDto) {
+    CustomerDetailsDto copy = new CustomerDetailsDto();
+    BeanUtils.copyProperties(customerDetailsDto, copy);
+    copy.setPartialSections(new ArrayList<>(customerDetailsDto.getPartialSections()));
+    if (customerDetailsDto.getAccountsDto() != null) {
+      copy.setAccountsDto(new AccountsDto());
+      BeanUtils.copyProperties(customerDetailsDto.getAccountsDto(), copy.getAccountsDto());
+    }
+    if (customerDetailsDto.getLoansDto() != null) {
+      copy.setLoansDto(new LoansDto());
+      BeanUtils.copyProperties(customerDetailsDto.getLoansDto(), copy.getLoansDto());
+    }
+    if (customerDetailsDto.getCardsDto() != null) {
+      copy.setCardsDto(new CardsDto());
+      BeanUtils.copyProperties(customerDetailsDto.getCardsDto(), copy.getCardsDto());
+    }
+    return copy;
+  }
 }
@@ -0,0 +1,19 @@
+package com.rakesh.accounts.outbox;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*batchSize is the number of outbox rows published and deleted in one transaction, linger is how long the relay
+waits before looking at the outbox again once it has been drained, ackTimeout is how long it waits for the broker to
+acknowledge a batch, the rows not acknowledged by then are sent again on a later run.*/
+@ConfigurationProperties(prefix = "outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+
+  private int batchSize = 100;
+  private Duration linger = Duration.ofMillis(200);
+  private Duration ackTimeout = Duration.ofSeconds(10);
+}
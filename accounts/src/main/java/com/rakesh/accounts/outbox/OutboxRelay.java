@@ -0,0 +1,161 @@
+package com.rakesh.accounts.outbox;
+
+import com.rakesh.accounts.entity.OutboxEvent;
+import com.rakesh.accounts.repository.OutboxEventRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.data.domain.Limit;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+/*Background publisher of the outbox table. Every run drains the outbox batch by batch, each batch is locked,
+published through StreamBridge and deleted in one transaction. If the broker is not reachable the transaction is
+rolled back and the rows stay in the outbox, so they are published on a later run instead of being lost.
+The request thread never talks to the broker, it only inserts a row into the outbox.
+The sends are asynchronous, the whole batch is handed to the producer (which puts it in as few requests as it can)
+and the relay then waits for the acknowledgements, which come back on the record metadata channel of the binding,
+or the failures on the error channel. Only the acknowledged rows are deleted. Delivery is at least once: when a batch
+fails part way, or its acknowledgements time out, the rows without an acknowledgement stay and are sent again on a
+later run, even those the broker did get, so the consumer has to tolerate duplicates (updateCommunication only sets
+a flag).*/
+@Component
+@Log4j2
+public class OutboxRelay implements SchedulingConfigurer {
+
+  // Bean name given as record-metadata-channel of the outbox bindings in application.yml
+  public static final String SEND_RESULTS_CHANNEL = "outboxSendResults";
+  static final String OUTBOX_EVENT_ID_HEADER = "outbox-event-id";
+
+  private final OutboxEventRepository outboxEventRepository;
+  private final StreamBridge streamBridge;
+  private final TransactionTemplate transactionTemplate;
+  private final OutboxProperties outboxProperties;
+  private final Map<Long, CompletableFuture<Void>> pendingAcks = new ConcurrentHashMap<>();
+
+  public OutboxRelay(
+      OutboxEventRepository outboxEventRepository,
+      StreamBridge streamBridge,
+      TransactionTemplate transactionTemplate,
+      OutboxProperties outboxProperties) {
+    this.outboxEventRepository = outboxEventRepository;
+    this.streamBridge = streamBridge;
+    this.transactionTemplate = transactionTemplate;
+    this.outboxProperties = outboxProperties;
+  }
+
+  @Override
+  public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+    taskRegistrar.addFixedDelayTask(this::relay, outboxProperties.getLinger());
+  }
+
+  void relay() {
+    try {
+      int published;
+      do {
+        published = transactionTemplate.execute(status -> publishNextBatch());
+      } while (published == outboxProperties.getBatchSize());
+    } catch (RuntimeException exception) {
+      log.warn("Outbox relay stopped, will retry on the next run : {}", exception.getMessage());
+    }
+  }
+
+  private int publishNextBatch() {
+    List<OutboxEvent> outboxEvents =
+        outboxEventRepository.findNextBatch(Limit.of(outboxProperties.getBatchSize()));
+    Map<OutboxEvent, CompletableFuture<Void>> acks = new LinkedHashMap<>();
+    try {
+      for (OutboxEvent outboxEvent : outboxEvents) {
+        CompletableFuture<Void> ack = new CompletableFuture<>();
+        pendingAcks.put(outboxEvent.getEventId(), ack);
+        acks.put(outboxEvent, ack);
+        boolean sent =
+            streamBridge.send(
+                outboxEvent.getBindingName(),
+                MessageBuilder.withPayload(outboxEvent.getPayload().getBytes(StandardCharsets.UTF_8))
+                    .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                    .setHeader(OUTBOX_EVENT_ID_HEADER, outboxEvent.getEventId())
+                    .build());
+        if (!sent) {
+          ack.completeExceptionally(
+              new IllegalStateException("Not sent to " + outboxEvent.getBindingName()));
+          break;
+        }
+      }
+      List<OutboxEvent> publishedEvents = awaitAcks(acks);
+      outboxEventRepository.deleteAllInBatch(publishedEvents);
+      if (!publishedEvents.isEmpty()) {
+        log.debug("Published {} outbox events", publishedEvents.size());
+      }
+      // A batch with a failed send ends the run, what is left is tried again on the next one
+      return publishedEvents.size() == outboxEvents.size() ? publishedEvents.size() : 0;
+    } finally {
+      acks.keySet().forEach(outboxEvent -> pendingAcks.remove(outboxEvent.getEventId()));
+    }
+  }
+
+  // The events acknowledged by the broker within ackTimeout, in outbox order
+  private List<OutboxEvent> awaitAcks(Map<OutboxEvent, CompletableFuture<Void>> acks) {
+    long deadline = System.nanoTime() + outboxProperties.getAckTimeout().toNanos();
+    List<OutboxEvent> acknowledged = new ArrayList<>(acks.size());
+    for (Map.Entry<OutboxEvent, CompletableFuture<Void>> entry : acks.entrySet()) {
+      try {
+        entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        acknowledged.add(entry.getKey());
+      } catch (ExecutionException exception) {
+        log.warn(
+            "Outbox event {} was not published : {}",
+            entry.getKey().getEventId(),
+            exception.getCause().getMessage());
+      } catch (TimeoutException exception) {
+        log.warn("No acknowledgement for outbox event {}", entry.getKey().getEventId());
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return acknowledged;
+  }
+
+  @ServiceActivator(inputChannel = SEND_RESULTS_CHANNEL)
+  public void onSendResult(Message<?> sendResult) {
+    CompletableFuture<Void> ack = pendingAck(sendResult);
+    if (ack != null) {
+      ack.complete(null);
+    }
+  }
+
+  // The producer error channels are bridged to the global errorChannel, only the failures of outbox sends are ours
+  @ServiceActivator(inputChannel = "errorChannel")
+  public void onSendFailure(Message<?> errorMessage) {
+    if (errorMessage.getPayload() instanceof MessagingException exception
+        && exception.getFailedMessage() != null) {
+      CompletableFuture<Void> ack = pendingAck(exception.getFailedMessage());
+      if (ack != null) {
+        ack.completeExceptionally(exception);
+      }
+    }
+  }
+
+  private CompletableFuture<Void> pendingAck(Message<?> message) {
+    Long eventId = message.getHeaders().get(OUTBOX_EVENT_ID_HEADER, Long.class);
+    return eventId != null ? pendingAcks.get(eventId) : null;
+  }
+}
@@ -2,12 +2,15 @@ package com.rakesh.accounts.repository;
 
 import com.rakesh.accounts.entity.Accounts;
 import jakarta.transaction.Transactional;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
-public interface AccountsRepository extends JpaRepository<Accounts, Long> {
+public interface AccountsRepository extends NaturalIdRepository<Accounts, Long> {
 
   Optional<Accounts> findByCustomerId(Long customerId);
 
@@ -32,4 +35,16 @@ public interface AccountsRepository extends JpaRepository<Accounts, Long> {
   @Transactional
   @Modifying
   void deleteByCustomerId(Long customerId);
+
+  /*Flips the communication flag of a whole batch of accounts in one statement, without loading the entities.
+  A bulk update skips the JPA auditing listener, so the caller passes the auditor for updatedBy as well.*/
+  @Transactional
+  @Modifying
+  @Query(
+      "update Accounts a set a.communicationSw = true, a.updatedAt = :updatedAt,"
+          + " a.updatedBy = :updatedBy where a.accountNumber in :accountNumbers")
+  int updateCommunicationSw(
+      @Param("accountNumbers") Collection<Long> accountNumbers,
+      @Param("updatedAt") LocalDateTime updatedAt,
+      @Param("updatedBy") String updatedBy);
 }
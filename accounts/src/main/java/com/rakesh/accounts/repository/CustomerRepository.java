@@ -1,12 +1,85 @@
 package com.rakesh.accounts.repository;
 
+import com.rakesh.accounts.dto.CustomerAccountView;
 import com.rakesh.accounts.entity.Customer;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends NaturalIdRepository<Customer, Long> {
 
-    Optional<Customer> findByMobileNumber(String mobileNumber);
+    // mobileNumber is the natural id of Customer
+    default Optional<Customer> findByMobileNumber(String mobileNumber) {
+        return findBySimpleNaturalId(mobileNumber);
+    }
+
+    /*The customer and its account in one round trip, straight into the view. Nothing is loaded in the persistence
+    context, so there is no entity to hydrate and no dirty checking at flush. Empty when the customer is not
+    registered or has no account.*/
+    @Query(
+        "select new com.rakesh.accounts.dto.CustomerAccountView(c.customerId, c.name, c.email,"
+            + " c.mobileNumber, c.createdAt, a.accountNumber, a.accountType, a.branchAddress,"
+            + " a.communicationSw) from Customer c join Accounts a on a.customerId = c.customerId"
+            + " where c.mobileNumber = :mobileNumber")
+    Optional<CustomerAccountView> findViewByMobileNumber(@Param("mobileNumber") String mobileNumber);
+
+    // Same as findViewByMobileNumber for a batch of mobile numbers
+    @Query(
+        "select new com.rakesh.accounts.dto.CustomerAccountView(c.customerId, c.name, c.email,"
+            + " c.mobileNumber, c.createdAt, a.accountNumber, a.accountType, a.branchAddress,"
+            + " a.communicationSw) from Customer c join Accounts a on a.customerId = c.customerId"
+            + " where c.mobileNumber in :mobileNumbers")
+    List<CustomerAccountView> findViewsByMobileNumbers(
+        @Param("mobileNumbers") Collection<String> mobileNumbers);
+
+    @Query("select c.mobileNumber from Customer c where c.mobileNumber in :mobileNumbers")
+    List<String> findExistingMobileNumbers(@Param("mobileNumbers") Collection<String> mobileNumbers);
+
+    /*Forward only cursor over all customers with their account, used by the export. A fetch size of
+    Integer.MIN_VALUE makes the MySQL driver stream the rows one by one instead of reading the whole result set
+    in memory, and being a constructor expression nothing is kept in the persistence context. The Stream has to
+    be consumed inside a transaction and closed.*/
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(
+        "select new com.rakesh.accounts.dto.CustomerAccountView(c.customerId, c.name, c.email,"
+            + " c.mobileNumber, c.createdAt, a.accountNumber, a.accountType, a.branchAddress,"
+            + " a.communicationSw) from Customer c join Accounts a on a.customerId = c.customerId"
+            + " order by c.customerId")
+    Stream<CustomerAccountView> streamAllWithAccounts();
+
+    /*Keyset (seek) pagination, the page starts right after the last customer id of the previous page and walks
+    the primary key index from there, so the 1000th page costs the same as the first one unlike an OFFSET.
+    A null filter matches every row.*/
+    @Query(
+        "select new com.rakesh.accounts.dto.CustomerAccountView(c.customerId, c.name, c.email,"
+            + " c.mobileNumber, c.createdAt, a.accountNumber, a.accountType, a.branchAddress,"
+            + " a.communicationSw) from Customer c join Accounts a on a.customerId = c.customerId"
+            + " where c.customerId > :afterCustomerId"
+            + " and (:createdAfter is null or c.createdAt > :createdAfter)"
+            + " and (:accountType is null or a.accountType = :accountType)"
+            + " order by c.customerId")
+    List<CustomerAccountView> findPageAfter(
+        @Param("afterCustomerId") Long afterCustomerId,
+        @Param("createdAfter") LocalDateTime createdAfter,
+        @Param("accountType") String accountType,
+        Limit limit);
+
+    @Query(
+        "select c.mobileNumber from Customer c, Accounts a"
+            + " where a.customerId = c.customerId and a.accountNumber in :accountNumbers")
+    List<String> findMobileNumbersByAccountNumbers(
+        @Param("accountNumbers") Collection<Long> accountNumbers);
 
 }
@@ -0,0 +1,22 @@
+package com.rakesh.accounts.repository;
+
+import com.rakesh.accounts.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+  /*Picks the oldest events and locks them with SELECT ... FOR UPDATE SKIP LOCKED (a lock timeout of -2 means
+  skip locked for hibernate), so when many accounts instances run the relay at the same time each of them gets
+  a different set of rows and no event is published twice.*/
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select o from OutboxEvent o order by o.eventId")
+  List<OutboxEvent> findNextBatch(Limit limit);
+}
@@ -1,6 +1,12 @@
 package com.rakesh.accounts.service;
 
 import com.rakesh.accounts.dto.CustomerDto;
+import com.rakesh.accounts.dto.CustomerPageDto;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface AccountServiceInterf {
 
@@ -9,6 +15,27 @@ public interface AccountServiceInterf {
    */
   void createAccount(CustomerDto customerDto);
 
+  /**
+   * @param ndjson - Stream of CustomerDto records, one JSON document per line
+   * @param results - Stream to which one AccountImportResultDto per record is written as soon as it is known
+   */
+  void importAccounts(InputStream ndjson, OutputStream results) throws IOException;
+
+  /**
+   * @param output - Stream to which every customer with its account is written as one CustomerAccountView per line
+   */
+  void exportAccounts(OutputStream output) throws IOException;
+
+  /**
+   * @param createdAfter - only customers created after this time, optional
+   * @param accountType - only customers with this account type, optional
+   * @param pageSize - maximum number of customers in the page
+   * @param continuationToken - token of the previous page, null for the first page
+   * @return the page with the token of the next one
+   */
+  CustomerPageDto fetchCustomers(
+      LocalDateTime createdAfter, String accountType, int pageSize, String continuationToken);
+
   CustomerDto fetchAccount(String mobileNumber);
 
   boolean updateAccount(CustomerDto customerDto);
@@ -23,5 +50,13 @@ public interface AccountServiceInterf {
    */
   boolean updateCommunicationStatus(Long accountNumber);
 
+  /**
+   *
+   * @param accountNumbers - List of account numbers received in one batch
+   * @return number of accounts whose communication status got updated
+   * This is for RabbitMQ/Kafka streams in batch mode
+   */
+  int updateCommunicationStatus(List<Long> accountNumbers);
+
 }
 
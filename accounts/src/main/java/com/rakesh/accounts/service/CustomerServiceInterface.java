@@ -1,6 +1,7 @@
 package com.rakesh.accounts.service;
 
 import com.rakesh.accounts.dto.CustomerDetailsDto;
+import java.util.List;
 
 public interface CustomerServiceInterface {
 
@@ -10,4 +11,11 @@ public interface CustomerServiceInterface {
    * @return Customer Details based on a given mobileNumber
    */
   CustomerDetailsDto fetchCustomerDetails(String mobileNumber, String correlationId);
+
+  /**
+   * @param mobileNumbers - Input Mobile Numbers
+   * @param correlationId
+   * @return Customer Details of all the given mobileNumbers that are registered, in the input order
+   */
+  List<CustomerDetailsDto> fetchCustomerDetails(List<String> mobileNumbers, String correlationId);
 }
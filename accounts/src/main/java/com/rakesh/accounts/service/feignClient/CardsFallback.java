@@ -1,11 +1,22 @@
 package com.rakesh.accounts.service.feignClient;
 
+import com.rakesh.accounts.cache.SnapshotCache;
 import com.rakesh.accounts.dto.CardsDto;
+import java.util.List;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+/*Instead of dropping the cards section when the cards service is down, the last known good details of the customer
+are served from the snapshot cache, with their age set in stalenessSeconds. Only when there is no snapshot (or it
+is older than snapshot-cache.stale-if-error) null is returned and the section is left out.*/
 @Component
+@AllArgsConstructor
 public class CardsFallback implements CardsFeignClient{
+
+    private SnapshotCache<CardsDto> cardsSnapshotCache;
+
 /**
 *
  * @param correlationId
@@ -15,6 +26,14 @@ public class CardsFallback implements CardsFeignClient{
     @Override
     public ResponseEntity<CardsDto> fetchCardDetails(String correlationId, String mobileNumber) {
         //We can write our own logic here to send back the response when the feign client is not available
-        return null;
+        CardsDto cardsDto = cardsSnapshotCache.lastKnownGood(mobileNumber);
+        return null != cardsDto ? ResponseEntity.ok(cardsDto) : null;
+    }
+
+    @Override
+    public ResponseEntity<List<CardsDto>> fetchCardDetailsBatch(String correlationId, List<String> mobileNumbers) {
+        List<CardsDto> cardsDtos =
+            mobileNumbers.stream().map(cardsSnapshotCache::lastKnownGood).filter(Objects::nonNull).toList();
+        return ResponseEntity.ok(cardsDtos);
     }
 }
@@ -3,7 +3,10 @@ package com.rakesh.accounts.service.feignClient;
 import com.rakesh.accounts.dto.CardsDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
+import java.util.List;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -40,4 +43,11 @@ public interface CardsFeignClient {
   public ResponseEntity<CardsDto> fetchCardDetails(
       @RequestHeader("eazybank-correlation-id") String correlationId,
       @RequestParam String mobileNumber);
+
+  /*Bulk variant of the above, one round trip fetches the details of all the given mobile numbers. Only the
+  mobile numbers that have details are present in the response.*/
+  @PostMapping(value = "/api/fetch/batch", consumes = "application/json")
+  public ResponseEntity<List<CardsDto>> fetchCardDetailsBatch(
+      @RequestHeader("eazybank-correlation-id") String correlationId,
+      @RequestBody List<String> mobileNumbers);
 }
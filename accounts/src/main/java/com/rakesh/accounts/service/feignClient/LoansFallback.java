@@ -1,14 +1,33 @@
 package com.rakesh.accounts.service.feignClient;
 
+import com.rakesh.accounts.cache.SnapshotCache;
 import com.rakesh.accounts.dto.LoansDto;
+import java.util.List;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+/*Instead of dropping the loans section when the loans service is down, the last known good details of the customer
+are served from the snapshot cache, with their age set in stalenessSeconds. Only when there is no snapshot (or it
+is older than snapshot-cache.stale-if-error) null is returned and the section is left out.*/
 @Component
+@AllArgsConstructor
 public class LoansFallback implements LoansFeignClient{
+
+    private SnapshotCache<LoansDto> loansSnapshotCache;
+
     @Override
     public ResponseEntity<LoansDto> fetchLoanDetails(String correlationId, String mobileNumber) {
         //We can write our own logic here to send back the response when the feign client is not available
-        return null;
+        LoansDto loansDto = loansSnapshotCache.lastKnownGood(mobileNumber);
+        return null != loansDto ? ResponseEntity.ok(loansDto) : null;
+    }
+
+    @Override
+    public ResponseEntity<List<LoansDto>> fetchLoanDetailsBatch(String correlationId, List<String> mobileNumbers) {
+        List<LoansDto> loansDtos =
+            mobileNumbers.stream().map(loansSnapshotCache::lastKnownGood).filter(Objects::nonNull).toList();
+        return ResponseEntity.ok(loansDtos);
     }
 }
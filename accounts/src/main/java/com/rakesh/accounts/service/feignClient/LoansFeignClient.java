@@ -3,7 +3,10 @@ package com.rakesh.accounts.service.feignClient;
 import com.rakesh.accounts.dto.LoansDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
+import java.util.List;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
@@ -39,4 +42,11 @@ public interface LoansFeignClient {
   public ResponseEntity<LoansDto> fetchLoanDetails(
       @RequestHeader("eazybank-correlation-id") String correlationId,
       @RequestParam String mobileNumber);
+
+  /*Bulk variant of the above, one round trip fetches the details of all the given mobile numbers. Only the
+  mobile numbers that have details are present in the response.*/
+  @PostMapping(value = "/api/fetch/batch", consumes = "application/json")
+  public ResponseEntity<List<LoansDto>> fetchLoanDetailsBatch(
+      @RequestHeader("eazybank-correlation-id") String correlationId,
+      @RequestBody List<String> mobileNumbers);
 }
@@ -1,58 +1,305 @@
 package com.rakesh.accounts.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.rakesh.accounts.cache.CustomerCache;
 import com.rakesh.accounts.constants.AccountsConstants;
+import com.rakesh.accounts.datasource.ReadYourWrites;
+import com.rakesh.accounts.dto.AccountImportResultDto;
 import com.rakesh.accounts.dto.AccountsDto;
 import com.rakesh.accounts.dto.AccountsMsgDto;
+import com.rakesh.accounts.dto.CustomerAccountView;
 import com.rakesh.accounts.dto.CustomerDto;
+import com.rakesh.accounts.dto.CustomerPageDto;
 import com.rakesh.accounts.entity.Accounts;
 import com.rakesh.accounts.entity.Customer;
+import com.rakesh.accounts.entity.OutboxEvent;
 import com.rakesh.accounts.exception.CustomerAlreadyExistsException;
 import com.rakesh.accounts.exception.ResourceNotFoundException;
+import com.rakesh.accounts.exception.UniqueKeys;
+import com.rakesh.accounts.generator.NumberAllocator;
 import com.rakesh.accounts.mapper.AccountsMapper;
 import com.rakesh.accounts.mapper.CustomerMapper;
 import com.rakesh.accounts.repository.AccountsRepository;
 import com.rakesh.accounts.repository.CustomerRepository;
+import com.rakesh.accounts.repository.OutboxEventRepository;
 import com.rakesh.accounts.service.AccountServiceInterf;
-import java.util.Optional;
-import java.util.Random;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @AllArgsConstructor
 @Log4j2
 public class AccountServiceImpl implements AccountServiceInterf {
 
-  //  This is for RabbitMQ streams
-  private final StreamBridge streamBridge;
+  //  The messages for RabbitMQ/Kafka streams are written to the outbox and published by the OutboxRelay
+  private final OutboxEventRepository outboxEventRepository;
+  private final ObjectMapper objectMapper;
   private AccountsRepository accountRepository;
   private CustomerRepository customerRepository;
+  private CustomerCache customerCache;
+  private NumberAllocator numberAllocator;
+  private EntityManager entityManager;
+  private TransactionTemplate transactionTemplate;
+  private Validator validator;
+  private AuditorAware<String> auditAwareImpl;
 
   /**
    * @param customerDto - CustomerDto Object
    */
   @Override
+  @Transactional
   public void createAccount(CustomerDto customerDto) {
 
     // Here all the data from customerDto will be transferred to customer object
     Customer customer = CustomerMapper.mapToCustomer(customerDto, new Customer());
 
-    Optional<Customer> optionalCustomer =
-        customerRepository.findByMobileNumber(customerDto.getMobileNumber());
-    if (optionalCustomer.isPresent()) {
-      throw new CustomerAlreadyExistsException(
-          "Customer already registered with the given mobile number - "
-              + customerDto.getMobileNumber());
+    /*No findByMobileNumber check first, two requests could both pass it and create the same customer twice. The
+    unique key on mobile_number rejects the duplicate instead, the customer is flushed right away so we get the
+    violation here and not at commit.*/
+    Customer savedCustomer;
+    try {
+      savedCustomer = customerRepository.saveAndFlush(customer);
+    } catch (DataIntegrityViolationException exception) {
+      throw alreadyExistsOr(exception, customerDto.getMobileNumber());
     }
-    Customer savedCustomer = customerRepository.save(customer);
     Accounts savedAccount = accountRepository.save(createNewAccount(savedCustomer));
-    sendCommunication(savedAccount, savedCustomer);
+    enqueueCommunication(savedAccount, savedCustomer);
   }
 
+  /*The file is read one line at a time and the valid records are imported in chunks of IMPORT_CHUNK_SIZE, so only
+  one chunk is held in memory whatever the size of the upload. Each chunk is one transaction, the customer, account
+  and outbox rows get their ids without a trip to the DB (pooled-lo sequences and the NumberAllocator) and hence
+  hibernate sends them as JDBC batches at commit. The result of every record is written to the response as soon as
+  its chunk is done, invalid records are reported right away so the results are not strictly in line order.*/
   @Override
+  public void importAccounts(InputStream ndjson, OutputStream results) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+    ObjectReader customerReader = objectMapper.readerFor(CustomerDto.class);
+    List<ImportRecord> chunk = new ArrayList<>(AccountsConstants.IMPORT_CHUNK_SIZE);
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      CustomerDto customerDto;
+      try {
+        customerDto = customerReader.readValue(line);
+      } catch (JsonProcessingException exception) {
+        writeLine(
+            results,
+            importResult(
+                lineNumber, null, AccountsConstants.IMPORT_INVALID, exception.getOriginalMessage()));
+        continue;
+      }
+      Set<ConstraintViolation<CustomerDto>> violations = validator.validate(customerDto);
+      if (!violations.isEmpty()) {
+        String message =
+            violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+        writeLine(
+            results,
+            importResult(
+                lineNumber,
+                customerDto.getMobileNumber(),
+                AccountsConstants.IMPORT_INVALID,
+                message));
+        continue;
+      }
+      chunk.add(new ImportRecord(lineNumber, customerDto));
+      if (chunk.size() == AccountsConstants.IMPORT_CHUNK_SIZE) {
+        importChunk(chunk, results);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      importChunk(chunk, results);
+    }
+    results.flush();
+  }
+
+  private void importChunk(List<ImportRecord> chunk, OutputStream results) throws IOException {
+    // One query for the whole chunk instead of one findByMobileNumber per record
+    Set<String> existingMobileNumbers =
+        new HashSet<>(
+            customerRepository.findExistingMobileNumbers(
+                chunk.stream().map(record -> record.customerDto().getMobileNumber()).toList()));
+    Set<String> seenMobileNumbers = new HashSet<>();
+    List<ImportRecord> toCreate = new ArrayList<>(chunk.size());
+    for (ImportRecord record : chunk) {
+      String mobileNumber = record.customerDto().getMobileNumber();
+      if (existingMobileNumbers.contains(mobileNumber) || !seenMobileNumbers.add(mobileNumber)) {
+        writeLine(
+            results,
+            importResult(
+                record.line(),
+                mobileNumber,
+                AccountsConstants.IMPORT_DUPLICATE,
+                "Customer already registered with the given mobile number - " + mobileNumber));
+      } else {
+        toCreate.add(record);
+      }
+    }
+
+    List<Long> accountNumbers = null;
+    try {
+      accountNumbers =
+          transactionTemplate.execute(
+              status ->
+                  toCreate.stream()
+                      .map(record -> persistNewCustomer(record.customerDto()))
+                      .toList());
+    } catch (RuntimeException exception) {
+      /*Some record of the chunk could not be saved (eg:- the same mobile number was created meanwhile by another
+      request), the whole chunk is rolled back, so we retry the records one by one to find the culprit.*/
+      log.warn("Bulk import of {} records failed, retrying them one by one", toCreate.size(), exception);
+    }
+
+    for (int i = 0; i < toCreate.size(); i++) {
+      ImportRecord record = toCreate.get(i);
+      String mobileNumber = record.customerDto().getMobileNumber();
+      Long accountNumber;
+      if (accountNumbers != null) {
+        accountNumber = accountNumbers.get(i);
+      } else {
+        try {
+          accountNumber =
+              transactionTemplate.execute(status -> persistNewCustomer(record.customerDto()));
+        } catch (RuntimeException exception) {
+          boolean duplicate =
+              UniqueKeys.isViolated(exception, AccountsConstants.CUSTOMER_MOBILE_NUMBER_KEY);
+          writeLine(
+              results,
+              importResult(
+                  record.line(),
+                  mobileNumber,
+                  duplicate ? AccountsConstants.IMPORT_DUPLICATE : AccountsConstants.IMPORT_FAILED,
+                  duplicate
+                      ? "Customer already registered with the given mobile number - " + mobileNumber
+                      : exception.getMessage()));
+          continue;
+        }
+      }
+      writeLine(
+          results,
+          new AccountImportResultDto(
+              record.line(), mobileNumber, AccountsConstants.IMPORT_CREATED, accountNumber, null));
+    }
+    results.flush();
+  }
+
+  /*persist instead of save, Accounts has an assigned id so save() would merge it and run a select first. Nothing is
+  inserted here, the inserts are batched by hibernate when the transaction is flushed.*/
+  private Long persistNewCustomer(CustomerDto customerDto) {
+    Customer customer = CustomerMapper.mapToCustomer(customerDto, new Customer());
+    entityManager.persist(customer);
+    Accounts account = createNewAccount(customer);
+    entityManager.persist(account);
+    enqueueCommunication(account, customer);
+    return account.getAccountNumber();
+  }
+
+  private AccountImportResultDto importResult(
+      long line, String mobileNumber, String status, String message) {
+    return new AccountImportResultDto(line, mobileNumber, status, null, message);
+  }
+
+  // Writes one NDJSON line
+  private void writeLine(OutputStream output, Object value) throws IOException {
+    output.write(objectMapper.writeValueAsBytes(value));
+    output.write('\n');
+  }
+
+  private record ImportRecord(long line, CustomerDto customerDto) {}
+
+  /*The rows come from a streaming cursor and are written to the output as they are read, so the memory used is the
+  same for ten or for millions of customers. The transaction has to stay open until the cursor is fully read.*/
+  @Override
+  @Transactional(readOnly = true)
+  public void exportAccounts(OutputStream output) throws IOException {
+    try (Stream<CustomerAccountView> rows = customerRepository.streamAllWithAccounts()) {
+      Iterator<CustomerAccountView> iterator = rows.iterator();
+      while (iterator.hasNext()) {
+        writeLine(output, iterator.next());
+      }
+    }
+    output.flush();
+  }
+
+  /*One row more than the page size is read, if it is there we know another page exists without a count query.
+  The continuation token carries the last customer id of the page and the filters it was read with, see
+  ContinuationTokens.*/
+  @Override
+  @Transactional(readOnly = true)
+  public CustomerPageDto fetchCustomers(
+      LocalDateTime createdAfter, String accountType, int pageSize, String continuationToken) {
+    long afterCustomerId =
+        ContinuationTokens.decode(continuationToken, createdAfter, accountType);
+    List<CustomerAccountView> customers =
+        customerRepository.findPageAfter(
+            afterCustomerId, createdAfter, accountType, Limit.of(pageSize + 1));
+    if (customers.size() <= pageSize) {
+      return new CustomerPageDto(customers, null);
+    }
+    List<CustomerAccountView> page = customers.subList(0, pageSize);
+    return new CustomerPageDto(
+        List.copyOf(page),
+        ContinuationTokens.encode(
+            page.get(pageSize - 1).getCustomerId(), createdAfter, accountType));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
   public CustomerDto fetchAccount(String mobileNumber) {
+    /*What gets cached is read from the primary, a lagging replica would put an old row in the cache right after
+    the eviction of an update and keep it there till it expires.*/
+    return customerCache.get(
+        mobileNumber, number -> ReadYourWrites.readFromPrimary(() -> loadAccount(number)));
+  }
+
+  /*One join query that fills the view directly. The two step read below is only done when the view is not there,
+  to tell a missing customer from a customer without an account in the error.*/
+  private CustomerDto loadAccount(String mobileNumber) {
+    return customerRepository
+        .findViewByMobileNumber(mobileNumber)
+        .map(
+            view -> {
+              CustomerDto customerDto = CustomerMapper.mapToCustomerDto(view, new CustomerDto());
+              customerDto.setAccountsDto(AccountsMapper.mapToAccountsDto(view, new AccountsDto()));
+              return customerDto;
+            })
+        .orElseGet(() -> loadAccountInTwoSteps(mobileNumber));
+  }
+
+  private CustomerDto loadAccountInTwoSteps(String mobileNumber) {
     Customer customer =
         customerRepository
             .findByMobileNumber(mobileNumber)
@@ -78,6 +325,7 @@ public class AccountServiceImpl implements AccountServiceInterf {
    * @return boolean indicating if the update of Account details is successful or not
    */
   @Override
+  @Transactional
   public boolean updateAccount(CustomerDto customerDto) {
     boolean isUpdated = false;
     AccountsDto accountsDto = customerDto.getAccountsDto();
@@ -102,14 +350,24 @@ public class AccountServiceImpl implements AccountServiceInterf {
                       new ResourceNotFoundException(
                           "Customer", "CustomerID", customerId.toString()));
 
+      String previousMobileNumber = customer.getMobileNumber();
       CustomerMapper.mapToCustomer(customerDto, customer);
-      customerRepository.save(customer);
+      try {
+        customerRepository.saveAndFlush(customer);
+      } catch (DataIntegrityViolationException exception) {
+        throw alreadyExistsOr(exception, customer.getMobileNumber());
+      }
+      customerCache.evict(previousMobileNumber);
+      if (!previousMobileNumber.equals(customer.getMobileNumber())) {
+        customerCache.evict(customer.getMobileNumber());
+      }
       isUpdated = true;
     }
     return isUpdated;
   }
 
   @Override
+  @Transactional
   public boolean deleteAccount(String mobileNumber) {
     Customer customer =
         customerRepository
@@ -119,9 +377,18 @@ public class AccountServiceImpl implements AccountServiceInterf {
 
     accountRepository.deleteByCustomerId(customer.getCustomerId());
     customerRepository.deleteById(customer.getCustomerId());
+    customerCache.evict(mobileNumber);
     return true;
   }
 
+  private RuntimeException alreadyExistsOr(RuntimeException exception, String mobileNumber) {
+    if (UniqueKeys.isViolated(exception, AccountsConstants.CUSTOMER_MOBILE_NUMBER_KEY)) {
+      return new CustomerAlreadyExistsException(
+          "Customer already registered with the given mobile number - " + mobileNumber);
+    }
+    return exception;
+  }
+
   /**
    * @param customer - Customer Object
    * @return the new account details
@@ -129,25 +396,31 @@ public class AccountServiceImpl implements AccountServiceInterf {
   private Accounts createNewAccount(Customer customer) {
     Accounts newAccount = new Accounts();
     newAccount.setCustomerId(customer.getCustomerId());
-    long randomAccNumber = 1000000000L + new Random().nextInt(900000000);
-
-    newAccount.setAccountNumber(randomAccNumber);
+    newAccount.setAccountNumber(numberAllocator.next(AccountsConstants.ACCOUNT_NUMBER_SEQUENCE));
     newAccount.setAccountType(AccountsConstants.SAVINGS);
     newAccount.setBranchAddress(AccountsConstants.ADDRESS);
     return newAccount;
   }
 
-  // This method is created to send message to RabbitMQ
-  private void sendCommunication(Accounts account, Customer customer) {
+  /*The communication message is not sent to the broker from here, it is written to the outbox table in the same
+  transaction as the customer and the account, and the OutboxRelay publishes it in the background. So creating an
+  account does not wait for the broker, and a broker outage does not lose the message.*/
+  private void enqueueCommunication(Accounts account, Customer customer) {
     var accountsMsgDto =
         new AccountsMsgDto(
             account.getAccountNumber(),
             customer.getName(),
             customer.getEmail(),
             customer.getMobileNumber());
-    log.info("Sending Communication request for the details: {}", accountsMsgDto);
-    var result = streamBridge.send("sendCommunication-out-0", accountsMsgDto);
-    log.info("Is the Communication request successfully triggered ? : {}", result);
+    log.info("Queueing Communication request for the details: {}", accountsMsgDto);
+    OutboxEvent outboxEvent = new OutboxEvent();
+    outboxEvent.setBindingName("sendCommunication-out-0");
+    try {
+      outboxEvent.setPayload(objectMapper.writeValueAsString(accountsMsgDto));
+    } catch (JsonProcessingException exception) {
+      throw new IllegalStateException("Unable to serialize " + accountsMsgDto, exception);
+    }
+    outboxEventRepository.save(outboxEvent);
   }
 
   /**
@@ -156,6 +429,7 @@ public class AccountServiceImpl implements AccountServiceInterf {
    *     method is created to receive message from RabbitMQ and update the DB table
    */
   @Override
+  @Transactional
   public boolean updateCommunicationStatus(Long accountNumber) {
     boolean isUpdated = false;
     if (accountNumber != null) {
@@ -168,8 +442,33 @@ public class AccountServiceImpl implements AccountServiceInterf {
                           "Account", "AccountNumber", accountNumber.toString()));
       accounts.setCommunicationSw(true);
       accountRepository.save(accounts);
+      customerRepository
+          .findById(accounts.getCustomerId())
+          .ifPresent(customer -> customerCache.evict(customer.getMobileNumber()));
       isUpdated = true;
     }
     return isUpdated;
   }
+
+  /**
+   * @param accountNumbers - List of account numbers received in one batch
+   * @return number of accounts whose communication status got updated
+   */
+  @Override
+  @Transactional
+  public int updateCommunicationStatus(List<Long> accountNumbers) {
+    if (accountNumbers == null || accountNumbers.isEmpty()) {
+      return 0;
+    }
+    List<Long> distinctAccountNumbers = accountNumbers.stream().distinct().toList();
+    int updated =
+        accountRepository.updateCommunicationSw(
+            distinctAccountNumbers,
+            LocalDateTime.now(),
+            auditAwareImpl.getCurrentAuditor().orElse(null));
+    customerRepository
+        .findMobileNumbersByAccountNumbers(distinctAccountNumbers)
+        .forEach(customerCache::evict);
+    return updated;
+  }
 }
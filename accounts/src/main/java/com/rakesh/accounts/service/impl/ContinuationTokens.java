@@ -0,0 +1,54 @@
+package com.rakesh.accounts.service.impl;
+
+import com.rakesh.accounts.exception.InvalidContinuationTokenException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/*Continuation tokens of the customer pages. A token holds the last customer id of a page and a hash of the filters
+the page was read with, so a token is only accepted together with the same filters. With other filters the keyset
+would silently skip or repeat customers, hence such a token is rejected instead. The token is encoded so that
+clients do not build it themselves.*/
+final class ContinuationTokens {
+
+  private static final String PREFIX = "c:";
+
+  private ContinuationTokens() {}
+
+  static String encode(long lastCustomerId, LocalDateTime createdAfter, String accountType) {
+    String token = PREFIX + lastCustomerId + ":" + filtersHash(createdAfter, accountType);
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the last customer id of the previous page, 0 for the first page
+   */
+  static long decode(String continuationToken, LocalDateTime createdAfter, String accountType) {
+    if (continuationToken == null || continuationToken.isBlank()) {
+      return 0L;
+    }
+    try {
+      String decoded =
+          new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+      String[] parts = decoded.split(":", -1);
+      if (parts.length != 3
+          || !decoded.startsWith(PREFIX)
+          || !parts[2].equals(filtersHash(createdAfter, accountType))) {
+        throw new InvalidContinuationTokenException(continuationToken);
+      }
+      return Long.parseLong(parts[1]);
+    } catch (IllegalArgumentException exception) {
+      // NumberFormatException is an IllegalArgumentException too
+      throw new InvalidContinuationTokenException(continuationToken);
+    }
+  }
+
+  private static String filtersHash(LocalDateTime createdAfter, String accountType) {
+    CRC32 crc = new CRC32();
+    crc.update((createdAfter + "|" + accountType).getBytes(StandardCharsets.UTF_8));
+    return Long.toHexString(crc.getValue());
+  }
+}
@@ -0,0 +1,94 @@
+package com.rakesh.accounts.service.impl;
+
+import com.rakesh.accounts.dto.AccountsDto;
+import com.rakesh.accounts.dto.CustomerAccountView;
+import com.rakesh.accounts.dto.CustomerDetailsDto;
+import com.rakesh.accounts.entity.Accounts;
+import com.rakesh.accounts.entity.Customer;
+import com.rakesh.accounts.exception.ResourceNotFoundException;
+import com.rakesh.accounts.mapper.AccountsMapper;
+import com.rakesh.accounts.mapper.CustomerMapper;
+import com.rakesh.accounts.repository.AccountsRepository;
+import com.rakesh.accounts.repository.CustomerRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*The DB reads of fetchCustomerDetails. They are kept apart from CustomerServiceImpl so that the read only
+transaction (and its replica connection) only spans these queries and is not held while the loans and cards calls
+are waited for.*/
+@Component
+@AllArgsConstructor
+public class CustomerDetailsReader {
+
+  private AccountsRepository accountsRepository;
+  private CustomerRepository customerRepository;
+
+  /*One join query that fills the view directly. The two step read below is only done when the view is not there,
+  to tell a missing customer from a customer without an account in the error.*/
+  @Transactional(readOnly = true)
+  public CustomerDetailsDto fetchCustomerAndAccount(String mobileNumber) {
+    return customerRepository
+        .findViewByMobileNumber(mobileNumber)
+        .map(
+            view -> {
+              CustomerDetailsDto customerDetailsDto =
+                  CustomerMapper.mapToCustomerDetailsDto(view, new CustomerDetailsDto());
+              customerDetailsDto.setAccountsDto(
+                  AccountsMapper.mapToAccountsDto(view, new AccountsDto()));
+              return customerDetailsDto;
+            })
+        .orElseGet(() -> fetchCustomerAndAccountInTwoSteps(mobileNumber));
+  }
+
+  CustomerDetailsDto fetchCustomerAndAccountInTwoSteps(String mobileNumber) {
+    Customer customer =
+        customerRepository
+            .findByMobileNumber(mobileNumber)
+            .orElseThrow(
+                () -> new ResourceNotFoundException("Customer", "mobilenumber", mobileNumber));
+
+    Accounts accounts =
+        accountsRepository
+            .findByCustomerId(customer.getCustomerId())
+            .orElseThrow(
+                () ->
+                    new ResourceNotFoundException(
+                        "Account", "customerId", customer.getCustomerId().toString()));
+
+    CustomerDetailsDto customerDetailsDto =
+        CustomerMapper.mapToCustomerDetailsDto(customer, new CustomerDetailsDto());
+    customerDetailsDto.setAccountsDto(AccountsMapper.mapToAccountsDto(accounts, new AccountsDto()));
+    return customerDetailsDto;
+  }
+
+  @Transactional(readOnly = true)
+  public List<CustomerDetailsDto> fetchCustomersAndAccounts(List<String> mobileNumbers) {
+    // One join query for the customers and their accounts of the whole batch
+    Map<String, CustomerAccountView> viewsByMobileNumber =
+        customerRepository.findViewsByMobileNumbers(mobileNumbers).stream()
+            .collect(
+                Collectors.toMap(
+                    CustomerAccountView::getMobileNumber,
+                    Function.identity(),
+                    (first, second) -> first));
+
+    // Mobile numbers that are not registered, or that have no account, are left out of the response
+    List<CustomerDetailsDto> customerDetailsDtos = new ArrayList<>();
+    for (String mobileNumber : mobileNumbers) {
+      CustomerAccountView view = viewsByMobileNumber.get(mobileNumber);
+      if (view != null) {
+        CustomerDetailsDto customerDetailsDto =
+            CustomerMapper.mapToCustomerDetailsDto(view, new CustomerDetailsDto());
+        customerDetailsDto.setAccountsDto(AccountsMapper.mapToAccountsDto(view, new AccountsDto()));
+        customerDetailsDtos.add(customerDetailsDto);
+      }
+    }
+    return customerDetailsDtos;
+  }
+}
@@ -1,31 +1,45 @@
 package com.rakesh.accounts.service.impl;
 
-import com.rakesh.accounts.dto.AccountsDto;
+import com.rakesh.accounts.cache.SingleFlight;
+import com.rakesh.accounts.cache.SnapshotCache;
+import com.rakesh.accounts.config.CustomerDetailsProperties;
+import com.rakesh.accounts.constants.AccountsConstants;
 import com.rakesh.accounts.dto.CardsDto;
 import com.rakesh.accounts.dto.CustomerDetailsDto;
 import com.rakesh.accounts.dto.LoansDto;
-import com.rakesh.accounts.entity.Accounts;
-import com.rakesh.accounts.entity.Customer;
-import com.rakesh.accounts.exception.ResourceNotFoundException;
-import com.rakesh.accounts.mapper.AccountsMapper;
 import com.rakesh.accounts.mapper.CustomerMapper;
-import com.rakesh.accounts.repository.AccountsRepository;
-import com.rakesh.accounts.repository.CustomerRepository;
 import com.rakesh.accounts.service.CustomerServiceInterface;
 import com.rakesh.accounts.service.feignClient.CardsFeignClient;
 import com.rakesh.accounts.service.feignClient.LoansFeignClient;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
+@Log4j2
 public class CustomerServiceImpl implements CustomerServiceInterface {
 
   private CardsFeignClient cardsFeignClient;
-  private AccountsRepository accountsRepository;
-  private CustomerRepository customerRepository;
+  private CustomerDetailsReader customerDetailsReader;
   private LoansFeignClient loansFeignClient;
+  private ThreadPoolTaskExecutor customerDetailsExecutor;
+  private CustomerDetailsProperties customerDetailsProperties;
+  private SnapshotCache<CardsDto> cardsSnapshotCache;
+  private SnapshotCache<LoansDto> loansSnapshotCache;
+  private SingleFlight<String, CustomerDetailsDto> customerDetailsSingleFlight;
 
   /**
    * @param mobileNumber - Input Mobile Number
@@ -35,35 +49,217 @@ public class CustomerServiceImpl implements CustomerServiceInterface {
    */
   @Override
   public CustomerDetailsDto fetchCustomerDetails(String mobileNumber, String correlationId) {
-    Customer customer =
-        customerRepository
-            .findByMobileNumber(mobileNumber)
-            .orElseThrow(
-                () -> new ResourceNotFoundException("Customer", "mobilenumber", mobileNumber));
-
-    Accounts accounts =
-        accountsRepository
-            .findByCustomerId(customer.getCustomerId())
-            .orElseThrow(
-                () ->
-                    new ResourceNotFoundException(
-                        "Account", "customerId", customer.getCustomerId().toString()));
-
-    CustomerDetailsDto customerDetailsDto =
-        CustomerMapper.mapToCustomerDetailsDto(customer, new CustomerDetailsDto());
-    customerDetailsDto.setAccountsDto(AccountsMapper.mapToAccountsDto(accounts, new AccountsDto()));
-
-    ResponseEntity<LoansDto> loansDtoResponseEntity =
-        loansFeignClient.fetchLoanDetails(correlationId, mobileNumber);
-    if (null != loansDtoResponseEntity) {
-      customerDetailsDto.setLoansDto(loansDtoResponseEntity.getBody());
+    // Identical requests running at the same time share the one below, see SingleFlight
+    return customerDetailsSingleFlight.execute(
+        mobileNumber,
+        () -> loadCustomerDetails(mobileNumber, correlationId),
+        leaderDetails -> shareCustomerDetails(leaderDetails, correlationId));
+  }
+
+  /*A coalesced request gets its own copy of the leader's answer, and its own correlation id is logged with it, the
+  loans and cards calls behind the answer were traced under the correlation id of the leader.*/
+  private CustomerDetailsDto shareCustomerDetails(
+      CustomerDetailsDto leaderDetails, String correlationId) {
+    log.debug("Customer details for correlation id {} served by a coalesced call", correlationId);
+    return CustomerMapper.copyCustomerDetailsDto(leaderDetails);
+  }
+
+  private CustomerDetailsDto loadCustomerDetails(String mobileNumber, String correlationId) {
+    /*The loans and cards calls do not depend on the customer/account read, hence we fork them first so that both
+    the network hops run in parallel with each other and with the local DB read, and the latency of this API
+    becomes the slowest leg instead of the sum of all the legs.*/
+    long forkedAt = System.nanoTime();
+    CompletableFuture<LoansDto> loansFuture =
+        forkLeg(
+            AccountsConstants.LOANS_SECTION,
+            () -> fetchLoans(correlationId, mobileNumber),
+            () -> loansSnapshotCache.lastKnownGood(mobileNumber));
+    CompletableFuture<CardsDto> cardsFuture =
+        forkLeg(
+            AccountsConstants.CARDS_SECTION,
+            () -> fetchCards(correlationId, mobileNumber),
+            () -> cardsSnapshotCache.lastKnownGood(mobileNumber));
+
+    CustomerDetailsDto customerDetailsDto;
+    try {
+      customerDetailsDto = customerDetailsReader.fetchCustomerAndAccount(mobileNumber);
+    } catch (RuntimeException exception) {
+      loansFuture.cancel(false);
+      cardsFuture.cancel(false);
+      throw exception;
     }
 
-    ResponseEntity<CardsDto> cardsDtoResponseEntity =
-        cardsFeignClient.fetchCardDetails(correlationId, mobileNumber);
-    if (null != cardsDtoResponseEntity) {
-      customerDetailsDto.setCardsDto(cardsDtoResponseEntity.getBody());
+    if (awaitLeg(
+        AccountsConstants.LOANS_SECTION,
+        loansFuture,
+        forkedAt + customerDetailsProperties.getLoansTimeout().toNanos(),
+        correlationId)) {
+      customerDetailsDto.setLoansDto(loansFuture.join());
+    } else {
+      customerDetailsDto.markPartial(AccountsConstants.LOANS_SECTION);
+    }
+    if (awaitLeg(
+        AccountsConstants.CARDS_SECTION,
+        cardsFuture,
+        forkedAt + customerDetailsProperties.getCardsTimeout().toNanos(),
+        correlationId)) {
+      customerDetailsDto.setCardsDto(cardsFuture.join());
+    } else {
+      customerDetailsDto.markPartial(AccountsConstants.CARDS_SECTION);
     }
     return customerDetailsDto;
   }
+
+  /**
+   * @param mobileNumbers - Input Mobile Numbers
+   * @param correlationId - This id is generated from the gateway server
+   * @return Customer Details of all the given mobileNumbers that are registered, in the input order
+   */
+  @Override
+  public List<CustomerDetailsDto> fetchCustomerDetails(
+      List<String> mobileNumbers, String correlationId) {
+    /*Same fan-out as the single customer fetch, but every leg is a bulk call. So the whole batch costs one
+    query for the customers with their accounts and one round trip each to loans and cards, no matter how
+    many mobile numbers are asked for.*/
+    List<String> distinctMobileNumbers = mobileNumbers.stream().distinct().toList();
+    long forkedAt = System.nanoTime();
+    CompletableFuture<Map<String, LoansDto>> loansFuture =
+        forkLeg(
+            AccountsConstants.LOANS_SECTION,
+            () -> fetchLoans(correlationId, distinctMobileNumbers),
+            () -> null);
+    CompletableFuture<Map<String, CardsDto>> cardsFuture =
+        forkLeg(
+            AccountsConstants.CARDS_SECTION,
+            () -> fetchCards(correlationId, distinctMobileNumbers),
+            () -> null);
+
+    List<CustomerDetailsDto> customerDetailsDtos;
+    try {
+      customerDetailsDtos = customerDetailsReader.fetchCustomersAndAccounts(distinctMobileNumbers);
+    } catch (RuntimeException exception) {
+      loansFuture.cancel(false);
+      cardsFuture.cancel(false);
+      throw exception;
+    }
+
+    boolean loansFetched =
+        awaitLeg(
+            AccountsConstants.LOANS_SECTION,
+            loansFuture,
+            forkedAt + customerDetailsProperties.getLoansTimeout().toNanos(),
+            correlationId);
+    boolean cardsFetched =
+        awaitLeg(
+            AccountsConstants.CARDS_SECTION,
+            cardsFuture,
+            forkedAt + customerDetailsProperties.getCardsTimeout().toNanos(),
+            correlationId);
+    Map<String, LoansDto> loansByMobileNumber = loansFetched ? loansFuture.join() : Map.of();
+    Map<String, CardsDto> cardsByMobileNumber = cardsFetched ? cardsFuture.join() : Map.of();
+
+    for (CustomerDetailsDto customerDetailsDto : customerDetailsDtos) {
+      if (loansFetched) {
+        customerDetailsDto.setLoansDto(loansByMobileNumber.get(customerDetailsDto.getMobileNumber()));
+      } else {
+        customerDetailsDto.markPartial(AccountsConstants.LOANS_SECTION);
+      }
+      if (cardsFetched) {
+        customerDetailsDto.setCardsDto(cardsByMobileNumber.get(customerDetailsDto.getMobileNumber()));
+      } else {
+        customerDetailsDto.markPartial(AccountsConstants.CARDS_SECTION);
+      }
+    }
+    return customerDetailsDtos;
+  }
+
+  /*A recent snapshot is served without calling loans/cards at all, an older one inside the stale window is served
+  while it gets refreshed in the background, see SnapshotCache. Live answers refill the snapshot.*/
+  private LoansDto fetchLoans(String correlationId, String mobileNumber) {
+    return loansSnapshotCache.get(
+        mobileNumber,
+        () -> {
+          ResponseEntity<LoansDto> loansDtoResponseEntity =
+              loansFeignClient.fetchLoanDetails(correlationId, mobileNumber);
+          return null != loansDtoResponseEntity ? loansDtoResponseEntity.getBody() : null;
+        });
+  }
+
+  private CardsDto fetchCards(String correlationId, String mobileNumber) {
+    return cardsSnapshotCache.get(
+        mobileNumber,
+        () -> {
+          ResponseEntity<CardsDto> cardsDtoResponseEntity =
+              cardsFeignClient.fetchCardDetails(correlationId, mobileNumber);
+          return null != cardsDtoResponseEntity ? cardsDtoResponseEntity.getBody() : null;
+        });
+  }
+
+  private Map<String, LoansDto> fetchLoans(String correlationId, List<String> mobileNumbers) {
+    ResponseEntity<List<LoansDto>> loansDtoResponseEntity =
+        loansFeignClient.fetchLoanDetailsBatch(correlationId, mobileNumbers);
+    if (null == loansDtoResponseEntity || null == loansDtoResponseEntity.getBody()) {
+      return Map.of();
+    }
+    loansDtoResponseEntity
+        .getBody()
+        .forEach(loansDto -> loansSnapshotCache.put(loansDto.getMobileNumber(), loansDto));
+    return loansDtoResponseEntity.getBody().stream()
+        .collect(
+            Collectors.toMap(LoansDto::getMobileNumber, Function.identity(), (first, second) -> first));
+  }
+
+  private Map<String, CardsDto> fetchCards(String correlationId, List<String> mobileNumbers) {
+    ResponseEntity<List<CardsDto>> cardsDtoResponseEntity =
+        cardsFeignClient.fetchCardDetailsBatch(correlationId, mobileNumbers);
+    if (null == cardsDtoResponseEntity || null == cardsDtoResponseEntity.getBody()) {
+      return Map.of();
+    }
+    cardsDtoResponseEntity
+        .getBody()
+        .forEach(cardsDto -> cardsSnapshotCache.put(cardsDto.getMobileNumber(), cardsDto));
+    return cardsDtoResponseEntity.getBody().stream()
+        .collect(
+            Collectors.toMap(CardsDto::getMobileNumber, Function.identity(), (first, second) -> first));
+  }
+
+  /*Runs a leg on the customerDetailsExecutor. When the pool is saturated the leg is not run at all, the fallback
+  (the last known good snapshot, if there is one) is answered instead, else the leg fails and its section is
+  reported as partial.*/
+  private <T> CompletableFuture<T> forkLeg(String section, Supplier<T> leg, Supplier<T> fallback) {
+    try {
+      return CompletableFuture.supplyAsync(leg, customerDetailsExecutor);
+    } catch (RejectedExecutionException exception) {
+      log.warn("{} call rejected, the customer details pool is saturated", section);
+      T fallbackValue = fallback.get();
+      return fallbackValue != null
+          ? CompletableFuture.completedFuture(fallbackValue)
+          : CompletableFuture.failedFuture(exception);
+    }
+  }
+
+  /*Waits for a forked leg till its own deadline and tells whether the leg completed. A leg which does not answer
+  in time, or which fails, does not fail the whole request, the caller reports that section back as partial.
+  Cancelling the future does not interrupt the feign call, the thread of a late leg is given back when the call hits
+  the read timeout of the feign client, which is set to the leg deadline (spring.cloud.openfeign.client.config).*/
+  private boolean awaitLeg(
+      String section, CompletableFuture<?> legFuture, long deadlineNanos, String correlationId) {
+    try {
+      legFuture.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+      return true;
+    } catch (TimeoutException exception) {
+      legFuture.cancel(false);
+      log.warn("{} call timed out for correlation id {}", section, correlationId);
+    } catch (ExecutionException exception) {
+      log.warn(
+          "{} call failed for correlation id {} : {}",
+          section,
+          correlationId,
+          exception.getCause().getMessage());
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      legFuture.cancel(false);
+    }
+    return false;
+  }
 }
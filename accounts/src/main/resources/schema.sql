@@ -6,7 +6,8 @@ CREATE TABLE IF NOT EXISTS `customer` (
   `created_at` date NOT NULL,
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
-    `updated_by` varchar(20) DEFAULT NULL
+    `updated_by` varchar(20) DEFAULT NULL,
+  UNIQUE KEY `uk_customer_mobile_number` (`mobile_number`)
 );
 
 CREATE TABLE IF NOT EXISTS `accounts` (
@@ -18,5 +19,62 @@ CREATE TABLE IF NOT EXISTS `accounts` (
   `created_at` date NOT NULL,
    `created_by` varchar(20) NOT NULL,
    `updated_at` date DEFAULT NULL,
+    `updated_by` varchar(20) DEFAULT NULL,
+  KEY `idx_accounts_customer_id` (`customer_id`)
+);
+
+/*The tables created by an older version of this script do not have the keys above, CREATE TABLE IF NOT EXISTS
+does not touch them and MySQL has no ADD INDEX IF NOT EXISTS, so the missing keys are added here. This fails on
+start up if the table already holds duplicates, they have to be cleaned up by hand first.*/
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `customer` ADD UNIQUE KEY `uk_customer_mobile_number` (`mobile_number`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'customer' AND index_name = 'uk_customer_mobile_number');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `accounts` ADD KEY `idx_accounts_customer_id` (`customer_id`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'accounts' AND index_name = 'idx_accounts_customer_id');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+CREATE TABLE IF NOT EXISTS `outbox_event` (
+  `event_id` bigint AUTO_INCREMENT  PRIMARY KEY,
+  `binding_name` varchar(100) NOT NULL,
+  `payload` text NOT NULL,
+  `created_at` date NOT NULL,
+  `created_by` varchar(20) NOT NULL,
+  `updated_at` date DEFAULT NULL,
     `updated_by` varchar(20) DEFAULT NULL
-);
\ No newline at end of file
+);
+
+/*Tables behind the pooled-lo sequences of Customer and OutboxEvent (MySQL has no sequences, hibernate emulates
+them with a one row table). They start after the biggest id already present.
+The aggregate sits in a derived table, so the WHERE filters its single row and a restart inserts nothing.*/
+CREATE TABLE IF NOT EXISTS `customer_seq` (
+  `next_val` bigint
+);
+
+INSERT INTO `customer_seq` (`next_val`)
+SELECT `next_val` FROM (SELECT COALESCE(MAX(`customer_id`), 0) + 1 AS `next_val` FROM `customer`) AS `m`
+WHERE NOT EXISTS (SELECT 1 FROM `customer_seq`);
+
+CREATE TABLE IF NOT EXISTS `outbox_event_seq` (
+  `next_val` bigint
+);
+
+INSERT INTO `outbox_event_seq` (`next_val`)
+SELECT `next_val` FROM (SELECT COALESCE(MAX(`event_id`), 0) + 1 AS `next_val` FROM `outbox_event`) AS `m`
+WHERE NOT EXISTS (SELECT 1 FROM `outbox_event_seq`);
+
+/*Blocks of account numbers are leased from this table by the NumberAllocator. The sequence starts after
+the biggest number already present, so it never hands out a number that was generated before it existed.*/
+CREATE TABLE IF NOT EXISTS `number_sequence` (
+  `sequence_name` varchar(50) PRIMARY KEY,
+  `next_value` bigint NOT NULL
+);
+
+INSERT IGNORE INTO `number_sequence` (`sequence_name`, `next_value`)
+SELECT 'account_number', COALESCE(MAX(`account_number`) + 1, 1000000000) FROM `accounts`;
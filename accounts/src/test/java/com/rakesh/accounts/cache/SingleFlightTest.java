@@ -0,0 +1,159 @@
+package com.rakesh.accounts.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void followersShareTheLeadersCallThroughTheirOwnShareFunction() throws Exception {
+    SingleFlight<String, StringBuilder> singleFlight = singleFlight(Duration.ofSeconds(5));
+    CountDownLatch leaderRunning = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+
+    CompletableFuture<StringBuilder> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      leaderRunning.countDown();
+                      await(releaseLeader);
+                      calls.incrementAndGet();
+                      return new StringBuilder("answer");
+                    },
+                    UnaryOperator.identity()),
+            executor);
+    assertThat(leaderRunning.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<StringBuilder> follower =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> new StringBuilder("own call"),
+                    shared -> new StringBuilder(shared).append(" for follower")),
+            executor);
+    awaitCollapsed(1);
+    releaseLeader.countDown();
+
+    assertThat(leader.get(5, TimeUnit.SECONDS)).hasToString("answer");
+    assertThat(follower.get(5, TimeUnit.SECONDS)).hasToString("answer for follower");
+    assertThat(follower.get()).isNotSameAs(leader.get());
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void aFollowerRunsTheCallItselfAfterMaxWait() throws Exception {
+    SingleFlight<String, String> singleFlight = singleFlight(Duration.ofMillis(50));
+    CountDownLatch leaderRunning = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      leaderRunning.countDown();
+                      await(releaseLeader);
+                      return "leader";
+                    },
+                    UnaryOperator.identity()),
+            executor);
+    assertThat(leaderRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+    String follower = singleFlight.execute("key", () -> "follower", shared -> "shared");
+    releaseLeader.countDown();
+
+    assertThat(follower).isEqualTo("follower");
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("leader");
+    assertThat(count("wait_timeout")).isEqualTo(1.0);
+  }
+
+  @Test
+  void followersGetTheLeadersException() throws Exception {
+    SingleFlight<String, String> singleFlight = singleFlight(Duration.ofSeconds(5));
+    CountDownLatch leaderRunning = new CountDownLatch(1);
+    CountDownLatch releaseLeader = new CountDownLatch(1);
+    CompletableFuture<String> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "key",
+                    () -> {
+                      leaderRunning.countDown();
+                      await(releaseLeader);
+                      throw new IllegalArgumentException("not found");
+                    },
+                    UnaryOperator.identity()),
+            executor);
+    assertThat(leaderRunning.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<String> follower =
+        CompletableFuture.supplyAsync(
+            () -> singleFlight.execute("key", () -> "own call", UnaryOperator.identity()),
+            executor);
+    awaitCollapsed(1);
+    releaseLeader.countDown();
+
+    assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void theKeyIsForgottenOnceTheLeaderFinishes() {
+    SingleFlight<String, Integer> singleFlight = singleFlight(Duration.ofSeconds(5));
+
+    singleFlight.execute("key", calls::incrementAndGet, UnaryOperator.identity());
+    singleFlight.execute("key", calls::incrementAndGet, UnaryOperator.identity());
+
+    assertThat(calls).hasValue(2);
+    assertThat(count("leader")).isEqualTo(2.0);
+    assertThat(count("collapsed")).isZero();
+  }
+
+  private <V> SingleFlight<String, V> singleFlight(Duration maxWait) {
+    return new SingleFlight<>("test", maxWait, meterRegistry);
+  }
+
+  private double count(String outcome) {
+    return meterRegistry.get("single.flight.calls").tag("outcome", outcome).counter().count();
+  }
+
+  private void awaitCollapsed(int followers) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (count("collapsed") < followers && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(count("collapsed")).isEqualTo(followers);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
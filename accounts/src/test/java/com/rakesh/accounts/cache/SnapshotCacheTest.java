@@ -0,0 +1,119 @@
+package com.rakesh.accounts.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SnapshotCacheTest {
+
+  private record Details(String value, Long stalenessSeconds) {}
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void servesAFreshSnapshotWithoutStalenessMarker() {
+    SnapshotCache<Details> cache = cache(Duration.ofHours(1), Duration.ZERO, Runnable::run);
+    cache.put("9999999999", live("v1"));
+
+    Details served = cache.get("9999999999", () -> load("v2"));
+
+    assertThat(served).isEqualTo(live("v1"));
+    assertThat(loads).hasValue(0);
+    assertThat(staleServed()).isZero();
+  }
+
+  @Test
+  void servesAStaleSnapshotAndRefreshesItInTheBackground() throws InterruptedException {
+    List<Runnable> refreshes = new ArrayList<>();
+    SnapshotCache<Details> cache = cache(Duration.ZERO, Duration.ofHours(1), refreshes::add);
+    cache.put("9999999999", live("v1"));
+    Thread.sleep(5);
+
+    Details served = cache.get("9999999999", () -> load("v2"));
+    cache.get("9999999999", () -> load("v3"));
+
+    assertThat(served.value()).isEqualTo("v1");
+    assertThat(served.stalenessSeconds()).isNotNull();
+    assertThat(staleServed()).isEqualTo(2.0);
+    // The second request found a refresh in flight and did not start another one
+    assertThat(refreshes).hasSize(1);
+    refreshes.get(0).run();
+    assertThat(cache.get("9999999999", () -> load("v4")).value()).isEqualTo("v2");
+  }
+
+  @Test
+  void loadsWhenTheSnapshotIsPastTheRevalidateWindow() throws InterruptedException {
+    SnapshotCache<Details> cache = cache(Duration.ZERO, Duration.ZERO, Runnable::run);
+    cache.put("9999999999", live("v1"));
+    Thread.sleep(5);
+
+    assertThat(cache.get("9999999999", () -> load("v2"))).isEqualTo(live("v2"));
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void skipsTheRefreshWhenTheExecutorIsSaturated() throws InterruptedException {
+    SnapshotCache<Details> cache =
+        cache(
+            Duration.ZERO,
+            Duration.ofHours(1),
+            runnable -> {
+              throw new RejectedExecutionException("saturated");
+            });
+    cache.put("9999999999", live("v1"));
+    Thread.sleep(5);
+
+    assertThat(cache.get("9999999999", () -> load("v2")).value()).isEqualTo("v1");
+    assertThat(cache.get("9999999999", () -> load("v2")).value()).isEqualTo("v1");
+    assertThat(loads).hasValue(0);
+  }
+
+  @Test
+  void lastKnownGoodIsMarkedAndNeverStoredBack() {
+    SnapshotCache<Details> cache = cache(Duration.ofHours(1), Duration.ZERO, Runnable::run);
+    assertThat(cache.lastKnownGood("9999999999")).isNull();
+
+    cache.put("9999999999", new Details("stale", 10L));
+    assertThat(cache.lastKnownGood("9999999999")).isNull();
+
+    cache.put("9999999999", live("v1"));
+    Details lastKnownGood = cache.lastKnownGood("9999999999");
+    assertThat(lastKnownGood.value()).isEqualTo("v1");
+    assertThat(lastKnownGood.stalenessSeconds()).isNotNull();
+  }
+
+  private SnapshotCache<Details> cache(
+      Duration freshFor, Duration staleWhileRevalidate, Executor refreshExecutor) {
+    SnapshotCacheProperties properties = new SnapshotCacheProperties();
+    properties.setFreshFor(freshFor);
+    properties.setStaleWhileRevalidate(staleWhileRevalidate);
+    return new SnapshotCache<>(
+        "test",
+        properties,
+        refreshExecutor,
+        (details, stalenessSeconds) -> new Details(details.value(), stalenessSeconds),
+        details -> details.stalenessSeconds() == null,
+        meterRegistry);
+  }
+
+  private Details load(String value) {
+    loads.incrementAndGet();
+    return live(value);
+  }
+
+  private static Details live(String value) {
+    return new Details(value, null);
+  }
+
+  private double staleServed() {
+    return meterRegistry.get("snapshot.cache.stale.served").counter().count();
+  }
+}
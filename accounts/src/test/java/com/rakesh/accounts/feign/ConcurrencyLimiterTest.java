@@ -0,0 +1,106 @@
+package com.rakesh.accounts.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  private static final long MIN_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void rejectsCallsOverTheLimitWithoutCountingThemInFlight() {
+    ConcurrencyLimiter limiter = limiter(properties(2, 1, 10));
+
+    assertThat(limiter.acquire()).isEqualTo(1);
+    assertThat(limiter.acquire()).isEqualTo(2);
+    assertThatThrownBy(limiter::acquire).isInstanceOf(ConcurrencyLimitExceededException.class);
+
+    assertThat(meterRegistry.get("feign.concurrency.rejected").counter().count()).isEqualTo(1.0);
+    assertThat(meterRegistry.get("feign.concurrency.inflight").gauge().value()).isEqualTo(2.0);
+    limiter.onSuccess(MIN_RTT, 2);
+    assertThat(limiter.acquire()).isEqualTo(2);
+  }
+
+  @Test
+  void growsWhileThereIsNoQueueAndTheLimitIsUsed() {
+    ConcurrencyLimiter limiter = limiter(properties(10, 1, 100));
+
+    for (int i = 0; i < 5; i++) {
+      limiter.acquire();
+      limiter.onSuccess(MIN_RTT, limiter.getLimit());
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(15);
+  }
+
+  @Test
+  void doesNotGrowWhileMostOfTheLimitIsIdle() {
+    ConcurrencyLimiter limiter = limiter(properties(10, 1, 100));
+
+    for (int i = 0; i < 5; i++) {
+      limiter.acquire();
+      limiter.onSuccess(MIN_RTT, 1);
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(10);
+  }
+
+  @Test
+  void shrinksWhenTheRttShowsAQueueAtTheService() {
+    ConcurrencyLimiter limiter = limiter(properties(50, 1, 100));
+    limiter.acquire();
+    limiter.onSuccess(MIN_RTT, 50);
+    int afterBaseline = limiter.getLimit();
+
+    // Twice the no load RTT, about half of the limit is waiting in a queue
+    limiter.acquire();
+    limiter.onSuccess(2 * MIN_RTT, 50);
+
+    assertThat(limiter.getLimit()).isLessThan(afterBaseline);
+  }
+
+  @Test
+  void dropsCutTheLimitByTenPercentDownToTheMinimum() {
+    ConcurrencyLimiter limiter = limiter(properties(100, 80, 200));
+
+    limiter.acquire();
+    limiter.onDropped();
+    assertThat(limiter.getLimit()).isEqualTo(90);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.onDropped();
+    }
+    assertThat(limiter.getLimit()).isEqualTo(80);
+  }
+
+  @Test
+  void neverGrowsOverTheMaximum() {
+    ConcurrencyLimiter limiter = limiter(properties(10, 1, 12));
+
+    for (int i = 0; i < 10; i++) {
+      limiter.acquire();
+      limiter.onSuccess(MIN_RTT, limiter.getLimit());
+    }
+
+    assertThat(limiter.getLimit()).isEqualTo(12);
+  }
+
+  private ConcurrencyLimiter limiter(ConcurrencyLimitProperties properties) {
+    return new ConcurrencyLimiter("cards", properties, meterRegistry);
+  }
+
+  private static ConcurrencyLimitProperties properties(int initialLimit, int minLimit, int maxLimit) {
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    properties.setInitialLimit(initialLimit);
+    properties.setMinLimit(minLimit);
+    properties.setMaxLimit(maxLimit);
+    return properties;
+  }
+}
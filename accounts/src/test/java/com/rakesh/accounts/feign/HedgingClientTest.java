@@ -0,0 +1,180 @@
+package com.rakesh.accounts.feign;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HedgingClientTest {
+
+  private static final Request.Options OPTIONS = new Request.Options();
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void sendsRequestsThatAreNotHedgeableStraightThrough() throws IOException {
+    HedgingClient client = client(properties(1.0), (request, options) -> respond(request, "ok"));
+
+    Response response = client.execute(request(Request.HttpMethod.POST, "/api/fetch"), OPTIONS);
+
+    assertThat(body(response)).isEqualTo("ok");
+    assertThat(calls).hasValue(1);
+    assertThat(meterRegistry.find("feign.hedging.hedges").counters()).isEmpty();
+  }
+
+  @Test
+  void doesNotHedgeAFastResponse() throws IOException {
+    HedgingClient client = client(properties(1.0), (request, options) -> respond(request, "ok"));
+
+    Response response = client.execute(request(Request.HttpMethod.GET, "/api/fetch"), OPTIONS);
+
+    assertThat(body(response)).isEqualTo("ok");
+    assertThat(calls).hasValue(1);
+    assertThat(hedges("sent")).isZero();
+  }
+
+  @Test
+  void theHedgeWinsOverASlowPrimaryWhichIsClosed() throws Exception {
+    CountDownLatch slowClosed = new CountDownLatch(1);
+    HedgingClient client =
+        client(
+            properties(1.0),
+            (request, options) -> {
+              if (calls.get() == 1) {
+                sleep(300);
+                return respond(request, "slow", slowClosed);
+              }
+              return respond(request, "hedge");
+            });
+
+    Response response = client.execute(request(Request.HttpMethod.GET, "/api/fetch"), OPTIONS);
+
+    assertThat(body(response)).isEqualTo("hedge");
+    assertThat(calls).hasValue(2);
+    assertThat(hedges("sent")).isEqualTo(1.0);
+    assertThat(hedges("won")).isEqualTo(1.0);
+    assertThat(slowClosed.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void waitsForThePrimaryWhenTheBudgetIsSpent() throws IOException {
+    HedgingClient client =
+        client(
+            properties(0.05),
+            (request, options) -> {
+              sleep(100);
+              return respond(request, "slow");
+            });
+
+    Response response = client.execute(request(Request.HttpMethod.GET, "/api/fetch"), OPTIONS);
+
+    assertThat(body(response)).isEqualTo("slow");
+    assertThat(calls).hasValue(1);
+    assertThat(hedges("budget_exhausted")).isEqualTo(1.0);
+  }
+
+  @Test
+  void failsOnlyWhenBothCopiesFail() {
+    HedgingClient client =
+        client(
+            properties(1.0),
+            (request, options) -> {
+              sleep(50);
+              throw new IOException("connection reset");
+            });
+
+    assertThatThrownBy(
+            () -> client.execute(request(Request.HttpMethod.GET, "/api/fetch"), OPTIONS))
+        .isInstanceOf(IOException.class)
+        .hasMessage("connection reset");
+    assertThat(calls).hasValue(2);
+  }
+
+  private HedgingClient client(HedgingProperties properties, Client delegate) {
+    Client counting =
+        (request, options) -> {
+          calls.incrementAndGet();
+          return delegate.execute(request, options);
+        };
+    return new HedgingClient(counting, properties, executor, meterRegistry);
+  }
+
+  // A hedge is sent after 20ms, budgetRatio of a hedge token is earned by every request
+  private static HedgingProperties properties(double budgetRatio) {
+    HedgingProperties properties = new HedgingProperties();
+    properties.setMinDelay(Duration.ofMillis(20));
+    properties.setMaxDelay(Duration.ofMillis(20));
+    properties.setBudgetRatio(budgetRatio);
+    return properties;
+  }
+
+  private static Request request(Request.HttpMethod method, String path) {
+    RequestTemplate template = new RequestTemplate();
+    template.method(method);
+    template.uri(path);
+    template.feignTarget(new Target.HardCodedTarget<>(Object.class, "cards", "http://cards"));
+    return Request.create(
+        method, "http://cards" + path, Map.of(), null, StandardCharsets.UTF_8, template);
+  }
+
+  private static Response respond(Request request, String body) {
+    return respond(request, body, new CountDownLatch(1));
+  }
+
+  private static Response respond(Request request, String body, CountDownLatch closed) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    return Response.builder()
+        .status(200)
+        .request(request)
+        .headers(Map.of())
+        .body(
+            new ByteArrayInputStream(bytes) {
+              @Override
+              public void close() {
+                closed.countDown();
+              }
+            },
+            bytes.length)
+        .build();
+  }
+
+  private static String body(Response response) throws IOException {
+    return new String(response.body().asInputStream().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  private double hedges(String outcome) {
+    return meterRegistry.get("feign.hedging.hedges").tag("outcome", outcome).counter().count();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
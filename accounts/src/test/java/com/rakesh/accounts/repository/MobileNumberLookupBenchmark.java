@@ -0,0 +1,119 @@
+package com.rakesh.accounts.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*Cost of a look up by mobile number as the table grows, with the unique key of schema.sql on mobile_number and
+without it. With the key the time stays about the same from 10 thousand to a million rows, without it every look up
+scans the table and grows with it. The cards and loans tables have the same kind of key, one table shows it.
+It needs a MySQL, the accountsdb of application.yml unless given with -Dbenchmark.jdbc.url, .username and
+.password, and works on a lookup_benchmark table of its own which it drops at the end. Run it from main, or with
+java -cp <test classpath> org.openjdk.jmh.Main MobileNumberLookupBenchmark.*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MobileNumberLookupBenchmark {
+
+  private static final long FIRST_MOBILE_NUMBER = 9_000_000_000L;
+  private static final int INSERT_BATCH_SIZE = 10_000;
+
+  @Param({"10000", "100000", "1000000"})
+  private int rows;
+
+  @Param({"true", "false"})
+  private boolean uniqueKey;
+
+  private Connection connection;
+  private PreparedStatement lookup;
+
+  @Setup
+  public void createTable() throws SQLException {
+    connection =
+        DriverManager.getConnection(
+            System.getProperty(
+                "benchmark.jdbc.url",
+                "jdbc:mysql://localhost:3307/accountsdb?rewriteBatchedStatements=true"),
+            System.getProperty("benchmark.jdbc.username", "root"),
+            System.getProperty("benchmark.jdbc.password", "password"));
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS lookup_benchmark");
+      statement.execute(
+          "CREATE TABLE lookup_benchmark (customer_id int AUTO_INCREMENT PRIMARY KEY,"
+              + " name varchar(100) NOT NULL, mobile_number varchar(20) NOT NULL"
+              + (uniqueKey ? ", UNIQUE KEY uk_lookup_benchmark_mobile_number (mobile_number)" : "")
+              + ")");
+    }
+    connection.setAutoCommit(false);
+    try (PreparedStatement insert =
+        connection.prepareStatement(
+            "INSERT INTO lookup_benchmark (name, mobile_number) VALUES (?, ?)")) {
+      for (int row = 0; row < rows; row++) {
+        insert.setString(1, "Customer " + row);
+        insert.setString(2, mobileNumber(row));
+        insert.addBatch();
+        if ((row + 1) % INSERT_BATCH_SIZE == 0 || row == rows - 1) {
+          insert.executeBatch();
+          connection.commit();
+        }
+      }
+    }
+    connection.setAutoCommit(true);
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("ANALYZE TABLE lookup_benchmark");
+    }
+    lookup =
+        connection.prepareStatement(
+            "SELECT customer_id, name FROM lookup_benchmark WHERE mobile_number = ?");
+  }
+
+  @TearDown
+  public void dropTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DROP TABLE IF EXISTS lookup_benchmark");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Benchmark
+  public long findByMobileNumber() throws SQLException {
+    lookup.setString(1, mobileNumber(ThreadLocalRandom.current().nextInt(rows)));
+    try (ResultSet resultSet = lookup.executeQuery()) {
+      return resultSet.next() ? resultSet.getLong(1) : -1;
+    }
+  }
+
+  private static String mobileNumber(int row) {
+    return Long.toString(FIRST_MOBILE_NUMBER + row);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(MobileNumberLookupBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
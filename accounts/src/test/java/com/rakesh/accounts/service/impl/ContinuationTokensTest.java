@@ -0,0 +1,71 @@
+package com.rakesh.accounts.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rakesh.accounts.exception.InvalidContinuationTokenException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class ContinuationTokensTest {
+
+  private static final LocalDateTime CREATED_AFTER = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+  @Test
+  void roundTripsTheLastCustomerId() {
+    String token = ContinuationTokens.encode(4711L, CREATED_AFTER, "Savings");
+
+    assertThat(ContinuationTokens.decode(token, CREATED_AFTER, "Savings")).isEqualTo(4711L);
+  }
+
+  @Test
+  void roundTripsWithoutFilters() {
+    String token = ContinuationTokens.encode(42L, null, null);
+
+    assertThat(ContinuationTokens.decode(token, null, null)).isEqualTo(42L);
+  }
+
+  @Test
+  void startsAtTheBeginningWithoutToken() {
+    assertThat(ContinuationTokens.decode(null, CREATED_AFTER, "Savings")).isZero();
+    assertThat(ContinuationTokens.decode(" ", CREATED_AFTER, "Savings")).isZero();
+  }
+
+  @Test
+  void rejectsATokenOfOtherFilters() {
+    String token = ContinuationTokens.encode(4711L, CREATED_AFTER, "Savings");
+
+    assertThatThrownBy(() -> ContinuationTokens.decode(token, CREATED_AFTER, "Current"))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+    assertThatThrownBy(() -> ContinuationTokens.decode(token, null, "Savings"))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+    assertThatThrownBy(
+            () -> ContinuationTokens.decode(token, CREATED_AFTER.plusSeconds(1), "Savings"))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+  }
+
+  @Test
+  void rejectsMalformedTokens() {
+    assertThatThrownBy(() -> ContinuationTokens.decode("not base64!", null, null))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+    assertThatThrownBy(() -> ContinuationTokens.decode(encoded("c:12"), null, null))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+    assertThatThrownBy(() -> ContinuationTokens.decode(encoded("x:12:0"), null, null))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+    String hash =
+        new String(
+                Base64.getUrlDecoder().decode(ContinuationTokens.encode(1L, null, null)),
+                StandardCharsets.UTF_8)
+            .split(":")[2];
+    assertThatThrownBy(() -> ContinuationTokens.decode(encoded("c:abc:" + hash), null, null))
+        .isInstanceOf(InvalidContinuationTokenException.class);
+  }
+
+  private static String encoded(String token) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+  }
+}
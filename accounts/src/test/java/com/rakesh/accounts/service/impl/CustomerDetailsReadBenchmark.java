@@ -0,0 +1,178 @@
+package com.rakesh.accounts.service.impl;
+
+import com.rakesh.accounts.dto.CustomerDetailsDto;
+import com.rakesh.accounts.repository.AccountsRepository;
+import com.rakesh.accounts.repository.CustomerRepository;
+import com.rakesh.accounts.repository.NaturalIdRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*The customer and account read of fetchCustomerDetails: the one join query straight into the view against the two
+step read of the customer and then its account, each in its read only transaction like CustomerDetailsReader. The
+GC profiler gives the allocation per read (gc.alloc.rate.norm), the two step read hydrates two entities more.
+It needs a MySQL and uses a database of its own, accounts_benchmark next to the accountsdb of application.yml
+unless given with -Dbenchmark.jdbc.url, .username and .password, created from schema.sql and refilled on every run.
+Run it from main, or with java -cp <test classpath> org.openjdk.jmh.Main CustomerDetailsReadBenchmark -prof gc.*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDetailsReadBenchmark {
+
+  private static final long FIRST_MOBILE_NUMBER = 9_000_000_000L;
+  private static final int INSERT_BATCH_SIZE = 1_000;
+
+  @Param({"10000"})
+  private int customers;
+
+  private AnnotationConfigApplicationContext context;
+  private CustomerDetailsReader reader;
+  private TransactionTemplate readOnly;
+
+  @Setup
+  public void start() {
+    context = new AnnotationConfigApplicationContext(JpaConfig.class);
+    fill(context.getBean(DataSource.class));
+    reader =
+        new CustomerDetailsReader(
+            context.getBean(AccountsRepository.class), context.getBean(CustomerRepository.class));
+    readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnly.setReadOnly(true);
+  }
+
+  @TearDown
+  public void stop() {
+    context.close();
+  }
+
+  @Benchmark
+  public CustomerDetailsDto joinIntoView() {
+    String mobileNumber = randomMobileNumber();
+    return readOnly.execute(status -> reader.fetchCustomerAndAccount(mobileNumber));
+  }
+
+  @Benchmark
+  public CustomerDetailsDto twoSteps() {
+    String mobileNumber = randomMobileNumber();
+    return readOnly.execute(status -> reader.fetchCustomerAndAccountInTwoSteps(mobileNumber));
+  }
+
+  private String randomMobileNumber() {
+    return Long.toString(FIRST_MOBILE_NUMBER + ThreadLocalRandom.current().nextInt(customers));
+  }
+
+  private void fill(DataSource dataSource) {
+    new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("TRUNCATE TABLE customer");
+    jdbcTemplate.execute("TRUNCATE TABLE accounts");
+    Date today = Date.valueOf(LocalDate.now());
+    List<Object[]> customerRows = new ArrayList<>(INSERT_BATCH_SIZE);
+    List<Object[]> accountRows = new ArrayList<>(INSERT_BATCH_SIZE);
+    for (int customer = 1; customer <= customers; customer++) {
+      customerRows.add(
+          new Object[] {
+            customer,
+            "Customer " + customer,
+            "customer" + customer + "@example.com",
+            Long.toString(FIRST_MOBILE_NUMBER + customer - 1),
+            today
+          });
+      accountRows.add(new Object[] {customer, 1_000_000_000L + customer, today});
+      if (customerRows.size() == INSERT_BATCH_SIZE || customer == customers) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO customer (customer_id, name, email, mobile_number, created_at, created_by)"
+                + " VALUES (?, ?, ?, ?, ?, 'BENCHMARK')",
+            customerRows);
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO accounts (customer_id, account_number, account_type, branch_address,"
+                + " communication_sw, created_at, created_by)"
+                + " VALUES (?, ?, 'Savings', '123 Main Street, New York', false, ?, 'BENCHMARK')",
+            accountRows);
+        customerRows.clear();
+        accountRows.clear();
+      }
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder()
+                .include(CustomerDetailsReadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+        .run();
+  }
+
+  /*The JPA part of the service alone, with the real entities and repositories. Registered by hand in start() and on
+  purpose no @Configuration, the application tests would otherwise scan it and define the repositories twice.*/
+  @EnableJpaRepositories(
+      basePackageClasses = CustomerRepository.class,
+      repositoryBaseClass = NaturalIdRepositoryImpl.class)
+  static class JpaConfig {
+
+    @Bean(destroyMethod = "close")
+    HikariDataSource dataSource() {
+      HikariDataSource dataSource = new HikariDataSource();
+      dataSource.setJdbcUrl(
+          System.getProperty(
+              "benchmark.jdbc.url",
+              "jdbc:mysql://localhost:3307/accounts_benchmark"
+                  + "?createDatabaseIfNotExist=true&rewriteBatchedStatements=true"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.username", "root"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "password"));
+      return dataSource;
+    }
+
+    @Bean
+    LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+      LocalContainerEntityManagerFactoryBean entityManagerFactory =
+          new LocalContainerEntityManagerFactoryBean();
+      entityManagerFactory.setDataSource(dataSource);
+      entityManagerFactory.setPackagesToScan("com.rakesh.accounts.entity");
+      entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+      return entityManagerFactory;
+    }
+
+    @Bean
+    JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+      return new JpaTransactionManager(entityManagerFactory);
+    }
+  }
+}
@@ -1,6 +1,11 @@
 package com.rakesh.cards;
 
+import com.rakesh.cards.balance.BalanceEngineProperties;
+import com.rakesh.cards.datasource.DataSourceRoutingProperties;
 import com.rakesh.cards.dto.CardsContactInfoDto;
+import com.rakesh.cards.filter.MobileNumberFilterProperties;
+import com.rakesh.cards.repository.NaturalIdRepositoryImpl;
+import com.rakesh.cards.velocity.VelocityProperties;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Contact;
@@ -10,12 +15,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 /*@ComponentScans({ @ComponentScan("com.rakesh.cards.controller") })
 @EnableJpaRepositories("com.rakesh.cards.repository")
 @EntityScan("com.rakesh.cards.model")*/
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
+// Every repository gets the natural id lookup of NaturalIdRepository
+@EnableJpaRepositories(repositoryBaseClass = NaturalIdRepositoryImpl.class)
 @OpenAPIDefinition(
     info =
         @Info(
@@ -33,7 +41,14 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
             description = "EazyBank Cards microservice REST API Documentation",
             url = "https://www.rakesh.com/swagger-ui.html"))
 /*This annotation tells spring to see the POJO class where we are mapping our properties from the yml file*/
-@EnableConfigurationProperties(value = {CardsContactInfoDto.class})
+@EnableConfigurationProperties(
+    value = {
+      CardsContactInfoDto.class,
+      DataSourceRoutingProperties.class,
+      BalanceEngineProperties.class,
+      VelocityProperties.class,
+      MobileNumberFilterProperties.class
+    })
 public class CardsApplication {
 	public static void main(String[] args) {
     SpringApplication.run(CardsApplication.class, args);
@@ -0,0 +1,9 @@
+package com.rakesh.cards.balance;
+
+public enum BalanceDecision {
+  APPROVED,
+  // A retry of a change with the same idempotency key that was approved before, nothing was changed this time
+  ALREADY_APPLIED,
+  DECLINED,
+  UNKNOWN_CARD
+}
@@ -0,0 +1,302 @@
+package com.rakesh.cards.balance;
+
+import com.rakesh.cards.balance.BalanceSnapshots.Snapshot;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*Keeps the balances of the cards in memory so that authorizations of a hot card do not queue up on its row lock in
+MySQL. The cards are spread over partitions by card number, this instance serves only the partitions it holds a
+lease for (balance_partition_lease table) and answers the others with 503, so a card is only ever changed by one
+instance. Every change is in the spend journal of the partition before it is approved, the net changes are written
+to the cards table every flushInterval and the balances are snapshotted every snapshotInterval. A new owner of a
+partition rebuilds it from the latest snapshot and the journal after it, see takePartition.
+While enabled the amounts of the cards change in the cards table only flushInterval later, and /api/update rejects
+any change of them, the engine would not know about it.*/
+@Component
+@ConditionalOnProperty(prefix = "balance-engine", name = "enabled", havingValue = "true")
+public class BalanceEngine implements SmartLifecycle {
+
+  private static final Logger logger = LoggerFactory.getLogger(BalanceEngine.class);
+
+  private final BalanceEngineProperties properties;
+  private final BalanceStore store;
+  private final String auditor;
+  private final AtomicReferenceArray<BalancePartition> partitions;
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService backgroundExecutor;
+  private volatile boolean running;
+
+  @Autowired
+  public BalanceEngine(
+      BalanceEngineProperties properties,
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      AuditorAware<String> auditorAware) {
+    this(
+        properties,
+        new BalanceStore(
+            jdbcTemplate,
+            new TransactionTemplate(transactionManager),
+            instanceId(properties),
+            properties.getLeaseDuration()),
+        auditorAware.getCurrentAuditor().orElse(null));
+  }
+
+  BalanceEngine(BalanceEngineProperties properties, BalanceStore store, String auditor) {
+    this.properties = properties;
+    this.store = store;
+    this.auditor = auditor;
+    this.partitions = new AtomicReferenceArray<>(properties.getPartitions());
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("balance-engine"));
+    this.backgroundExecutor = Executors.newSingleThreadExecutor(daemon("balance-background"));
+  }
+
+  /**
+   * @param cardNumber - card to be debited
+   * @param amount - amount to be debited, greater than zero
+   * @param idempotencyKey - optional, a debit with a key that was already approved is not applied again
+   * @return APPROVED once the debit is durable, ALREADY_APPLIED for a retry of an approved one, DECLINED if the
+   *     available amount is not enough
+   */
+  public BalanceDecision debit(String cardNumber, int amount, String idempotencyKey) {
+    return await(ownedPartition(cardNumber).debit(cardNumber, amount, idempotencyKey));
+  }
+
+  /**
+   * @param cardNumber - card to be credited
+   * @param amount - amount to be credited, greater than zero
+   * @param idempotencyKey - optional, a credit with a key that was already approved is not applied again
+   * @return APPROVED once the credit is durable, ALREADY_APPLIED for a retry of an approved one, DECLINED if it is
+   *     more than the amount used
+   */
+  public BalanceDecision credit(String cardNumber, int amount, String idempotencyKey) {
+    return await(ownedPartition(cardNumber).credit(cardNumber, amount, idempotencyKey));
+  }
+
+  @Override
+  public void start() {
+    store.createMissing(properties.getPartitions());
+    running = true;
+    scheduler.scheduleWithFixedDelay(
+        this::maintainLeases, 0, properties.getLeaseRenewInterval().toMillis(), TimeUnit.MILLISECONDS);
+    scheduler.scheduleWithFixedDelay(
+        this::requestFlushes,
+        properties.getFlushInterval().toMillis(),
+        properties.getFlushInterval().toMillis(),
+        TimeUnit.MILLISECONDS);
+    scheduler.scheduleWithFixedDelay(
+        this::requestSnapshots,
+        properties.getSnapshotInterval().toMillis(),
+        properties.getSnapshotInterval().toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    scheduler.shutdownNow();
+    Map<Integer, CompletableFuture<Void>> stopping = new HashMap<>();
+    for (int id = 0; id < partitions.length(); id++) {
+      BalancePartition partition = partitions.getAndSet(id, null);
+      if (partition != null) {
+        stopping.put(id, partition.stop());
+      }
+    }
+    stopping.forEach(
+        (id, stopped) -> {
+          stopped.join();
+          store.release(id);
+        });
+    backgroundExecutor.shutdown();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private BalancePartition ownedPartition(String cardNumber) {
+    int id = Math.floorMod(cardNumber.hashCode(), partitions.length());
+    BalancePartition partition = partitions.get(id);
+    if (partition == null) {
+      throw new PartitionNotOwnedException(id);
+    }
+    return partition;
+  }
+
+  private BalanceDecision await(CompletableFuture<BalanceDecision> decision) {
+    try {
+      return decision.get(properties.getRequestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the balance engine", exception);
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(exception.getCause());
+    } catch (TimeoutException exception) {
+      throw new IllegalStateException("The balance engine did not answer in time", exception);
+    }
+  }
+
+  /*Renews the leases of the partitions we hold, drops the ones we lost and tries to take the free ones, as long as
+  we hold less than maxOwnedPartitions.*/
+  private void maintainLeases() {
+    try {
+      int owned = 0;
+      for (int id = 0; id < partitions.length(); id++) {
+        BalancePartition partition = partitions.get(id);
+        if (partition != null) {
+          long renewStart = System.nanoTime();
+          if (store.renew(id)) {
+            partition.leaseRenewed(renewStart);
+            owned++;
+          } else {
+            logger.warn("Lease of balance partition {} was lost", id);
+            dropPartition(id);
+          }
+        }
+      }
+      for (int id = 0; id < partitions.length() && owned < properties.getMaxOwnedPartitions(); id++) {
+        if (partitions.get(id) == null) {
+          long leaseStart = System.nanoTime();
+          if (store.tryAcquire(id)) {
+            takePartition(id, leaseStart);
+            owned++;
+          }
+        }
+      }
+    } catch (RuntimeException exception) {
+      logger.warn("Maintaining the balance partition leases failed", exception);
+    }
+  }
+
+  /*Rebuilds the partition from its latest snapshot and the journal after it, and first applies to the cards table
+  the journal beyond flushed_seq, that is how the changes a crashed owner did not flush are recovered. Only the
+  journal written after the older of the two is read, so the time this takes is bounded by the snapshot and flush
+  intervals and not by the size of the journal.*/
+  void takePartition(int id, long leaseStart) {
+    Path directory = Path.of(properties.getJournalDirectory(), "partition-" + id);
+    Snapshot snapshot = BalanceSnapshots.readLatest(directory);
+    long flushedSeq = store.flushedSeq(id);
+    Map<String, Integer> deltas = new HashMap<>();
+    List<String> idempotencyKeys = snapshot.idempotencyKeys();
+    long replayedUpTo =
+        SpendJournal.replay(
+            directory,
+            Math.min(snapshot.seq(), flushedSeq),
+            (seq, timestamp, delta, cardNumber, idempotencyKey) -> {
+              if (seq > snapshot.seq()) {
+                int[] balance = snapshot.balances().get(cardNumber);
+                if (balance != null) {
+                  balance[0] += delta;
+                  balance[1] -= delta;
+                }
+                if (idempotencyKey != null) {
+                  idempotencyKeys.add(idempotencyKey);
+                }
+              }
+              if (seq > flushedSeq) {
+                deltas.merge(cardNumber, delta, Integer::sum);
+              }
+            });
+    long lastSeq = Math.max(replayedUpTo, Math.max(snapshot.seq(), flushedSeq));
+    if (lastSeq > flushedSeq) {
+      if (!store.flush(id, deltas, lastSeq, auditor)) {
+        logger.warn("Lease of balance partition {} was lost while recovering it", id);
+        return;
+      }
+      logger.info("Recovered {} changes of balance partition {}", lastSeq - flushedSeq, id);
+    }
+    BalancePartition partition =
+        new BalancePartition(
+            id,
+            directory,
+            snapshot,
+            lastSeq,
+            leaseStart,
+            store,
+            backgroundExecutor,
+            properties,
+            auditor,
+            () -> leaseLost(id));
+    partition.start();
+    partitions.set(id, partition);
+    logger.info("Balance partition {} is now served by {}", id, store.owner());
+  }
+
+  // Called from the partition thread, which can not wait for its own stop
+  private void leaseLost(int id) {
+    if (running) {
+      try {
+        scheduler.execute(() -> dropPartition(id));
+      } catch (RejectedExecutionException exception) {
+        // Shutting down, stop() drops the partition
+      }
+    }
+  }
+
+  private void dropPartition(int id) {
+    BalancePartition partition = partitions.getAndSet(id, null);
+    if (partition != null) {
+      partition.stop().join();
+      store.release(id);
+    }
+  }
+
+  private void requestFlushes() {
+    for (int id = 0; id < partitions.length(); id++) {
+      BalancePartition partition = partitions.get(id);
+      if (partition != null) {
+        partition.requestFlush();
+      }
+    }
+  }
+
+  private void requestSnapshots() {
+    for (int id = 0; id < partitions.length(); id++) {
+      BalancePartition partition = partitions.get(id);
+      if (partition != null) {
+        partition.requestSnapshot();
+      }
+    }
+  }
+
+  private static String instanceId(BalanceEngineProperties properties) {
+    return properties.getInstanceId() == null || properties.getInstanceId().isBlank()
+        ? UUID.randomUUID().toString()
+        : properties.getInstanceId();
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,63 @@
+package com.rakesh.cards.balance;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/*In memory balance engine for the card authorizations, see BalanceEngine. When disabled every authorization is a
+conditional UPDATE of the cards row.*/
+@ConfigurationProperties(prefix = "balance-engine")
+@Getter
+@Setter
+public class BalanceEngineProperties {
+
+  private boolean enabled = false;
+
+  /*Cards are spread over this many partitions by card number, every partition is owned by one instance at a time.
+  It must be the same on all the instances and must not be changed while there are unflushed logs.*/
+  private int partitions = 16;
+
+  // Upper bound of partitions taken by one instance, so that the partitions get spread when more instances run
+  private int maxOwnedPartitions = Integer.MAX_VALUE;
+
+  // Name of this instance in the lease table, a random one is taken when empty
+  private String instanceId;
+
+  /*A partition stays with its owner for this long after the last renewal. The renewal runs every leaseRenewInterval,
+  which has to be well below the lease duration.*/
+  private Duration leaseDuration = Duration.ofSeconds(30);
+  private Duration leaseRenewInterval = Duration.ofSeconds(10);
+
+  /*A partition stops applying changes this long before its lease would run out by the local clock, so it has
+  stopped before the lease runs out in the DB and a new owner can take over, even with some clock drift.*/
+  private Duration leaseSafetyMargin = Duration.ofSeconds(5);
+
+  // How often the net balance changes are written to the cards table
+  private Duration flushInterval = Duration.ofMillis(200);
+
+  /*Directory of the spend journals and snapshots, one sub directory per partition. An instance taking over a
+  partition rebuilds it from there, so with more than one instance it has to be shared storage. The snapshots hold
+  the balances the engine had, if the cards were changed in the table while the engine was disabled the directory
+  has to be emptied before enabling it again.*/
+  private String journalDirectory = "balance-journal";
+
+  // Size of a journal segment file, it is mapped in memory as a whole
+  private DataSize journalSegmentSize = DataSize.ofMegabytes(64);
+
+  // Segments kept as history once they are no longer needed for the recovery
+  private int journalRetainedSegments = 16;
+
+  // The recovery replays at most the journal written since the last snapshot (and since the last flush)
+  private Duration snapshotInterval = Duration.ofMinutes(1);
+
+  // Idempotency keys of the latest approved changes remembered per partition, a retry with one of them is not applied
+  private int idempotencyKeysRetained = 100_000;
+
+  // Number of queued requests a partition applies together and makes durable with one sync
+  private int maxBatchSize = 1000;
+
+  // How long an authorization waits for its partition
+  private Duration requestTimeout = Duration.ofSeconds(2);
+}
@@ -0,0 +1,420 @@
+package com.rakesh.cards.balance;
+
+import com.rakesh.cards.balance.BalanceSnapshots.Snapshot;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*One partition of the balance engine. All its cards are changed by its own single thread, so the balances are
+plain fields without locks or CAS, and two spends of the same card can never interleave. Requests are queued, the
+thread takes every request waiting in the queue (up to maxBatchSize), applies them, appends the changes to the
+journal, syncs it once for the whole batch and only then answers them. Flushes and snapshots asked for meanwhile
+are started after that sync, so they never hold a change that is not durable in the journal.
+The net change per card since the last flush is kept in pendingDeltas and written to the cards table in the
+background (write-behind) by the backgroundExecutor, which also writes the snapshots, while the partition keeps
+serving.
+The lease in the DB only fences the flushes, so the partition also keeps a deadline of its own: the start of the last
+successful renewal plus the lease duration, less a safety margin for the clock drift. Past it a new owner may have
+taken over, so no change is applied nor approved until the next renewal moves it.*/
+class BalancePartition implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BalancePartition.class);
+
+  private final int id;
+  private final Path directory;
+  private final BalanceStore store;
+  private final Executor backgroundExecutor;
+  private final BalanceEngineProperties properties;
+  private final String auditor;
+  private final Runnable onLeaseLost;
+  private final long leaseNanos;
+  private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+  private final Thread thread;
+  private final SpendJournal journal;
+
+  // Only touched by the partition thread
+  private final Map<String, int[]> balances;
+  private final LinkedHashMap<String, Boolean> idempotencyKeys;
+  private Map<String, Integer> pendingDeltas = new HashMap<>();
+  private long nextSeq;
+  private long flushedSeq;
+  private long snapshotSeq;
+  private boolean flushInFlight;
+  private boolean snapshotInFlight;
+  private boolean failed;
+  // System.nanoTime() after which the lease may have run out, moved by the renewals of the engine
+  private volatile long leaseDeadline;
+
+  /**
+   * @param recovered - balances and idempotency keys rebuilt from the latest snapshot and the journal after it
+   * @param lastSeq - last sequence number used by the partition, everything up to it is in the cards table
+   * @param leaseStart - System.nanoTime() taken right before the lease was acquired
+   */
+  BalancePartition(
+      int id,
+      Path directory,
+      Snapshot recovered,
+      long lastSeq,
+      long leaseStart,
+      BalanceStore store,
+      Executor backgroundExecutor,
+      BalanceEngineProperties properties,
+      String auditor,
+      Runnable onLeaseLost) {
+    this.id = id;
+    this.directory = directory;
+    this.balances = recovered.balances();
+    this.snapshotSeq = recovered.seq();
+    this.nextSeq = lastSeq + 1;
+    this.flushedSeq = lastSeq;
+    this.store = store;
+    this.backgroundExecutor = backgroundExecutor;
+    this.properties = properties;
+    this.auditor = auditor;
+    this.onLeaseLost = onLeaseLost;
+    this.leaseNanos = properties.getLeaseDuration().minus(properties.getLeaseSafetyMargin()).toNanos();
+    this.leaseDeadline = leaseStart + leaseNanos;
+    int retainedKeys = properties.getIdempotencyKeysRetained();
+    this.idempotencyKeys =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > retainedKeys;
+          }
+        };
+    recovered.idempotencyKeys().forEach(key -> idempotencyKeys.put(key, Boolean.TRUE));
+    this.journal =
+        new SpendJournal(
+            directory, store.owner(), (int) properties.getJournalSegmentSize().toBytes(), nextSeq);
+    this.thread = new Thread(this, "balance-partition-" + id);
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    thread.start();
+  }
+
+  CompletableFuture<BalanceDecision> debit(String cardNumber, int amount, String idempotencyKey) {
+    return submit(new Change(cardNumber, amount, idempotencyKey, new CompletableFuture<>()));
+  }
+
+  CompletableFuture<BalanceDecision> credit(String cardNumber, int amount, String idempotencyKey) {
+    return submit(new Change(cardNumber, -amount, idempotencyKey, new CompletableFuture<>()));
+  }
+
+  /**
+   * @param renewStart - System.nanoTime() taken right before the successful renewal of the lease
+   */
+  void leaseRenewed(long renewStart) {
+    leaseDeadline = renewStart + leaseNanos;
+  }
+
+  void requestFlush() {
+    queue.add(new Flush());
+  }
+
+  void requestSnapshot() {
+    queue.add(new TakeSnapshot());
+  }
+
+  // Flushes what is pending, closes the journal and ends the thread, the returned future completes after that
+  CompletableFuture<Void> stop() {
+    Stop stop = new Stop(new CompletableFuture<>());
+    queue.add(stop);
+    return stop.done();
+  }
+
+  private CompletableFuture<BalanceDecision> submit(Change change) {
+    queue.add(change);
+    return change.result();
+  }
+
+  @Override
+  public void run() {
+    int maxBatchSize = properties.getMaxBatchSize();
+    List<Command> batch = new ArrayList<>(maxBatchSize);
+    List<Answer> answers = new ArrayList<>(maxBatchSize);
+    while (true) {
+      try {
+        batch.add(queue.take());
+        queue.drainTo(batch, maxBatchSize - 1);
+        boolean appended = false;
+        boolean flushRequested = false;
+        boolean snapshotRequested = false;
+        for (Command command : batch) {
+          if (command instanceof Change change) {
+            if (failed) {
+              change.result().completeExceptionally(new PartitionNotOwnedException(id));
+            } else {
+              appended |= apply(change, answers);
+            }
+          } else if (command instanceof Flush) {
+            flushRequested = true;
+          } else if (command instanceof FlushDone flushDone) {
+            finishFlush(flushDone);
+          } else if (command instanceof TakeSnapshot) {
+            snapshotRequested = true;
+          } else if (command instanceof SnapshotDone snapshotDone) {
+            finishSnapshot(snapshotDone);
+          } else if (command instanceof Stop stop) {
+            if (appended) {
+              journal.sync();
+            }
+            answer(answers);
+            shutdown(stop);
+            return;
+          }
+        }
+        if (appended) {
+          journal.sync();
+        }
+        answer(answers);
+        if (flushRequested) {
+          startFlush();
+        }
+        if (snapshotRequested) {
+          startSnapshot();
+        }
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException exception) {
+        /*The journal could not be written, nothing of this batch is known to be durable so none of it is approved.
+        The balances in memory may be ahead of the journal now, so they are dropped and the partition is given up,
+        the next owner rebuilds it from the snapshot, the journal and the cards table.*/
+        logger.error("Balance partition {} failed to write its journal, giving it up", id, exception);
+        discardUnsynced();
+        answers.forEach(answer -> answer.result().completeExceptionally(exception));
+        answers.clear();
+        balances.clear();
+        pendingDeltas.clear();
+        failed = true;
+        onLeaseLost.run();
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private boolean apply(Change change, List<Answer> answers) {
+    if (leaseExpired()) {
+      change.result().completeExceptionally(new PartitionNotOwnedException(id));
+      return false;
+    }
+    // A retry of a change that was already applied gets the same answer and changes nothing
+    if (change.idempotencyKey() != null && idempotencyKeys.containsKey(change.idempotencyKey())) {
+      answers.add(new Answer(change.result(), BalanceDecision.ALREADY_APPLIED));
+      return false;
+    }
+    int[] balance = balances.get(change.cardNumber());
+    if (balance == null) {
+      // First request for this card since it was last snapshotted, the cards table is up to date for it
+      try {
+        balance = store.loadBalance(change.cardNumber());
+      } catch (RuntimeException exception) {
+        change.result().completeExceptionally(exception);
+        return false;
+      }
+      if (balance == null) {
+        answers.add(new Answer(change.result(), BalanceDecision.UNKNOWN_CARD));
+        return false;
+      }
+      balances.put(change.cardNumber(), balance);
+    }
+    int delta = change.delta();
+    // balance[0] is the amount used and balance[1] the available amount, a credit can not go below zero used
+    boolean allowed = delta > 0 ? balance[1] >= delta : balance[0] >= -delta;
+    if (!allowed) {
+      answers.add(new Answer(change.result(), BalanceDecision.DECLINED));
+      return false;
+    }
+    balance[0] += delta;
+    balance[1] -= delta;
+    pendingDeltas.merge(change.cardNumber(), delta, Integer::sum);
+    if (change.idempotencyKey() != null) {
+      idempotencyKeys.put(change.idempotencyKey(), Boolean.TRUE);
+    }
+    journal.append(
+        nextSeq++, System.currentTimeMillis(), delta, change.cardNumber(), change.idempotencyKey());
+    answers.add(new Answer(change.result(), BalanceDecision.APPROVED));
+    return true;
+  }
+
+  /*A sync that ended past the deadline may have come after a new owner replayed the journal, whether its changes
+  count is not known, so they are not approved. A retry with the same idempotency key gets the right answer.*/
+  private void answer(List<Answer> answers) {
+    if (leaseExpired()) {
+      answers.forEach(
+          answer -> answer.result().completeExceptionally(new PartitionNotOwnedException(id)));
+    } else {
+      answers.forEach(answer -> answer.result().complete(answer.decision()));
+    }
+    answers.clear();
+  }
+
+  private boolean leaseExpired() {
+    return System.nanoTime() - leaseDeadline > 0;
+  }
+
+  // One flush at a time, so the flushes are applied in order
+  private void startFlush() {
+    if (failed || flushInFlight || pendingDeltas.isEmpty()) {
+      return;
+    }
+    Map<String, Integer> deltas = pendingDeltas;
+    long upToSeq = nextSeq - 1;
+    pendingDeltas = new HashMap<>();
+    flushInFlight = true;
+    backgroundExecutor.execute(
+        () -> {
+          boolean flushed = false;
+          boolean leaseLost = false;
+          try {
+            flushed = store.flush(id, deltas, upToSeq, auditor);
+            leaseLost = !flushed;
+          } catch (RuntimeException exception) {
+            logger.warn("Flush of balance partition {} failed, it will be retried", id, exception);
+          }
+          queue.add(new FlushDone(deltas, upToSeq, flushed, leaseLost));
+        });
+  }
+
+  private void finishFlush(FlushDone flushDone) {
+    flushInFlight = false;
+    if (flushDone.flushed()) {
+      flushedSeq = flushDone.upToSeq();
+      trimJournal();
+      return;
+    }
+    if (failed) {
+      return;
+    }
+    // Put the changes back so that the next flush writes them together with the newer ones
+    flushDone.deltas().forEach((cardNumber, delta) -> pendingDeltas.merge(cardNumber, delta, Integer::sum));
+    if (flushDone.leaseLost()) {
+      logger.warn("Balance partition {} lost its lease while flushing", id);
+      onLeaseLost.run();
+    }
+  }
+
+  /*The balances are copied here, which is the only part done on the partition thread, and written to the file in
+  the background.*/
+  private void startSnapshot() {
+    long seq = nextSeq - 1;
+    if (failed || snapshotInFlight || seq == snapshotSeq) {
+      return;
+    }
+    Map<String, int[]> copy = new HashMap<>(Math.max(16, balances.size() * 4 / 3 + 1));
+    balances.forEach((cardNumber, balance) -> copy.put(cardNumber, balance.clone()));
+    Snapshot snapshot = new Snapshot(seq, copy, new ArrayList<>(idempotencyKeys.keySet()));
+    snapshotInFlight = true;
+    backgroundExecutor.execute(
+        () -> {
+          boolean written = false;
+          try {
+            BalanceSnapshots.write(directory, snapshot);
+            written = true;
+          } catch (RuntimeException exception) {
+            logger.warn("Snapshot of balance partition {} failed", id, exception);
+          }
+          queue.add(new SnapshotDone(seq, written));
+        });
+  }
+
+  private void finishSnapshot(SnapshotDone snapshotDone) {
+    snapshotInFlight = false;
+    if (snapshotDone.written()) {
+      snapshotSeq = snapshotDone.seq();
+      trimJournal();
+    }
+  }
+
+  // Segments are needed for the replay as long as they have changes after the snapshot or not in the cards table
+  private void trimJournal() {
+    if (!failed) {
+      journal.deleteBefore(Math.min(flushedSeq, snapshotSeq) + 1, properties.getJournalRetainedSegments());
+    }
+  }
+
+  private void shutdown(Stop stop) {
+    try {
+      if (!failed && !pendingDeltas.isEmpty() && !flushInFlight) {
+        long upToSeq = nextSeq - 1;
+        if (store.flush(id, pendingDeltas, upToSeq, auditor)) {
+          pendingDeltas.clear();
+        }
+      }
+    } catch (RuntimeException exception) {
+      // Still in the journal, the next owner of the partition replays it
+      logger.warn("Final flush of balance partition {} failed", id, exception);
+    } finally {
+      closeJournal();
+      failQueued();
+      stop.done().complete(null);
+    }
+  }
+
+  private void discardUnsynced() {
+    try {
+      journal.discardUnsynced();
+    } catch (RuntimeException exception) {
+      logger.warn("Unsynced journal of balance partition {} could not be discarded", id, exception);
+    }
+  }
+
+  // After a failure the journal is not synced again, that would make the changes that were not approved durable
+  private void closeJournal() {
+    if (failed) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (RuntimeException exception) {
+      logger.warn("Journal of balance partition {} could not be closed", id, exception);
+    }
+  }
+
+  private void failQueued() {
+    List<Command> leftOver = new ArrayList<>();
+    queue.drainTo(leftOver);
+    for (Command command : leftOver) {
+      if (command instanceof Change change) {
+        change.result().completeExceptionally(new PartitionNotOwnedException(id));
+      }
+    }
+  }
+
+  private sealed interface Command
+      permits Change, Flush, FlushDone, TakeSnapshot, SnapshotDone, Stop {}
+
+  // delta > 0 is a debit (more amount used), delta < 0 a credit
+  private record Change(
+      String cardNumber,
+      int delta,
+      String idempotencyKey,
+      CompletableFuture<BalanceDecision> result)
+      implements Command {}
+
+  private record Flush() implements Command {}
+
+  private record FlushDone(
+      Map<String, Integer> deltas, long upToSeq, boolean flushed, boolean leaseLost)
+      implements Command {}
+
+  private record TakeSnapshot() implements Command {}
+
+  private record SnapshotDone(long seq, boolean written) implements Command {}
+
+  private record Stop(CompletableFuture<Void> done) implements Command {}
+
+  private record Answer(CompletableFuture<BalanceDecision> result, BalanceDecision decision) {}
+}
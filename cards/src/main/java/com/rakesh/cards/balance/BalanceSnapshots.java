@@ -0,0 +1,142 @@
+package com.rakesh.cards.balance;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/*Periodic snapshots of the balances of a partition, so that a new owner rebuilds them by replaying only the journal
+written after the latest snapshot, the recovery time is bounded by the snapshot interval and not by the size of the
+journal. A snapshot is written to a temp file and renamed, so a crash never leaves half a snapshot behind, and the
+previous one is kept in case the latest can not be read.
+File: balance count (int), per card its number (utf), amount used (int) and available amount (int), idempotency key
+count (int), the keys (utf), crc32 of all of it (long).*/
+final class BalanceSnapshots {
+
+  private static final String PREFIX = "snapshot-";
+  private static final String SUFFIX = ".bin";
+  private static final int KEPT = 2;
+
+  private BalanceSnapshots() {
+    // restrict instantiation
+  }
+
+  record Snapshot(long seq, Map<String, int[]> balances, List<String> idempotencyKeys) {
+
+    static Snapshot empty() {
+      return new Snapshot(0L, new HashMap<>(), new ArrayList<>());
+    }
+  }
+
+  static void write(Path directory, Snapshot snapshot) {
+    Path target = directory.resolve(PREFIX + snapshot.seq() + SUFFIX);
+    Path temp = directory.resolve(PREFIX + snapshot.seq() + ".tmp");
+    try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+      CheckedOutputStream checked = new CheckedOutputStream(file, new CRC32());
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(checked, 1 << 16));
+      output.writeInt(snapshot.balances().size());
+      for (Map.Entry<String, int[]> balance : snapshot.balances().entrySet()) {
+        output.writeUTF(balance.getKey());
+        output.writeInt(balance.getValue()[0]);
+        output.writeInt(balance.getValue()[1]);
+      }
+      output.writeInt(snapshot.idempotencyKeys().size());
+      for (String idempotencyKey : snapshot.idempotencyKeys()) {
+        output.writeUTF(idempotencyKey);
+      }
+      output.flush();
+      new DataOutputStream(file).writeLong(checked.getChecksum().getValue());
+      file.getFD().sync();
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+    try {
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+      List<Path> snapshots = snapshots(directory);
+      for (int i = 0; i < snapshots.size() - KEPT; i++) {
+        Files.deleteIfExists(snapshots.get(i));
+      }
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  // The latest snapshot that can be read, an empty one at seq 0 if there is none
+  static Snapshot readLatest(Path directory) {
+    List<Path> snapshots = snapshots(directory);
+    for (int i = snapshots.size() - 1; i >= 0; i--) {
+      Snapshot snapshot = read(snapshots.get(i));
+      if (snapshot != null) {
+        return snapshot;
+      }
+    }
+    return Snapshot.empty();
+  }
+
+  private static Snapshot read(Path file) {
+    try {
+      byte[] content = Files.readAllBytes(file);
+      int dataBytes = content.length - Long.BYTES;
+      if (dataBytes < 0) {
+        return null;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(content, 0, dataBytes);
+      if (crc.getValue() != ByteBuffer.wrap(content, dataBytes, Long.BYTES).getLong()) {
+        return null;
+      }
+      DataInputStream input =
+          new DataInputStream(new ByteArrayInputStream(content, 0, dataBytes));
+      int balanceCount = input.readInt();
+      Map<String, int[]> balances = new HashMap<>(Math.max(16, balanceCount * 4 / 3 + 1));
+      for (int i = 0; i < balanceCount; i++) {
+        balances.put(input.readUTF(), new int[] {input.readInt(), input.readInt()});
+      }
+      int keyCount = input.readInt();
+      List<String> idempotencyKeys = new ArrayList<>(keyCount);
+      for (int i = 0; i < keyCount; i++) {
+        idempotencyKeys.add(input.readUTF());
+      }
+      return new Snapshot(seq(file), balances, idempotencyKeys);
+    } catch (IOException exception) {
+      return null;
+    }
+  }
+
+  private static List<Path> snapshots(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(
+              file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+              })
+          .sorted((first, second) -> Long.compare(seq(first), seq(second)))
+          .toList();
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static long seq(Path snapshot) {
+    String name = snapshot.getFileName().toString();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+}
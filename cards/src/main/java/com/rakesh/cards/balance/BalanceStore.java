@@ -0,0 +1,129 @@
+package com.rakesh.cards.balance;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*DB side of the balance engine. The balance_partition_lease table has one row per partition with its owner, the time
+its lease runs out (DB clock, so the clocks of the instances do not matter) and the last sequence number of its
+journal that is in the cards table. Plain JDBC, the statements are conditional updates and the engine needs their row
+counts, and it always goes to the primary.*/
+class BalanceStore {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final String owner;
+  private final long leaseMicros;
+
+  BalanceStore(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      String owner,
+      Duration leaseDuration) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.owner = owner;
+    this.leaseMicros = leaseDuration.toNanos() / 1000;
+  }
+
+  String owner() {
+    return owner;
+  }
+
+  void createMissing(int partitions) {
+    List<Object[]> rows = new ArrayList<>(partitions);
+    for (int partition = 0; partition < partitions; partition++) {
+      rows.add(new Object[] {partition});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT IGNORE INTO balance_partition_lease (partition_id, owner, lease_until, flushed_seq)"
+            + " VALUES (?, NULL, NULL, 0)",
+        rows);
+  }
+
+  // Takes the partition if nobody holds a live lease on it
+  boolean tryAcquire(int partition) {
+    return jdbcTemplate.update(
+            "UPDATE balance_partition_lease SET owner = ?,"
+                + " lease_until = DATE_ADD(NOW(3), INTERVAL ? MICROSECOND)"
+                + " WHERE partition_id = ? AND (owner IS NULL OR lease_until IS NULL OR lease_until < NOW(3))",
+            owner,
+            leaseMicros,
+            partition)
+        == 1;
+  }
+
+  // Extends the lease, false when it ran out or was taken over meanwhile
+  boolean renew(int partition) {
+    return jdbcTemplate.update(
+            "UPDATE balance_partition_lease SET lease_until = DATE_ADD(NOW(3), INTERVAL ? MICROSECOND)"
+                + " WHERE partition_id = ? AND owner = ? AND lease_until >= NOW(3)",
+            leaseMicros,
+            partition,
+            owner)
+        == 1;
+  }
+
+  void release(int partition) {
+    jdbcTemplate.update(
+        "UPDATE balance_partition_lease SET owner = NULL, lease_until = NULL"
+            + " WHERE partition_id = ? AND owner = ?",
+        partition,
+        owner);
+  }
+
+  long flushedSeq(int partition) {
+    Long flushedSeq =
+        jdbcTemplate.queryForObject(
+            "SELECT flushed_seq FROM balance_partition_lease WHERE partition_id = ?",
+            Long.class,
+            partition);
+    return flushedSeq != null ? flushedSeq : 0L;
+  }
+
+  /*Adds the net changes to the cards rows and moves flushed_seq in one transaction. The lease row is updated first
+  and only while the lease is ours, so an owner that lost its lease (eg:- after a long GC pause) can not write over
+  the new owner, its transaction is rolled back and false is returned.*/
+  boolean flush(int partition, Map<String, Integer> deltas, long upToSeq, String auditor) {
+    Boolean flushed =
+        transactionTemplate.execute(
+            status -> {
+              int leased =
+                  jdbcTemplate.update(
+                      "UPDATE balance_partition_lease SET flushed_seq = ?"
+                          + " WHERE partition_id = ? AND owner = ? AND lease_until >= NOW(3)",
+                      upToSeq,
+                      partition,
+                      owner);
+              if (leased != 1) {
+                status.setRollbackOnly();
+                return false;
+              }
+              LocalDateTime now = LocalDateTime.now();
+              List<Object[]> rows = new ArrayList<>(deltas.size());
+              deltas.forEach(
+                  (cardNumber, delta) ->
+                      rows.add(new Object[] {delta, delta, now, auditor, cardNumber}));
+              jdbcTemplate.batchUpdate(
+                  "UPDATE cards SET amount_used = amount_used + ?, available_amount = available_amount - ?,"
+                      + " updated_at = ?, updated_by = ? WHERE card_number = ?",
+                  rows);
+              return true;
+            });
+    return Boolean.TRUE.equals(flushed);
+  }
+
+  // Current balance of the card in the cards table, null when there is no such card
+  int[] loadBalance(String cardNumber) {
+    List<int[]> balances =
+        jdbcTemplate.query(
+            "SELECT amount_used, available_amount FROM cards WHERE card_number = ?",
+            (resultSet, rowNumber) -> new int[] {resultSet.getInt(1), resultSet.getInt(2)},
+            cardNumber);
+    return balances.isEmpty() ? null : balances.get(0);
+  }
+}
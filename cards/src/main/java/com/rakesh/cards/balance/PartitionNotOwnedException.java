@@ -0,0 +1,14 @@
+package com.rakesh.cards.balance;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/*The card belongs to a balance partition owned by another instance (or by none yet), the request has to be retried,
+the load balancer eventually hits the owner.*/
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PartitionNotOwnedException extends RuntimeException {
+
+  public PartitionNotOwnedException(int partition) {
+    super("Balance partition " + partition + " is not owned by this instance, please retry");
+  }
+}
@@ -0,0 +1,237 @@
+package com.rakesh.cards.balance;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*Append only journal of the balance changes of one partition, the history of every debit and credit of its cards.
+It is written to memory mapped segment files of a fixed size, so an append is a copy into memory and all the I/O
+is sequential. Changes are acknowledged only after sync(), one msync for the whole batch of a partition (group
+commit). The segments are named after the sequence number of their first record and the owner writing them, a new
+one is started when the current one is full and old ones are deleted by deleteBefore(). An owner that lost the
+partition (eg:- after a long GC pause) never maps the file of the new owner, and a segment is replayed only up to
+the first sequence number of the next one, which is where the new owner took over.
+Record: length (int), crc32 of the rest (int), seq (long), timestamp (long), delta (int), card number length
+(short), card number, idempotency key length (short), idempotency key (utf-8). The mapped file is zero filled, a
+zero length ends a segment and a bad crc (torn write at a crash) ends the replay.*/
+class SpendJournal implements AutoCloseable {
+
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+  private static final String SUFFIX = ".journal";
+
+  private final Path directory;
+  private final String owner;
+  private final int segmentBytes;
+  private final CRC32 crc = new CRC32();
+  private MappedByteBuffer segment;
+  private int syncedUpTo;
+
+  /**
+   * @param directory - journal directory of the partition
+   * @param owner - instance writing the journal, part of the segment names
+   * @param segmentBytes - size of a segment file
+   * @param nextSeq - sequence number of the next record, a new segment is started with it
+   */
+  SpendJournal(Path directory, String owner, int segmentBytes, long nextSeq) {
+    this.directory = directory;
+    this.owner = owner.replaceAll("[^A-Za-z0-9._-]", "_");
+    this.segmentBytes = segmentBytes;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+    /*Segments starting at or after nextSeq hold nothing that was replayed, they were started by an owner that lost
+    the partition (or crashed) before any of their records were durable.*/
+    for (Path segment : segments(directory)) {
+      if (firstSeq(segment) >= nextSeq) {
+        delete(segment);
+      }
+    }
+    openSegment(nextSeq);
+  }
+
+  void append(long seq, long timestamp, int delta, String cardNumber, String idempotencyKey) {
+    byte[] card = cardNumber.getBytes(StandardCharsets.UTF_8);
+    byte[] key =
+        idempotencyKey != null ? idempotencyKey.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    int payloadBytes = Long.BYTES * 2 + Integer.BYTES + Short.BYTES * 2 + card.length + key.length;
+    // Room is left for the zero length that ends the segment
+    if (segment.remaining() < HEADER_BYTES + payloadBytes + Integer.BYTES) {
+      sync();
+      openSegment(seq);
+    }
+    int start = segment.position();
+    segment.putInt(payloadBytes).putInt(0);
+    segment
+        .putLong(seq)
+        .putLong(timestamp)
+        .putInt(delta)
+        .putShort((short) card.length)
+        .put(card)
+        .putShort((short) key.length)
+        .put(key);
+    crc.reset();
+    crc.update(segment.slice(start + HEADER_BYTES, payloadBytes));
+    segment.putInt(start + Integer.BYTES, (int) crc.getValue());
+  }
+
+  // Makes everything appended so far durable, once per batch of requests
+  void sync() {
+    int position = segment.position();
+    if (position > syncedUpTo) {
+      segment.force(syncedUpTo, position - syncedUpTo);
+      syncedUpTo = position;
+    }
+  }
+
+  /*Drops what was appended since the last sync, after that sync failed. The bytes are zeroed, a zero length ends the
+  replay, and forced, otherwise the OS could still write the pages back later and a new owner would replay changes
+  that were never approved.*/
+  void discardUnsynced() {
+    int position = segment.position();
+    if (position > syncedUpTo) {
+      segment.put(syncedUpTo, new byte[position - syncedUpTo]);
+      segment.position(syncedUpTo);
+      segment.force(syncedUpTo, position - syncedUpTo);
+    }
+  }
+
+  /*Deletes the oldest segments whose records are all before the given sequence number, keeping at least
+  retainedSegments of them as history. The current segment is never deleted.*/
+  void deleteBefore(long seq, int retainedSegments) {
+    List<Path> segments = segments(directory);
+    int deletable = segments.size() - 1 - retainedSegments;
+    for (int i = 0; i < deletable && firstSeq(segments.get(i + 1)) <= seq; i++) {
+      delete(segments.get(i));
+    }
+  }
+
+  /**
+   * @param directory - journal directory of the partition
+   * @param afterSeq - records up to this sequence number are skipped
+   * @param consumer - gets every record after afterSeq, in order
+   * @return the last sequence number found in the journal, or afterSeq if there is none after it
+   */
+  static long replay(Path directory, long afterSeq, RecordConsumer consumer) {
+    long lastSeq = afterSeq;
+    CRC32 crc = new CRC32();
+    List<Path> segments = segments(directory);
+    for (int i = 0; i < segments.size(); i++) {
+      Path file = segments.get(i);
+      // Records from there on were written by an owner that had lost the partition already
+      long nextFirstSeq = i + 1 < segments.size() ? firstSeq(segments.get(i + 1)) : Long.MAX_VALUE;
+      ByteBuffer content = map(file, FileChannel.MapMode.READ_ONLY, size(file));
+      while (content.remaining() >= HEADER_BYTES) {
+        int payloadBytes = content.getInt();
+        int expectedCrc = content.getInt();
+        if (payloadBytes <= 0 || payloadBytes > content.remaining()) {
+          break;
+        }
+        ByteBuffer payload = content.slice(content.position(), payloadBytes);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+          break;
+        }
+        content.position(content.position() + payloadBytes);
+        long seq = payload.getLong();
+        if (seq >= nextFirstSeq) {
+          break;
+        }
+        if (seq <= afterSeq) {
+          continue;
+        }
+        long timestamp = payload.getLong();
+        int delta = payload.getInt();
+        String cardNumber = readString(payload);
+        String idempotencyKey = readString(payload);
+        consumer.accept(
+            seq, timestamp, delta, cardNumber, idempotencyKey.isEmpty() ? null : idempotencyKey);
+        lastSeq = Math.max(lastSeq, seq);
+      }
+    }
+    return lastSeq;
+  }
+
+  @Override
+  public void close() {
+    sync();
+  }
+
+  private void openSegment(long firstSeq) {
+    Path file = directory.resolve(firstSeq + "-" + owner + SUFFIX);
+    segment = map(file, FileChannel.MapMode.READ_WRITE, segmentBytes);
+    syncedUpTo = 0;
+  }
+
+  // The mapping stays valid after the channel is closed
+  private static MappedByteBuffer map(Path file, FileChannel.MapMode mode, long bytes) {
+    StandardOpenOption[] options =
+        mode == FileChannel.MapMode.READ_ONLY
+            ? new StandardOpenOption[] {StandardOpenOption.READ}
+            : new StandardOpenOption[] {
+              StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+            };
+    try (FileChannel channel = FileChannel.open(file, options)) {
+      return channel.map(mode, 0, bytes);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getShort()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long size(Path file) {
+    try {
+      return Files.size(file);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static List<Path> segments(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+          .sorted((first, second) -> Long.compare(firstSeq(first), firstSeq(second)))
+          .toList();
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  private static long firstSeq(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(0, name.indexOf('-')));
+  }
+
+  private static void delete(Path segment) {
+    try {
+      Files.deleteIfExists(segment);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+
+  @FunctionalInterface
+  interface RecordConsumer {
+    void accept(long seq, long timestamp, int delta, String cardNumber, String idempotencyKey);
+  }
+}
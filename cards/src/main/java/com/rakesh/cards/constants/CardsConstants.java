@@ -11,6 +11,17 @@ public final class CardsConstants {
   public static final String  STATUS_417 = "417";
   public static final String  MESSAGE_417_UPDATE= "Update operation failed. Please try again or contact Dev team";
   public static final String  MESSAGE_417_DELETE= "Delete operation failed. Please try again or contact Dev team";
+  public static final int  FETCH_BATCH_LIMIT = 500;
+  public static final String  CARD_NUMBER_SEQUENCE = "card_number";
+  public static final String  CARD_MOBILE_NUMBER_KEY = "uk_cards_mobile_number";
+  public static final String  AUTHORIZATION_APPROVED = "APPROVED";
+  public static final String  AUTHORIZATION_DECLINED = "DECLINED";
+  public static final int  BULK_CREATE_LIMIT = 10_000;
+  public static final int  BULK_CREATE_CHUNK_SIZE = 500;
+  public static final String  BULK_CREATED = "CREATED";
+  public static final String  BULK_DUPLICATE = "DUPLICATE";
+  public static final String  BULK_INVALID = "INVALID";
+  public static final String  BULK_FAILED = "FAILED";
   private CardsConstants() {
     // restrict instantiation
   }
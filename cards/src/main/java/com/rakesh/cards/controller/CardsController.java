@@ -1,6 +1,9 @@
 package com.rakesh.cards.controller;
 
 import com.rakesh.cards.constants.CardsConstants;
+import com.rakesh.cards.dto.AuthorizationRequestDto;
+import com.rakesh.cards.dto.AuthorizationResponseDto;
+import com.rakesh.cards.dto.CardBulkCreateResultDto;
 import com.rakesh.cards.dto.CardsContactInfoDto;
 import com.rakesh.cards.dto.CardsDto;
 import com.rakesh.cards.dto.ErrorResponseDto;
@@ -12,7 +15,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -80,6 +86,33 @@ public class CardsController {
         .body(new ResponseDto(CardsConstants.STATUS_201, CardsConstants.MESSAGE_201));
   }
 
+  @Operation(
+      summary = "Create Cards in bulk REST API",
+      description =
+          "REST API to create cards for up to "
+              + CardsConstants.BULK_CREATE_LIMIT
+              + " mobile numbers in a single call, with the outcome of every mobile number",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/create/bulk")
+  public ResponseEntity<List<CardBulkCreateResultDto>> createCards(
+      @RequestBody
+          @NotEmpty(message = "Mobile numbers can not be empty")
+          @Size(
+              max = CardsConstants.BULK_CREATE_LIMIT,
+              message = "At most " + CardsConstants.BULK_CREATE_LIMIT + " mobile numbers are allowed")
+          List<String> mobileNumbers) {
+    logger.debug("createCards started for {} mobile numbers", mobileNumbers.size());
+    List<CardBulkCreateResultDto> results = iCardsService.createCards(mobileNumbers);
+    logger.debug("createCards ended");
+    return ResponseEntity.status(HttpStatus.OK).body(results);
+  }
+
   @Operation(
       summary = "Fetch Card Details REST API",
       description = "REST API to fetch card details based on a mobile number",
@@ -101,6 +134,39 @@ public class CardsController {
     return ResponseEntity.status(HttpStatus.OK).body(cardsDto);
   }
 
+  @Operation(
+      summary = "Fetch Card Details in bulk REST API",
+      description =
+          "REST API to fetch card details of up to "
+              + CardsConstants.FETCH_BATCH_LIMIT
+              + " mobile numbers in a single call",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/fetch/batch")
+  public ResponseEntity<List<CardsDto>> fetchCardDetailsBatch(
+      @RequestHeader("eazybank-correlation-id") String correlationId,
+      @RequestBody
+          @NotEmpty(message = "Mobile numbers can not be empty")
+          @Size(
+              max = CardsConstants.FETCH_BATCH_LIMIT,
+              message = "At most " + CardsConstants.FETCH_BATCH_LIMIT + " mobile numbers are allowed")
+          List<
+                  @Pattern(
+                      regexp = "(^$|[0-9]{10})",
+                      message = "Mobile number must be 10 digits")
+                  String>
+              mobileNumbers) {
+    logger.debug("fetchCardDetailsBatch started for {} mobile numbers", mobileNumbers.size());
+    List<CardsDto> cardsDtos = iCardsService.fetchCards(mobileNumbers);
+    logger.debug("fetchCardDetailsBatch ended");
+    return ResponseEntity.status(HttpStatus.OK).body(cardsDtos);
+  }
+
   @Operation(
       summary = "Update Card Details REST API",
       description = "REST API to update card details based on a card number",
@@ -124,6 +190,53 @@ public class CardsController {
     }
   }
 
+  @Operation(
+      summary = "Authorize Card Spend REST API",
+      description =
+          "REST API to debit an amount from a card if enough amount is available, the decision is APPROVED or"
+              + " DECLINED",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "HTTP Status NOT_FOUND",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/authorize")
+  public ResponseEntity<AuthorizationResponseDto> authorize(
+      @Valid @RequestBody AuthorizationRequestDto authorizationRequestDto) {
+    AuthorizationResponseDto authorizationResponseDto =
+        iCardsService.authorize(authorizationRequestDto);
+    return ResponseEntity.status(HttpStatus.OK).body(authorizationResponseDto);
+  }
+
+  @Operation(
+      summary = "Credit Card REST API",
+      description =
+          "REST API to give back an amount to a card (refund or payment), at most the amount used. The decision is"
+              + " APPROVED or DECLINED",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "HTTP Status NOT_FOUND",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/credit")
+  public ResponseEntity<AuthorizationResponseDto> credit(
+      @Valid @RequestBody AuthorizationRequestDto authorizationRequestDto) {
+    AuthorizationResponseDto authorizationResponseDto = iCardsService.credit(authorizationRequestDto);
+    return ResponseEntity.status(HttpStatus.OK).body(authorizationResponseDto);
+  }
+
   @Operation(
       summary = "Delete Card Details REST API",
       description = "REST API to delete Card details based on a mobile number",
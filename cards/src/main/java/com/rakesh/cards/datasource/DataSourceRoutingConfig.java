@@ -0,0 +1,75 @@
+package com.rakesh.cards.datasource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/*Primary and replica pools of the cards database, only with datasource-routing.enabled=true.*/
+@Configuration
+@ConditionalOnProperty(prefix = "datasource-routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+    return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+  }
+
+  @Bean
+  public ReadYourWrites readYourWrites(DataSourceRoutingProperties properties) {
+    return new ReadYourWrites(properties);
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      HikariDataSource primaryDataSource,
+      ReadYourWrites readYourWrites,
+      DataSourceRoutingProperties properties,
+      MeterRegistry meterRegistry) {
+    Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+    List<DataSourceRoutingProperties.Replica> replicaProperties = properties.getReplicas();
+    for (int i = 0; i < replicaProperties.size(); i++) {
+      DataSourceRoutingProperties.Replica replica = replicaProperties.get(i);
+      HikariConfig config = new HikariConfig();
+      primaryDataSource.copyStateTo(config);
+      String name = "replica-" + i;
+      config.setPoolName(name);
+      config.setJdbcUrl(replica.getUrl());
+      if (replica.getUsername() != null) {
+        config.setUsername(replica.getUsername());
+        config.setPassword(replica.getPassword());
+      }
+      // Gives the hikaricp_* metrics of the replica pools, tagged with pool=replica-N
+      config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+      config.setReadOnly(true);
+      replicas.put(name, new HikariDataSource(config));
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites, properties);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  @Bean
+  public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+      ReadYourWrites readYourWrites, ObjectMapper objectMapper) {
+    return new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWrites, objectMapper));
+  }
+}
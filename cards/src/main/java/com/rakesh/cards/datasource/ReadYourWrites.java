@@ -0,0 +1,72 @@
+package com.rakesh.cards.datasource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*Sessions that wrote to the cards database recently, pinned to the primary in this instance only. The session
+of a write with a JSON body is pinned by ReadYourWritesFilter.*/
+public class ReadYourWrites {
+
+  private static final ThreadLocal<String> SESSION = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> WROTE_WITHOUT_SESSION = new ThreadLocal<>();
+  private static final int PURGE_EVERY = 1024;
+
+  private final ConcurrentHashMap<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+  private final AtomicInteger writesSincePurge = new AtomicInteger();
+  private final long windowNanos;
+
+  public ReadYourWrites(DataSourceRoutingProperties properties) {
+    this.windowNanos = properties.getReadYourWritesWindow().toNanos();
+  }
+
+  public static void bind(String session) {
+    SESSION.set(session);
+  }
+
+  public static void clear() {
+    SESSION.remove();
+    WROTE_WITHOUT_SESSION.remove();
+  }
+
+  // True when the current request wrote before its session was known, see ReadYourWritesFilter
+  public static boolean wroteWithoutSession() {
+    return Boolean.TRUE.equals(WROTE_WITHOUT_SESSION.get());
+  }
+
+  public void recordWrite() {
+    String session = SESSION.get();
+    if (session == null) {
+      WROTE_WITHOUT_SESSION.set(Boolean.TRUE);
+      return;
+    }
+    pin(session);
+  }
+
+  public void pin(String session) {
+    if (windowNanos <= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    pinnedUntil.put(session, now + windowNanos);
+    if (writesSincePurge.incrementAndGet() >= PURGE_EVERY) {
+      writesSincePurge.set(0);
+      pinnedUntil.values().removeIf(until -> until - now <= 0);
+    }
+  }
+
+  public boolean isPinned() {
+    String session = SESSION.get();
+    if (session == null) {
+      return false;
+    }
+    Long until = pinnedUntil.get(session);
+    if (until == null) {
+      return false;
+    }
+    if (until - System.nanoTime() > 0) {
+      return true;
+    }
+    pinnedUntil.remove(session, until);
+    return false;
+  }
+}
@@ -0,0 +1,100 @@
+package com.rakesh.cards.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*Read only transactions go to a healthy replica, everything else to the primary. Must sit behind a
+LazyConnectionDataSourceProxy.*/
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+  private static final String PRIMARY = "primary";
+
+  private final Map<String, HikariDataSource> replicas;
+  private final ReadYourWrites readYourWrites;
+  private final int healthCheckTimeoutSeconds;
+  private final ScheduledExecutorService healthChecker;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+  private volatile List<String> healthyReplicas;
+
+  public ReplicaRoutingDataSource(
+      DataSource primary,
+      Map<String, HikariDataSource> replicas,
+      ReadYourWrites readYourWrites,
+      DataSourceRoutingProperties properties) {
+    Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+    targetDataSources.put(PRIMARY, primary);
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(primary);
+    this.replicas = replicas;
+    this.readYourWrites = readYourWrites;
+    this.healthCheckTimeoutSeconds =
+        (int) Math.max(1, properties.getHealthCheckTimeout().toSeconds());
+    this.healthyReplicas = List.of();
+    this.healthChecker =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "replica-health-check");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.healthChecker.scheduleWithFixedDelay(
+        this::checkReplicas,
+        0,
+        properties.getHealthCheckInterval().toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      if (TransactionSynchronizationManager.isActualTransactionActive()) {
+        readYourWrites.recordWrite();
+      }
+      return PRIMARY;
+    }
+    List<String> healthy = healthyReplicas;
+    if (healthy.isEmpty() || readYourWrites.isPinned()) {
+      return PRIMARY;
+    }
+    return healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size()));
+  }
+
+  private void checkReplicas() {
+    List<String> healthy = new ArrayList<>(replicas.size());
+    replicas.forEach(
+        (name, replica) -> {
+          try (Connection connection = replica.getConnection()) {
+            if (connection.isValid(healthCheckTimeoutSeconds)) {
+              healthy.add(name);
+            }
+          } catch (SQLException exception) {
+            logger.warn("Replica {} failed the health check : {}", name, exception.getMessage());
+          }
+        });
+    if (!healthy.equals(healthyReplicas)) {
+      logger.info("Healthy replicas are now {}", healthy);
+    }
+    healthyReplicas = List.copyOf(healthy);
+  }
+
+  @Override
+  public void close() {
+    healthChecker.shutdownNow();
+    replicas.values().forEach(HikariDataSource::close);
+  }
+}
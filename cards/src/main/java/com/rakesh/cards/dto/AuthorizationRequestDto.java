@@ -0,0 +1,30 @@
+package com.rakesh.cards.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Schema(name = "AuthorizationRequest", description = "Schema to hold an amount to be debited from or credited to a card")
+@Data
+public class AuthorizationRequestDto {
+
+  @NotEmpty(message = "Card Number can not be a null or empty")
+  @Pattern(regexp = "(^$|[0-9]{12})", message = "CardNumber must be 12 digits")
+  @Schema(description = "Card Number to be debited or credited", example = "100646930341")
+  private String cardNumber;
+
+  @Positive(message = "Amount should be greater than zero")
+  @Schema(description = "Amount to be debited or credited", example = "1000")
+  private int amount;
+
+  @Size(max = 100, message = "Idempotency key can have at most 100 characters")
+  @Schema(
+      description =
+          "Optional key of the request, a retry with the same key is not applied twice (honoured by the balance"
+              + " engine)",
+      example = "5f0c7a52-7b4e-4e43-9a4a-1e2f5d6c7b8a")
+  private String idempotencyKey;
+}
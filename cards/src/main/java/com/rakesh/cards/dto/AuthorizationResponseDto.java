@@ -0,0 +1,29 @@
+package com.rakesh.cards.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Schema(name = "AuthorizationResponse", description = "Schema to hold the decision on a card debit or credit")
+@Data
+@AllArgsConstructor
+public class AuthorizationResponseDto {
+
+  @Schema(description = "Card Number that was asked to be debited or credited", example = "100646930341")
+  private String cardNumber;
+
+  @Schema(description = "Amount that was asked to be debited or credited", example = "1000")
+  private int amount;
+
+  @Schema(description = "Decision, APPROVED or DECLINED", example = "APPROVED")
+  private String decision;
+
+  @Schema(description = "Why the request was declined, only given for the velocity rules")
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String reason;
+
+  public AuthorizationResponseDto(String cardNumber, int amount, String decision) {
+    this(cardNumber, amount, decision, null);
+  }
+}
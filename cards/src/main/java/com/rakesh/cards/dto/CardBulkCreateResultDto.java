@@ -0,0 +1,27 @@
+package com.rakesh.cards.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    name = "CardBulkCreateResult",
+    description = "Schema to hold the outcome of one mobile number of a bulk card creation")
+public class CardBulkCreateResultDto {
+
+  @Schema(description = "Mobile number as given in the request", example = "4354437687")
+  private String mobileNumber;
+
+  @Schema(description = "CREATED, DUPLICATE, INVALID or FAILED", example = "CREATED")
+  private String status;
+
+  @Schema(description = "Card number of the created card", example = "100646930341")
+  private String cardNumber;
+
+  @Schema(description = "Reason the card was not created")
+  private String message;
+}
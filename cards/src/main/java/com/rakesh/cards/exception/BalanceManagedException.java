@@ -0,0 +1,14 @@
+package com.rakesh.cards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/*The amounts of a card are kept by the balance engine while it is enabled, they can only change through
+authorizations and credits.*/
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class BalanceManagedException extends RuntimeException {
+
+  public BalanceManagedException(String message) {
+    super(message);
+  }
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.rakesh.cards.balance.PartitionNotOwnedException;
 import com.rakesh.cards.dto.ErrorResponseDto;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -74,4 +75,28 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
             LocalDateTime.now());
     return new ResponseEntity<>(errorResponseDTO, HttpStatus.BAD_REQUEST);
   }
+
+  @ExceptionHandler(BalanceManagedException.class)
+  public ResponseEntity<ErrorResponseDto> handleBalanceManagedException(
+      BalanceManagedException exception, WebRequest webRequest) {
+    ErrorResponseDto errorResponseDTO =
+        new ErrorResponseDto(
+            webRequest.getDescription(false),
+            HttpStatus.BAD_REQUEST,
+            exception.getMessage(),
+            LocalDateTime.now());
+    return new ResponseEntity<>(errorResponseDTO, HttpStatus.BAD_REQUEST);
+  }
+
+  @ExceptionHandler(PartitionNotOwnedException.class)
+  public ResponseEntity<ErrorResponseDto> handlePartitionNotOwnedException(
+      PartitionNotOwnedException exception, WebRequest webRequest) {
+    ErrorResponseDto errorResponseDTO =
+        new ErrorResponseDto(
+            webRequest.getDescription(false),
+            HttpStatus.SERVICE_UNAVAILABLE,
+            exception.getMessage(),
+            LocalDateTime.now());
+    return new ResponseEntity<>(errorResponseDTO, HttpStatus.SERVICE_UNAVAILABLE);
+  }
 }
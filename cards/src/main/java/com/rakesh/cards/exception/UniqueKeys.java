@@ -0,0 +1,36 @@
+package com.rakesh.cards.exception;
+
+import java.sql.SQLException;
+import java.util.Locale;
+import org.hibernate.exception.ConstraintViolationException;
+
+/*Names the unique key of schema.sql a write of a card ran into.*/
+public final class UniqueKeys {
+
+  private UniqueKeys() {
+    // restrict instantiation
+  }
+
+  /**
+   * @param failure - the exception thrown by the repository or by the commit, it is checked with all its causes
+   * @param keyName - name of the unique key in schema.sql
+   * @return true if the failure is a violation of the given unique key
+   */
+  public static boolean isViolated(Throwable failure, String keyName) {
+    String key = keyName.toLowerCase(Locale.ROOT);
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      // MySQL 8 reports the key as <table>.<key name>
+      if (cause instanceof ConstraintViolationException violation
+          && violation.getConstraintName() != null
+          && violation.getConstraintName().toLowerCase(Locale.ROOT).endsWith(key)) {
+        return true;
+      }
+      if (cause instanceof SQLException sqlException
+          && sqlException.getMessage() != null
+          && sqlException.getMessage().toLowerCase(Locale.ROOT).contains(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
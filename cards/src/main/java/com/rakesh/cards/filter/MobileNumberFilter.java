@@ -0,0 +1,186 @@
+package com.rakesh.cards.filter;
+
+import com.rakesh.cards.repository.CardsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*Bloom filter of the mobile numbers having a card. It does not save queries: without it createCard would not look
+the mobile number up at all, the unique key on mobile_number rejects a duplicate at the insert. Its only benefit is
+that a repeated create of a number it holds is looked up first and fails without leasing a card number from the
+NumberAllocator, which a duplicate caught by the unique key has already spent. That costs one look up for every
+number it holds, the duplicates and the false positives, a number definitely not in it goes straight to the insert.
+It is per instance, built in the background at startup from a streaming scan of the cards table and kept up to date
+by the creates and deletes of this instance. A number created by another instance is missing from it and is left to
+the unique key, the filter never decides on its own.*/
+@Component
+public class MobileNumberFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(MobileNumberFilter.class);
+
+  private final MobileNumberFilterProperties properties;
+  private final CardsRepository cardsRepository;
+  private final TransactionTemplate scanTransaction;
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  private final AtomicLong deletedSinceRebuild = new AtomicLong();
+  private final Counter absent;
+  private final Counter present;
+  private final Counter falsePositive;
+  private final Counter notReady;
+  // null until the first build is done, until then the creates are left to the unique key
+  private volatile ScalableBloomFilter filter;
+  // The filter being built, the creates during a rebuild go into both
+  private volatile ScalableBloomFilter building;
+
+  public MobileNumberFilter(
+      MobileNumberFilterProperties properties,
+      CardsRepository cardsRepository,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.cardsRepository = cardsRepository;
+    this.scanTransaction = new TransactionTemplate(transactionManager);
+    this.scanTransaction.setReadOnly(true);
+    this.absent = counter(meterRegistry, "absent");
+    this.present = counter(meterRegistry, "present");
+    this.falsePositive = counter(meterRegistry, "false_positive");
+    this.notReady = counter(meterRegistry, "not_ready");
+    Gauge.builder(
+            "mobile.number.filter.size",
+            this,
+            f -> stat(f, ScalableBloomFilter::approximateElementCount))
+        .description("Mobile numbers in the bloom filter")
+        .register(meterRegistry);
+    Gauge.builder(
+            "mobile.number.filter.memory", this, f -> stat(f, ScalableBloomFilter::sizeInBytes))
+        .description("Memory taken by the bits of the bloom filter")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder(
+            "mobile.number.filter.expected.fpp",
+            this,
+            f -> stat(f, ScalableBloomFilter::expectedFalsePositiveRate))
+        .description("False positive rate expected from how full the bloom filter is")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildOnStartup() {
+    if (properties.isEnabled()) {
+      rebuildInBackground();
+    }
+  }
+
+  /**
+   * @param mobileNumber - mobile number of a card about to be created
+   * @return true if the mobile number may have a card and is worth a look up, false if it definitely has none known
+   *     to this instance or the filter is disabled or not built yet, the unique key is left to reject it then
+   */
+  public boolean needsLookup(String mobileNumber) {
+    if (!properties.isEnabled()) {
+      return false;
+    }
+    ScalableBloomFilter current = filter;
+    if (current == null) {
+      notReady.increment();
+      return false;
+    }
+    if (current.mightContain(mobileNumber)) {
+      return true;
+    }
+    absent.increment();
+    return false;
+  }
+
+  /**
+   * @param found - outcome of the look up that needsLookup asked for, a miss is a false positive of the filter
+   */
+  public void lookedUp(boolean found) {
+    if (filter != null) {
+      (found ? present : falsePositive).increment();
+    }
+  }
+
+  public void added(String mobileNumber) {
+    ScalableBloomFilter current = filter;
+    if (current != null) {
+      current.put(mobileNumber);
+    }
+    ScalableBloomFilter next = building;
+    if (next != null) {
+      next.put(mobileNumber);
+    }
+  }
+
+  // The number stays in the filter, it costs a look up per create of it until the next rebuild
+  public void removed() {
+    ScalableBloomFilter current = filter;
+    if (current != null
+        && deletedSinceRebuild.incrementAndGet()
+            > current.approximateElementCount() * properties.getRebuildAfterDeletedRatio()) {
+      rebuildInBackground();
+    }
+  }
+
+  private void rebuildInBackground() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      return;
+    }
+    Thread thread = new Thread(this::rebuild, "mobile-number-filter");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void rebuild() {
+    try {
+      ScalableBloomFilter next =
+          new ScalableBloomFilter(
+              properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+      deletedSinceRebuild.set(0);
+      building = next;
+      long start = System.nanoTime();
+      scanTransaction.executeWithoutResult(
+          status -> {
+            try (Stream<String> mobileNumbers = cardsRepository.streamAllMobileNumbers()) {
+              mobileNumbers.forEach(next::put);
+            }
+          });
+      filter = next;
+      logger.info(
+          "Mobile number filter built with {} numbers, {} bytes, in {} ms",
+          next.approximateElementCount(),
+          next.sizeInBytes(),
+          (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException exception) {
+      // The old filter (or none) stays, the next delete past the ratio tries again
+      logger.warn("Could not build the mobile number filter", exception);
+    } finally {
+      building = null;
+      rebuilding.set(false);
+    }
+  }
+
+  private static double stat(
+      MobileNumberFilter owner, ToDoubleFunction<ScalableBloomFilter> statistic) {
+    ScalableBloomFilter current = owner.filter;
+    return current == null ? 0 : statistic.applyAsDouble(current);
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("mobile.number.filter.checks")
+        .description("Creates checked against the mobile number filter, by result")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
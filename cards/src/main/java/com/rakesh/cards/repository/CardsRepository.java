@@ -1,14 +1,76 @@
 package com.rakesh.cards.repository;
 
 import com.rakesh.cards.entity.Cards;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.stream.Stream;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface CardsRepository extends JpaRepository<Cards, Long> {
+public interface CardsRepository extends NaturalIdRepository<Cards, Long> {
 
   Optional<Cards> findByMobileNumber(String mobileNumber);
 
-  Optional<Cards> findByCardNumber(String cardNumber);
+  // cardNumber is the natural id of Cards
+  default Optional<Cards> findByCardNumber(String cardNumber) {
+    return findBySimpleNaturalId(cardNumber);
+  }
+
+  List<Cards> findAllByMobileNumberIn(Collection<String> mobileNumbers);
+
+  boolean existsByCardNumber(String cardNumber);
+
+  boolean existsByMobileNumber(String mobileNumber);
+
+  @Query("select c.mobileNumber from Cards c where c.mobileNumber in :mobileNumbers")
+  List<String> findExistingMobileNumbers(@Param("mobileNumbers") Collection<String> mobileNumbers);
+
+  /*Every mobile number having a card, for building the MobileNumberFilter. Integer.MIN_VALUE as fetch size makes
+  the MySQL driver stream the rows instead of reading them all in memory first, has to be closed and used inside a
+  transaction.*/
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select c.mobileNumber from Cards c")
+  Stream<String> streamAllMobileNumbers();
+
+  /*Debits the card only if enough amount is available, the check and the write are one statement so the DB row
+  lock makes concurrent debits of the same card queue up instead of overwriting each other. Nothing is loaded,
+  the number of updated rows (0 or 1) is the decision.*/
+  @Transactional
+  @Modifying
+  @Query(
+      "update Cards c set c.amountUsed = c.amountUsed + :amount,"
+          + " c.availableAmount = c.availableAmount - :amount,"
+          + " c.updatedAt = :updatedAt, c.updatedBy = :updatedBy"
+          + " where c.cardNumber = :cardNumber and c.availableAmount >= :amount")
+  int debitIfAvailable(
+      @Param("cardNumber") String cardNumber,
+      @Param("amount") int amount,
+      @Param("updatedAt") LocalDateTime updatedAt,
+      @Param("updatedBy") String updatedBy);
+
+  // Gives back a spend, at most the amount used, same single statement as debitIfAvailable
+  @Transactional
+  @Modifying
+  @Query(
+      "update Cards c set c.amountUsed = c.amountUsed - :amount,"
+          + " c.availableAmount = c.availableAmount + :amount,"
+          + " c.updatedAt = :updatedAt, c.updatedBy = :updatedBy"
+          + " where c.cardNumber = :cardNumber and c.amountUsed >= :amount")
+  int creditIfUsed(
+      @Param("cardNumber") String cardNumber,
+      @Param("amount") int amount,
+      @Param("updatedAt") LocalDateTime updatedAt,
+      @Param("updatedBy") String updatedBy);
 }
@@ -1,6 +1,10 @@
 package com.rakesh.cards.service;
 
+import com.rakesh.cards.dto.AuthorizationRequestDto;
+import com.rakesh.cards.dto.AuthorizationResponseDto;
+import com.rakesh.cards.dto.CardBulkCreateResultDto;
 import com.rakesh.cards.dto.CardsDto;
+import java.util.List;
 
 public interface ICardsService {
 
@@ -9,18 +13,43 @@ public interface ICardsService {
    */
   void createCard(String mobileNumber);
 
+  /**
+   * @param mobileNumbers - Mobile Numbers of the Customers
+   * @return the outcome of every mobile number, in the order they were given
+   */
+  List<CardBulkCreateResultDto> createCards(List<String> mobileNumbers);
+
   /**
    * @param mobileNumber - Input mobile Number
    * @return Card Details based on a given mobileNumber
    */
   CardsDto fetchCard(String mobileNumber);
 
+  /**
+   * @param mobileNumbers - Input mobile Numbers
+   * @return Card Details of all the given mobileNumbers that have a card, fetched in a single query
+   */
+  List<CardsDto> fetchCards(List<String> mobileNumbers);
+
   /**
    * @param cardsDto - CardsDto Object
    * @return boolean indicating if the update of card details is successful or not
    */
   boolean updateCard(CardsDto cardsDto);
 
+  /**
+   * @param authorizationRequestDto - card number and amount to be debited
+   * @return APPROVED if the amount was debited, DECLINED if the card does not have enough available amount or the
+   *     debit breaks a velocity rule
+   */
+  AuthorizationResponseDto authorize(AuthorizationRequestDto authorizationRequestDto);
+
+  /**
+   * @param authorizationRequestDto - card number and amount to be credited
+   * @return APPROVED if the amount was credited, DECLINED if it is more than the amount used of the card
+   */
+  AuthorizationResponseDto credit(AuthorizationRequestDto authorizationRequestDto);
+
   /**
    * @param mobileNumber - Input Mobile Number
    * @return boolean indicating if the delete of card details is successful or not
@@ -1,35 +1,191 @@
 package com.rakesh.cards.service.impl;
 
+import com.rakesh.cards.balance.BalanceDecision;
+import com.rakesh.cards.balance.BalanceEngine;
 import com.rakesh.cards.constants.CardsConstants;
+import com.rakesh.cards.dto.AuthorizationRequestDto;
+import com.rakesh.cards.dto.AuthorizationResponseDto;
+import com.rakesh.cards.dto.CardBulkCreateResultDto;
 import com.rakesh.cards.dto.CardsDto;
 import com.rakesh.cards.entity.Cards;
+import com.rakesh.cards.exception.BalanceManagedException;
 import com.rakesh.cards.exception.CardAlreadyExistsException;
 import com.rakesh.cards.exception.ResourceNotFoundException;
+import com.rakesh.cards.exception.UniqueKeys;
+import com.rakesh.cards.filter.MobileNumberFilter;
+import com.rakesh.cards.generator.NumberAllocator;
 import com.rakesh.cards.mapper.CardsMapper;
 import com.rakesh.cards.repository.CardsRepository;
 import com.rakesh.cards.service.ICardsService;
-import java.util.Optional;
-import java.util.Random;
+import com.rakesh.cards.velocity.VelocityChecker;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @AllArgsConstructor
 public class CardsServiceImpl implements ICardsService {
 
+  private static final Logger logger = LoggerFactory.getLogger(CardsServiceImpl.class);
+  private static final Pattern MOBILE_NUMBER = Pattern.compile("[0-9]{10}");
+
   private CardsRepository cardsRepository;
+  private NumberAllocator numberAllocator;
+  // A bulk update skips the entity listeners, so the audit columns are set by hand
+  private AuditorAware<String> auditorAware;
+  // Only there when balance-engine.enabled is true
+  private ObjectProvider<BalanceEngine> balanceEngine;
+  private VelocityChecker velocityChecker;
+  private MobileNumberFilter mobileNumberFilter;
+  private TransactionTemplate transactionTemplate;
 
   /**
    * @param mobileNumber - Mobile Number of the Customer
    */
   @Override
+  @Transactional
   public void createCard(String mobileNumber) {
-    Optional<Cards> optionalCards = cardsRepository.findByMobileNumber(mobileNumber);
-    if (optionalCards.isPresent()) {
-      throw new CardAlreadyExistsException(
+    /*The unique key rejects a duplicate in any case, the look up only spares leasing a card number for it and only
+    runs when the bloom filter may hold the number, see MobileNumberFilter.*/
+    if (mobileNumberFilter.needsLookup(mobileNumber)) {
+      boolean exists = cardsRepository.existsByMobileNumber(mobileNumber);
+      mobileNumberFilter.lookedUp(exists);
+      if (exists) {
+        throw new CardAlreadyExistsException(
+            "Card already registered with given mobileNumber " + mobileNumber);
+      }
+    }
+    /*Two requests could both pass the look up and create two cards for the same mobile number. The unique key on
+    mobile_number rejects the duplicate, flushed right away so we get it here.*/
+    try {
+      cardsRepository.saveAndFlush(createNewCard(mobileNumber));
+    } catch (DataIntegrityViolationException exception) {
+      throw alreadyExistsOr(exception, mobileNumber);
+    }
+    mobileNumberFilter.added(mobileNumber);
+  }
+
+  /**
+   * @param mobileNumbers - Mobile Numbers of the Customers
+   * @return the outcome of every mobile number, in the order they were given
+   */
+  /*The mobile numbers are created in chunks of BULK_CREATE_CHUNK_SIZE, each chunk with one query for the numbers
+  that already have a card and one transaction for the new cards. The card ids come from the pooled-lo sequence and
+  the card numbers from the NumberAllocator, nothing is read back per card, so hibernate sends the inserts as JDBC
+  batches at commit. Not @Transactional, a failing chunk must not roll back the chunks before it.*/
+  @Override
+  public List<CardBulkCreateResultDto> createCards(List<String> mobileNumbers) {
+    CardBulkCreateResultDto[] results = new CardBulkCreateResultDto[mobileNumbers.size()];
+    Set<String> seenMobileNumbers = new HashSet<>();
+    List<Integer> chunk = new ArrayList<>(CardsConstants.BULK_CREATE_CHUNK_SIZE);
+    for (int i = 0; i < mobileNumbers.size(); i++) {
+      String mobileNumber = mobileNumbers.get(i);
+      if (mobileNumber == null || !MOBILE_NUMBER.matcher(mobileNumber).matches()) {
+        results[i] =
+            bulkResult(
+                mobileNumber, CardsConstants.BULK_INVALID, "Mobile number must be 10 digits");
+      } else if (!seenMobileNumbers.add(mobileNumber)) {
+        results[i] =
+            bulkResult(
+                mobileNumber, CardsConstants.BULK_DUPLICATE, "Mobile number given more than once");
+      } else {
+        chunk.add(i);
+        if (chunk.size() == CardsConstants.BULK_CREATE_CHUNK_SIZE) {
+          createChunk(mobileNumbers, chunk, results);
+          chunk.clear();
+        }
+      }
+    }
+    if (!chunk.isEmpty()) {
+      createChunk(mobileNumbers, chunk, results);
+    }
+    return Arrays.asList(results);
+  }
+
+  private void createChunk(
+      List<String> mobileNumbers, List<Integer> chunk, CardBulkCreateResultDto[] results) {
+    List<String> chunkMobileNumbers = chunk.stream().map(mobileNumbers::get).toList();
+    // One query for the whole chunk instead of one look up per mobile number
+    Set<String> existingMobileNumbers =
+        new HashSet<>(cardsRepository.findExistingMobileNumbers(chunkMobileNumbers));
+    List<Integer> toCreate = new ArrayList<>(chunk.size());
+    for (int index : chunk) {
+      String mobileNumber = mobileNumbers.get(index);
+      if (existingMobileNumbers.contains(mobileNumber)) {
+        results[index] = duplicateResult(mobileNumber);
+      } else {
+        toCreate.add(index);
+      }
+    }
+
+    List<Cards> created = null;
+    try {
+      List<Cards> newCards =
+          toCreate.stream().map(index -> createNewCard(mobileNumbers.get(index))).toList();
+      created = transactionTemplate.execute(status -> cardsRepository.saveAll(newCards));
+    } catch (RuntimeException exception) {
+      /*Some card of the chunk could not be saved (eg:- the same mobile number was created meanwhile by another
+      request), the whole chunk is rolled back, so we retry the cards one by one to find the culprit.*/
+      logger.warn(
+          "Bulk creation of {} cards failed, retrying them one by one", toCreate.size(), exception);
+    }
+
+    for (int i = 0; i < toCreate.size(); i++) {
+      int index = toCreate.get(i);
+      String mobileNumber = mobileNumbers.get(index);
+      Cards card;
+      if (created != null) {
+        card = created.get(i);
+      } else {
+        try {
+          card =
+              transactionTemplate.execute(
+                  status -> cardsRepository.save(createNewCard(mobileNumber)));
+        } catch (RuntimeException exception) {
+          results[index] =
+              UniqueKeys.isViolated(exception, CardsConstants.CARD_MOBILE_NUMBER_KEY)
+                  ? duplicateResult(mobileNumber)
+                  : bulkResult(mobileNumber, CardsConstants.BULK_FAILED, exception.getMessage());
+          continue;
+        }
+      }
+      mobileNumberFilter.added(mobileNumber);
+      results[index] =
+          new CardBulkCreateResultDto(
+              mobileNumber, CardsConstants.BULK_CREATED, card.getCardNumber(), null);
+    }
+  }
+
+  private CardBulkCreateResultDto duplicateResult(String mobileNumber) {
+    return bulkResult(
+        mobileNumber,
+        CardsConstants.BULK_DUPLICATE,
+        "Card already registered with given mobileNumber " + mobileNumber);
+  }
+
+  private CardBulkCreateResultDto bulkResult(String mobileNumber, String status, String message) {
+    return new CardBulkCreateResultDto(mobileNumber, status, null, message);
+  }
+
+  private RuntimeException alreadyExistsOr(RuntimeException exception, String mobileNumber) {
+    if (UniqueKeys.isViolated(exception, CardsConstants.CARD_MOBILE_NUMBER_KEY)) {
+      return new CardAlreadyExistsException(
           "Card already registered with given mobileNumber " + mobileNumber);
     }
-    cardsRepository.save(createNewCard(mobileNumber));
+    return exception;
   }
 
   /**
@@ -38,8 +194,9 @@ public class CardsServiceImpl implements ICardsService {
    */
   private Cards createNewCard(String mobileNumber) {
     Cards newCard = new Cards();
-    long randomCardNumber = 100000000000L + new Random().nextInt(900000000);
-    newCard.setCardNumber(Long.toString(randomCardNumber));
+    // The last digit is a Luhn check digit, so mistyped card numbers can be rejected without a lookup
+    long cardNumber = numberAllocator.nextWithLuhnCheckDigit(CardsConstants.CARD_NUMBER_SEQUENCE);
+    newCard.setCardNumber(Long.toString(cardNumber));
     newCard.setMobileNumber(mobileNumber);
     newCard.setCardType(CardsConstants.CREDIT_CARD);
     newCard.setTotalLimit(CardsConstants.NEW_CARD_LIMIT);
@@ -53,6 +210,7 @@ public class CardsServiceImpl implements ICardsService {
    * @return Card Details based on a given mobileNumber
    */
   @Override
+  @Transactional(readOnly = true)
   public CardsDto fetchCard(String mobileNumber) {
     Cards cards =
         cardsRepository
@@ -61,11 +219,24 @@ public class CardsServiceImpl implements ICardsService {
     return CardsMapper.mapToCardsDto(cards, new CardsDto());
   }
 
+  /**
+   * @param mobileNumbers - Input mobile Numbers
+   * @return Card Details of all the given mobileNumbers that have a card, fetched in a single query
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<CardsDto> fetchCards(List<String> mobileNumbers) {
+    return cardsRepository.findAllByMobileNumberIn(mobileNumbers).stream()
+        .map(cards -> CardsMapper.mapToCardsDto(cards, new CardsDto()))
+        .toList();
+  }
+
   /**
    * @param cardsDto - CardsDto Object
    * @return boolean indicating if the update of card details is successful or not
    */
   @Override
+  @Transactional
   public boolean updateCard(CardsDto cardsDto) {
     Cards cards =
         cardsRepository
@@ -73,22 +244,117 @@ public class CardsServiceImpl implements ICardsService {
             .orElseThrow(
                 () ->
                     new ResourceNotFoundException("Card", "CardNumber", cardsDto.getCardNumber()));
+    /*With the balance engine enabled the amounts in memory are ahead of the cards table and the engine would not
+    know about a change made here. Sending back the amounts as they were fetched is fine, the unchanged columns are
+    left out of the UPDATE (@DynamicUpdate), so it does not undo a flush made meanwhile either.*/
+    if (balanceEngine.getIfAvailable() != null
+        && (cardsDto.getAmountUsed() != cards.getAmountUsed()
+            || cardsDto.getAvailableAmount() != cards.getAvailableAmount())) {
+      throw new BalanceManagedException(
+          "The amounts of card "
+              + cards.getCardNumber()
+              + " can only change through authorizations and credits");
+    }
     CardsMapper.mapToCards(cardsDto, cards);
-    cardsRepository.save(cards);
+    try {
+      cardsRepository.saveAndFlush(cards);
+    } catch (DataIntegrityViolationException exception) {
+      throw alreadyExistsOr(exception, cards.getMobileNumber());
+    }
+    mobileNumberFilter.added(cards.getMobileNumber());
     return true;
   }
 
+  /**
+   * @param authorizationRequestDto - card number and amount to be debited
+   * @return APPROVED if the amount was debited, DECLINED if the card does not have enough available amount or the
+   *     debit breaks a velocity rule
+   */
+  /*With the balance engine enabled the debit is applied in memory by the instance owning the partition of the card,
+  otherwise it is a single conditional UPDATE of the cards row. Not @Transactional, the update runs in a
+  transaction of its own and the engine needs none.
+  The velocity reservation is released when the debit is not approved, and for a retry the engine had approved
+  before, which was counted then. It is kept when the debit fails, it may still have been applied.*/
+  @Override
+  public AuthorizationResponseDto authorize(AuthorizationRequestDto authorizationRequestDto) {
+    String cardNumber = authorizationRequestDto.getCardNumber();
+    int amount = authorizationRequestDto.getAmount();
+    VelocityChecker.Reservation reservation = velocityChecker.reserve(cardNumber, amount);
+    if (reservation.violation() != null) {
+      return new AuthorizationResponseDto(
+          cardNumber, amount, CardsConstants.AUTHORIZATION_DECLINED, reservation.violation());
+    }
+    BalanceEngine engine = balanceEngine.getIfAvailable();
+    BalanceDecision decision =
+        engine != null
+            ? engine.debit(cardNumber, amount, authorizationRequestDto.getIdempotencyKey())
+            : decision(
+                cardNumber,
+                cardsRepository.debitIfAvailable(
+                    cardNumber, amount, LocalDateTime.now(), currentAuditor()));
+    if (decision != BalanceDecision.APPROVED) {
+      reservation.release();
+    }
+    return toResponse(cardNumber, amount, decision);
+  }
+
+  /**
+   * @param authorizationRequestDto - card number and amount to be credited
+   * @return APPROVED if the amount was credited, DECLINED if it is more than the amount used of the card
+   */
+  @Override
+  public AuthorizationResponseDto credit(AuthorizationRequestDto authorizationRequestDto) {
+    String cardNumber = authorizationRequestDto.getCardNumber();
+    int amount = authorizationRequestDto.getAmount();
+    BalanceEngine engine = balanceEngine.getIfAvailable();
+    BalanceDecision decision =
+        engine != null
+            ? engine.credit(cardNumber, amount, authorizationRequestDto.getIdempotencyKey())
+            : decision(
+                cardNumber,
+                cardsRepository.creditIfUsed(
+                    cardNumber, amount, LocalDateTime.now(), currentAuditor()));
+    return toResponse(cardNumber, amount, decision);
+  }
+
+  // Only a declined spend pays for the second query, to tell an unknown card from a short limit
+  private BalanceDecision decision(String cardNumber, int updatedRows) {
+    if (updatedRows == 1) {
+      return BalanceDecision.APPROVED;
+    }
+    return cardsRepository.existsByCardNumber(cardNumber)
+        ? BalanceDecision.DECLINED
+        : BalanceDecision.UNKNOWN_CARD;
+  }
+
+  private AuthorizationResponseDto toResponse(
+      String cardNumber, int amount, BalanceDecision decision) {
+    return switch (decision) {
+      case APPROVED, ALREADY_APPLIED ->
+          new AuthorizationResponseDto(cardNumber, amount, CardsConstants.AUTHORIZATION_APPROVED);
+      case DECLINED ->
+          new AuthorizationResponseDto(cardNumber, amount, CardsConstants.AUTHORIZATION_DECLINED);
+      case UNKNOWN_CARD -> throw new ResourceNotFoundException("Card", "CardNumber", cardNumber);
+    };
+  }
+
+  private String currentAuditor() {
+    return auditorAware.getCurrentAuditor().orElse(null);
+  }
+
   /**
    * @param mobileNumber - Input MobileNumber
    * @return boolean indicating if the delete of card details is successful or not
    */
   @Override
+  @Transactional
   public boolean deleteCard(String mobileNumber) {
     Cards cards =
         cardsRepository
             .findByMobileNumber(mobileNumber)
             .orElseThrow(() -> new ResourceNotFoundException("Card", "mobileNumber", mobileNumber));
     cardsRepository.deleteById(cards.getCardId());
+    mobileNumberFilter.removed();
     return true;
   }
 }
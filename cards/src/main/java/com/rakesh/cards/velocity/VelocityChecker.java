@@ -0,0 +1,201 @@
+package com.rakesh.cards.velocity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/*Checks a card debit against the velocity rules, the number of spends and the total amount of the card in the last
+minute, hour, day or any other window given in VelocityProperties. The rules are compiled into arrays together with
+the counters (VelocityCounters), a check is a hash probe and a few array reads, and it takes no lock.
+reserve() counts the spend first and only then compares the windows with the limits, taking the spend back out when
+one is broken, so concurrent spends of a card can not together go over a limit (at worst both are declined). The
+reservation is released when the debit is not approved after all.
+The counters are per instance. With the balance engine enabled the debits of a card are only approved by the owner
+of its partition, so they are counted in one place, but a new owner starts the windows of its cards empty. Without
+the engine every instance counts only the spends it served.*/
+@Component
+public class VelocityChecker {
+
+  private static final Logger logger = LoggerFactory.getLogger(VelocityChecker.class);
+
+  private final VelocityProperties properties;
+  private final Counter allowed;
+  private final Counter declined;
+  private final Counter untracked;
+  private volatile CompiledRules compiledRules;
+
+  public VelocityChecker(VelocityProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.allowed = counter(meterRegistry, "allowed");
+    this.declined = counter(meterRegistry, "declined");
+    this.untracked = counter(meterRegistry, "untracked");
+    this.compiledRules = compile(properties, null);
+  }
+
+  /**
+   * @param cardNumber - card to be debited
+   * @param amount - amount of the debit
+   * @return the reservation of the debit, or the description of the rule it breaks in its violation()
+   */
+  /*A card that finds no place in the counters can not be checked and is declined, see trackedCards.*/
+  public Reservation reserve(String cardNumber, int amount) {
+    CompiledRules rules = compiledRules;
+    VelocityCounters counters = rules.counters();
+    if (counters == null) {
+      return Reservation.NONE;
+    }
+    long now = System.currentTimeMillis();
+    int slot = counters.slot(key(cardNumber), now);
+    if (slot < 0) {
+      untracked.increment();
+      return Reservation.UNTRACKED;
+    }
+    counters.record(slot, amount, now);
+    for (int rule = 0; rule < rules.windows().length; rule++) {
+      int window = rules.windows()[rule];
+      if ((rules.maxCounts()[rule] >= 0 && counters.count(slot, window, now) > rules.maxCounts()[rule])
+          || (rules.maxAmounts()[rule] >= 0 && counters.amount(slot, window, now) > rules.maxAmounts()[rule])) {
+        counters.unrecord(slot, amount, now);
+        declined.increment();
+        return new Reservation(rules.descriptions()[rule], null, -1, 0, 0);
+      }
+    }
+    allowed.increment();
+    return new Reservation(null, counters, slot, now, amount);
+  }
+
+  /*The properties are rebound by spring cloud before this event, the counters are kept as long as the windows stay
+  the same.*/
+  @EventListener(RefreshScopeRefreshedEvent.class)
+  public void rulesRefreshed() {
+    compiledRules = compile(properties, compiledRules);
+    logger.info("Velocity rules reloaded, {} rules active", compiledRules.windows().length);
+  }
+
+  private static CompiledRules compile(VelocityProperties properties, CompiledRules previous) {
+    List<VelocityProperties.Rule> rules =
+        properties.isEnabled()
+            ? properties.getRules().stream().filter(rule -> rule.getWindow() != null).toList()
+            : List.of();
+    long[] windowMillis = rules.stream().mapToLong(rule -> rule.getWindow().toMillis()).distinct().toArray();
+    int[] windows = new int[rules.size()];
+    long[] maxCounts = new long[rules.size()];
+    long[] maxAmounts = new long[rules.size()];
+    String[] descriptions = new String[rules.size()];
+    for (int i = 0; i < rules.size(); i++) {
+      VelocityProperties.Rule rule = rules.get(i);
+      long millis = rule.getWindow().toMillis();
+      for (int window = 0; window < windowMillis.length; window++) {
+        if (windowMillis[window] == millis) {
+          windows[i] = window;
+        }
+      }
+      maxCounts[i] = rule.getMaxCount() != null ? rule.getMaxCount() : -1;
+      maxAmounts[i] = rule.getMaxAmount() != null ? rule.getMaxAmount() : -1;
+      descriptions[i] =
+          "Velocity limit of the last "
+              + rule.getWindow()
+              + " exceeded (at most "
+              + (rule.getMaxCount() != null ? rule.getMaxCount() + " spends" : "")
+              + (rule.getMaxCount() != null && rule.getMaxAmount() != null ? ", " : "")
+              + (rule.getMaxAmount() != null ? rule.getMaxAmount() + " in total" : "")
+              + ")";
+    }
+    VelocityCounters counters = null;
+    if (windowMillis.length > 0) {
+      boolean sameLayout =
+          previous != null
+              && previous.counters() != null
+              && Arrays.equals(previous.windowMillis(), windowMillis)
+              && previous.bucketsPerWindow() == properties.getBucketsPerWindow()
+              && previous.trackedCards() == properties.getTrackedCards();
+      counters =
+          sameLayout
+              ? previous.counters()
+              : new VelocityCounters(
+                  windowMillis, properties.getBucketsPerWindow(), properties.getTrackedCards());
+    }
+    return new CompiledRules(
+        windowMillis,
+        properties.getBucketsPerWindow(),
+        properties.getTrackedCards(),
+        windows,
+        maxCounts,
+        maxAmounts,
+        descriptions,
+        counters);
+  }
+
+  // Card numbers are digits, so the number itself is the key, anything else is hashed
+  private static long key(String cardNumber) {
+    if (cardNumber.isEmpty() || cardNumber.length() > 18) {
+      return cardNumber.hashCode();
+    }
+    long key = 0;
+    for (int i = 0; i < cardNumber.length(); i++) {
+      char digit = cardNumber.charAt(i);
+      if (digit < '0' || digit > '9') {
+        return cardNumber.hashCode();
+      }
+      key = key * 10 + (digit - '0');
+    }
+    return key;
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("velocity.checks")
+        .description("Card debits checked against the velocity rules")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  /*A debit counted in the velocity windows, or the rule that declined it. release() takes back a debit that was not
+  approved after all.*/
+  public static final class Reservation {
+
+    private static final Reservation NONE = new Reservation(null, null, -1, 0, 0);
+    private static final Reservation UNTRACKED =
+        new Reservation("Too many cards with recent spends to check the velocity limits", null, -1, 0, 0);
+
+    private final String violation;
+    private final VelocityCounters counters;
+    private final int slot;
+    private final long time;
+    private final long amount;
+
+    private Reservation(String violation, VelocityCounters counters, int slot, long time, long amount) {
+      this.violation = violation;
+      this.counters = counters;
+      this.slot = slot;
+      this.time = time;
+      this.amount = amount;
+    }
+
+    // null when the debit is within every rule
+    public String violation() {
+      return violation;
+    }
+
+    public void release() {
+      if (counters != null) {
+        counters.unrecord(slot, amount, time);
+      }
+    }
+  }
+
+  private record CompiledRules(
+      long[] windowMillis,
+      int bucketsPerWindow,
+      int trackedCards,
+      int[] windows,
+      long[] maxCounts,
+      long[] maxAmounts,
+      String[] descriptions,
+      VelocityCounters counters) {}
+}
@@ -0,0 +1,180 @@
+package com.rakesh.cards.velocity;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*Sliding window spend counters of many cards in two flat AtomicLongArrays, no object per card and no boxing. A card
+is a slot of the open addressing table, keyed by its card number as a long and found by linear probing. The keys are
+apart from the counters, so a probe walks 4 slots per cache line and not one
+  keys:  [key, last spend time] per slot
+  cells: per window and per bucket of a slot: count word, amount word
+Every counter word packs the bucket epoch (time / bucket length) in its top EPOCH_BITS and the value in the rest.
+An update is a CAS loop on that single word, a word still holding an older epoch is started over at the new one, so
+there are no locks, no resets to schedule and a bucket slides out just by its epoch getting old. unrecord() takes a
+spend back out of the buckets it went to, unless they have slid out meanwhile.*/
+class VelocityCounters {
+
+  private static final int EPOCH_BITS = 24;
+  private static final int VALUE_BITS = Long.SIZE - EPOCH_BITS;
+  private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+  private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+  private static final long EMPTY = 0L;
+  /*Linear probing runs get long well before the table is full, with half of the slots taken 16 probes left dozens of
+  every 100k cards without a place, 64 probes none.*/
+  private static final int MAX_PROBES = 64;
+
+  private final long[] bucketMillis;
+  private final int buckets;
+  private final long longestWindowMillis;
+  private final int stride;
+  private final int mask;
+  private final AtomicLongArray keys;
+  private final AtomicLongArray cells;
+
+  /**
+   * @param windowMillis - length of every window
+   * @param buckets - buckets per window
+   * @param trackedCards - number of slots, rounded up to a power of two
+   */
+  VelocityCounters(long[] windowMillis, int buckets, int trackedCards) {
+    this.buckets = buckets;
+    this.bucketMillis = new long[windowMillis.length];
+    long longest = 0;
+    for (int window = 0; window < windowMillis.length; window++) {
+      bucketMillis[window] = Math.max(1, windowMillis[window] / buckets);
+      longest = Math.max(longest, windowMillis[window]);
+    }
+    this.longestWindowMillis = longest;
+    this.stride = windowMillis.length * buckets * 2;
+    int slots = Integer.highestOneBit(Math.max(2, trackedCards) - 1) << 1;
+    this.mask = slots - 1;
+    this.keys = new AtomicLongArray(slots * 2);
+    this.cells = new AtomicLongArray(slots * stride);
+  }
+
+  /**
+   * @return index of the slot of the card, -1 when the table has no place for it
+   */
+  int slot(long key, long now) {
+    long cardKey = key == EMPTY ? Long.MIN_VALUE : key;
+    int start = mix(cardKey) & mask;
+    int reclaimable = -1;
+    for (int probe = 0; probe < MAX_PROBES; probe++) {
+      int slot = (start + probe) & mask;
+      long current = keys.get(slot * 2);
+      if (current == cardKey) {
+        return slot;
+      }
+      if (current == EMPTY) {
+        if (keys.compareAndSet(slot * 2, EMPTY, cardKey)) {
+          return slot;
+        }
+        if (keys.get(slot * 2) == cardKey) {
+          return slot;
+        }
+      } else if (reclaimable < 0 && now - keys.get(slot * 2 + 1) > longestWindowMillis) {
+        reclaimable = slot;
+      }
+    }
+    /*Every counter of a card idle for longer than the longest window has an old epoch, the slot can be taken over as
+    it is.*/
+    if (reclaimable >= 0) {
+      long previous = keys.get(reclaimable * 2);
+      if (now - keys.get(reclaimable * 2 + 1) > longestWindowMillis
+          && keys.compareAndSet(reclaimable * 2, previous, cardKey)) {
+        keys.set(reclaimable * 2 + 1, now);
+        return reclaimable;
+      }
+    }
+    return -1;
+  }
+
+  long count(int slot, int window, long now) {
+    return sum(slot, window, 0, now);
+  }
+
+  long amount(int slot, int window, long now) {
+    return sum(slot, window, 1, now);
+  }
+
+  void record(int slot, long amount, long now) {
+    int base = slot * stride;
+    keys.set(slot * 2 + 1, now);
+    for (int window = 0; window < bucketMillis.length; window++) {
+      long epoch = now / bucketMillis[window];
+      int index = word(base, window, (int) (epoch % buckets), 0);
+      add(index, epoch, 1);
+      add(index + 1, epoch, amount);
+    }
+  }
+
+  // Takes back a spend recorded at the given time
+  void unrecord(int slot, long amount, long time) {
+    int base = slot * stride;
+    for (int window = 0; window < bucketMillis.length; window++) {
+      long epoch = time / bucketMillis[window];
+      int index = word(base, window, (int) (epoch % buckets), 0);
+      subtract(index, epoch, 1);
+      subtract(index + 1, epoch, amount);
+    }
+  }
+
+  private long sum(int slot, int window, int offset, long now) {
+    int base = slot * stride;
+    long currentEpoch = now / bucketMillis[window];
+    long total = 0;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      long word = cells.get(word(base, window, bucket, offset));
+      long epoch = epochOf(word);
+      // Only the buckets of the last window are counted, the epoch is compared on its low EPOCH_BITS
+      if (((currentEpoch - epoch) & EPOCH_MASK) < buckets) {
+        total += word & VALUE_MASK;
+      }
+    }
+    return total;
+  }
+
+  private void add(int index, long epoch, long value) {
+    long packedEpoch = (epoch & EPOCH_MASK) << VALUE_BITS;
+    while (true) {
+      long word = cells.get(index);
+      long next =
+          epochOf(word) == (epoch & EPOCH_MASK)
+              ? packedEpoch | Math.min(VALUE_MASK, (word & VALUE_MASK) + value)
+              : packedEpoch | Math.min(VALUE_MASK, value);
+      if (cells.compareAndSet(index, word, next)) {
+        return;
+      }
+    }
+  }
+
+  private void subtract(int index, long epoch, long value) {
+    while (true) {
+      long word = cells.get(index);
+      if (epochOf(word) != (epoch & EPOCH_MASK)) {
+        return;
+      }
+      long next = (word & ~VALUE_MASK) | Math.max(0, (word & VALUE_MASK) - value);
+      if (cells.compareAndSet(index, word, next)) {
+        return;
+      }
+    }
+  }
+
+  private int word(int base, int window, int bucket, int offset) {
+    return base + (window * buckets + bucket) * 2 + offset;
+  }
+
+  private static long epochOf(long word) {
+    return word >>> VALUE_BITS;
+  }
+
+  // Murmur3 finalizer, card numbers are sequential and would otherwise fill neighbouring slots
+  private static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
@@ -0,0 +1,43 @@
+package com.rakesh.cards.velocity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Spend velocity rules checked on every card debit, see VelocityChecker. They can be changed in the config server,
+they are picked up on the next /actuator/refresh (or bus refresh) without a restart.*/
+@ConfigurationProperties(prefix = "velocity-checks")
+@Getter
+@Setter
+public class VelocityProperties {
+
+  private boolean enabled = true;
+
+  private List<Rule> rules = new ArrayList<>();
+
+  /*Number of cards tracked at the same time, rounded up to a power of two. A card without spends for longer than the
+  longest window gives its place to another one, a card that finds no place is declined (velocity.checks with outcome
+  untracked), so it has to be well above the number of cards spending within the longest window. Every card takes
+  16 + windows * bucketsPerWindow * 16 bytes, allocated once the first rule is configured.*/
+  private int trackedCards = 1 << 18;
+
+  /*Every window is split into this many buckets, the oldest bucket slides out as a whole, so a spend is counted for
+  between window - window / bucketsPerWindow and window.*/
+  private int bucketsPerWindow = 6;
+
+  @Getter
+  @Setter
+  public static class Rule {
+
+    private Duration window;
+
+    // Most spends allowed in the window, no limit when not given
+    private Integer maxCount;
+
+    // Most total amount allowed in the window, no limit when not given
+    private Long maxAmount;
+  }
+}
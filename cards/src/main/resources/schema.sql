@@ -10,5 +10,56 @@ CREATE TABLE IF NOT EXISTS `cards` (
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
   `updated_by` varchar(20) DEFAULT NULL,
-  PRIMARY KEY (`card_id`)
-);
\ No newline at end of file
+  PRIMARY KEY (`card_id`),
+  UNIQUE KEY `uk_cards_mobile_number` (`mobile_number`),
+  UNIQUE KEY `uk_cards_card_number` (`card_number`)
+);
+
+/*The tables created by an older version of this script do not have the keys above, CREATE TABLE IF NOT EXISTS
+does not touch them and MySQL has no ADD INDEX IF NOT EXISTS, so the missing keys are added here. This fails on
+start up if the table already holds duplicates, they have to be cleaned up by hand first.*/
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `cards` ADD UNIQUE KEY `uk_cards_mobile_number` (`mobile_number`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'uk_cards_mobile_number');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `cards` ADD UNIQUE KEY `uk_cards_card_number` (`card_number`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'cards' AND index_name = 'uk_cards_card_number');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+/*Table behind the pooled-lo sequence of the card ids (MySQL has no sequences, hibernate emulates them with a one row
+table). It starts after the biggest id already present.
+The aggregate sits in a derived table, so the WHERE filters its single row and a restart inserts nothing.*/
+CREATE TABLE IF NOT EXISTS `cards_seq` (
+  `next_val` bigint
+);
+
+INSERT INTO `cards_seq` (`next_val`)
+SELECT `next_val` FROM (SELECT COALESCE(MAX(`card_id`), 0) + 1 AS `next_val` FROM `cards`) AS `m`
+WHERE NOT EXISTS (SELECT 1 FROM `cards_seq`);
+
+/*Blocks of card numbers are leased from this table by the NumberAllocator. The sequence starts after
+the biggest number already present, so it never hands out a number that was generated before it existed.*/
+CREATE TABLE IF NOT EXISTS `number_sequence` (
+  `sequence_name` varchar(50) PRIMARY KEY,
+  `next_value` bigint NOT NULL
+);
+
+-- Card numbers carry a Luhn check digit, so the sequence holds the card number without its last digit
+INSERT IGNORE INTO `number_sequence` (`sequence_name`, `next_value`)
+SELECT 'card_number', COALESCE(MAX(CAST(`card_number` AS UNSIGNED)) DIV 10 + 1, 10000000000) FROM `cards`;
+
+/*Leases of the partitions of the balance engine (balance-engine.enabled), the rows are added by the engine. A
+partition is served by its owner till lease_until, flushed_seq is the last change of its journal that is in the cards
+table.*/
+CREATE TABLE IF NOT EXISTS `balance_partition_lease` (
+  `partition_id` int PRIMARY KEY,
+  `owner` varchar(100) DEFAULT NULL,
+  `lease_until` datetime(3) DEFAULT NULL,
+  `flushed_seq` bigint NOT NULL
+);
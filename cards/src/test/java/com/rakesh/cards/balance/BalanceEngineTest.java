@@ -0,0 +1,158 @@
+package com.rakesh.cards.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rakesh.cards.balance.BalanceSnapshots.Snapshot;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+/*The recovery of a partition by its next owner (takePartition), the engines are not started so nothing is flushed
+or snapshotted behind the back of the test.*/
+class BalanceEngineTest {
+
+  private static final String CARD = "4111111111111111";
+  private static final int SEGMENT_BYTES = 64 * 1024;
+
+  @TempDir Path directory;
+
+  private final FakeBalanceStore.Database database = new FakeBalanceStore.Database();
+  private final BalanceEngineProperties properties = new BalanceEngineProperties();
+
+  @BeforeEach
+  void setUp() {
+    properties.setPartitions(1);
+    properties.setJournalDirectory(directory.toString());
+    properties.setJournalSegmentSize(DataSize.ofBytes(SEGMENT_BYTES));
+  }
+
+  @Test
+  void theNextOwnerFlushesTheChangesACrashedOwnerDidNotFlush() {
+    database.addCard(CARD, 0, 1000);
+    BalanceEngine crashed = takeOver("owner-a");
+    assertThat(crashed.debit(CARD, 300, "k1")).isEqualTo(BalanceDecision.APPROVED);
+    assertThat(crashed.debit(CARD, 200, "k2")).isEqualTo(BalanceDecision.APPROVED);
+    assertThat(database.flushes()).isEmpty();
+    // owner-a dies before its first flush and stops renewing
+    database.expireLease();
+
+    BalanceEngine engine = takeOver("owner-b");
+
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 500));
+    assertThat(database.flushedSeq()).isEqualTo(2);
+    assertThat(database.card(CARD)).containsExactly(500, 500);
+    assertThat(engine.debit(CARD, 300, "k1")).isEqualTo(BalanceDecision.ALREADY_APPLIED);
+    assertThat(engine.debit(CARD, 501, null)).isEqualTo(BalanceDecision.DECLINED);
+    assertThat(engine.debit(CARD, 500, null)).isEqualTo(BalanceDecision.APPROVED);
+  }
+
+  @Test
+  void aRetryAfterARestartIsNotAppliedAgain() {
+    database.addCard(CARD, 0, 1000);
+    BalanceEngine stopped = takeOver("owner-a");
+    assertThat(stopped.debit(CARD, 300, "k1")).isEqualTo(BalanceDecision.APPROVED);
+    stopped.stop();
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 300));
+
+    BalanceEngine engine = takeOver("owner-b");
+    assertThat(engine.debit(CARD, 300, "k1")).isEqualTo(BalanceDecision.ALREADY_APPLIED);
+    engine.stop();
+
+    // Nothing left to recover, and the retry changed nothing
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 300));
+    assertThat(database.card(CARD)).containsExactly(300, 700);
+  }
+
+  @Test
+  void recoversFromASnapshotNewerThanTheLastFlush() {
+    // Seq 1 is in the cards table, the snapshot has the balance up to seq 3
+    database.addCard(CARD, 100, 900);
+    database.flushedSeq(1);
+    writeJournal();
+    BalanceSnapshots.write(partitionDirectory(), snapshot(3, 600, 400, "k1", "k2", "k3"));
+
+    BalanceEngine engine = takeOver("owner-b");
+
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 550));
+    assertThat(database.flushedSeq()).isEqualTo(4);
+    assertThat(database.card(CARD)).containsExactly(650, 350);
+    assertBalanceInMemory(engine, 350);
+  }
+
+  @Test
+  void recoversFromASnapshotOlderThanTheLastFlush() {
+    // Seq 1 to 3 are in the cards table, the snapshot has the balance up to seq 1
+    database.addCard(CARD, 600, 400);
+    database.flushedSeq(3);
+    writeJournal();
+    BalanceSnapshots.write(partitionDirectory(), snapshot(1, 100, 900, "k1"));
+
+    BalanceEngine engine = takeOver("owner-b");
+
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 50));
+    assertThat(database.flushedSeq()).isEqualTo(4);
+    assertThat(database.card(CARD)).containsExactly(650, 350);
+    assertBalanceInMemory(engine, 350);
+  }
+
+  @Test
+  void aPartitionWhoseLeaseIsLostWhileRecoveringIsNotServed() {
+    database.addCard(CARD, 0, 1000);
+    writeJournal();
+    FakeBalanceStore store = new FakeBalanceStore(database, "owner-b");
+    assertThat(store.tryAcquire(0)).isTrue();
+    BalanceEngine engine = new BalanceEngine(properties, store, "test");
+    // owner-c took the partition over before the recovery flush
+    database.leaseOwner("owner-c");
+
+    engine.takePartition(0, System.nanoTime());
+
+    assertThat(database.flushes()).isEmpty();
+    assertThat(database.card(CARD)).containsExactly(0, 1000);
+    assertThatThrownBy(() -> engine.debit(CARD, 100, null))
+        .isInstanceOf(PartitionNotOwnedException.class);
+  }
+
+  private BalanceEngine takeOver(String owner) {
+    FakeBalanceStore store = new FakeBalanceStore(database, owner);
+    assertThat(store.tryAcquire(0)).isTrue();
+    BalanceEngine engine = new BalanceEngine(properties, store, "test");
+    engine.takePartition(0, System.nanoTime());
+    return engine;
+  }
+
+  // Debits of 100, 200, 300 and 50 by owner-a, which crashed after seq 4
+  private void writeJournal() {
+    try (SpendJournal journal = new SpendJournal(partitionDirectory(), "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 1L, 100, CARD, "k1");
+      journal.append(2, 2L, 200, CARD, "k2");
+      journal.append(3, 3L, 300, CARD, "k3");
+      journal.append(4, 4L, 50, CARD, "k4");
+      journal.sync();
+    }
+  }
+
+  private Path partitionDirectory() {
+    return directory.resolve("partition-0");
+  }
+
+  private static Snapshot snapshot(long seq, int amountUsed, int availableAmount, String... keys) {
+    Map<String, int[]> balances = new HashMap<>();
+    balances.put(CARD, new int[] {amountUsed, availableAmount});
+    return new Snapshot(seq, balances, new ArrayList<>(List.of(keys)));
+  }
+
+  // The rebuilt balance is what the partition approves against, and the replayed keys are known
+  private static void assertBalanceInMemory(BalanceEngine engine, int availableAmount) {
+    assertThat(engine.debit(CARD, 50, "k4")).isEqualTo(BalanceDecision.ALREADY_APPLIED);
+    assertThat(engine.debit(CARD, availableAmount + 1, null)).isEqualTo(BalanceDecision.DECLINED);
+    assertThat(engine.debit(CARD, availableAmount, null)).isEqualTo(BalanceDecision.APPROVED);
+  }
+}
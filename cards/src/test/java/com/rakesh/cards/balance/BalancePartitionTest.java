@@ -0,0 +1,134 @@
+package com.rakesh.cards.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rakesh.cards.balance.BalanceSnapshots.Snapshot;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class BalancePartitionTest {
+
+  private static final String OWNER = "owner-a";
+  private static final String CARD = "4111111111111111";
+
+  @TempDir Path directory;
+
+  private final FakeBalanceStore.Database database = new FakeBalanceStore.Database();
+  private final FakeBalanceStore store = new FakeBalanceStore(database, OWNER);
+  private final BalanceEngineProperties properties = new BalanceEngineProperties();
+
+  @BeforeEach
+  void setUp() {
+    properties.setJournalSegmentSize(DataSize.ofKilobytes(64));
+    database.addCard(CARD, 0, 1000);
+    database.leaseOwner(OWNER);
+  }
+
+  @Test
+  void refusesChangesPastTheLeaseDeadlineUntilTheLeaseIsRenewed() {
+    // Taken longer ago than the lease duration (30s) less the safety margin (5s)
+    BalancePartition partition = start(System.nanoTime() - Duration.ofSeconds(26).toNanos(), () -> {});
+
+    assertThatThrownBy(() -> partition.debit(CARD, 100, "k1").join())
+        .hasCauseInstanceOf(PartitionNotOwnedException.class);
+
+    partition.leaseRenewed(System.nanoTime());
+    assertThat(partition.debit(CARD, 100, "k1").join()).isEqualTo(BalanceDecision.APPROVED);
+    partition.stop().join();
+
+    // Only the debit approved after the renewal is in the journal and in the cards table
+    assertThat(SpendJournal.replay(directory, 0, (seq, timestamp, delta, cardNumber, key) -> {}))
+        .isEqualTo(1);
+    assertThat(database.card(CARD)).containsExactly(100, 900);
+  }
+
+  @Test
+  void putsTheChangesBackAfterAFailedFlush() throws InterruptedException {
+    BalancePartition partition = start(System.nanoTime(), () -> {});
+    assertThat(partition.debit(CARD, 100, null).join()).isEqualTo(BalanceDecision.APPROVED);
+
+    store.failFlushes(true);
+    partition.requestFlush();
+    awaitUntil(() -> store.flushAttempts() == 1);
+    assertThat(partition.debit(CARD, 50, null).join()).isEqualTo(BalanceDecision.APPROVED);
+
+    store.failFlushes(false);
+    // Asked again until it goes through, as the engine does every flushInterval
+    awaitUntil(
+        () -> {
+          partition.requestFlush();
+          return database.flushedSeq() == 2;
+        });
+
+    // The failed flush is written together with the change approved after it
+    assertThat(database.flushes()).containsExactly(Map.of(CARD, 150));
+    assertThat(database.card(CARD)).containsExactly(150, 850);
+    partition.stop().join();
+  }
+
+  @Test
+  void givesUpThePartitionWhenAFlushFindsItsLeaseTaken() throws InterruptedException {
+    CountDownLatch leaseLost = new CountDownLatch(1);
+    BalancePartition partition = start(System.nanoTime(), leaseLost::countDown);
+    assertThat(partition.debit(CARD, 100, null).join()).isEqualTo(BalanceDecision.APPROVED);
+
+    database.leaseOwner("owner-b");
+    partition.requestFlush();
+
+    assertThat(leaseLost.await(5, TimeUnit.SECONDS)).isTrue();
+    partition.stop().join();
+    assertThat(database.flushes()).isEmpty();
+    assertThat(database.card(CARD)).containsExactly(0, 1000);
+    // Still in the journal for owner-b to replay
+    assertThat(SpendJournal.replay(directory, 0, (seq, timestamp, delta, cardNumber, key) -> {}))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void aRetryWithTheSameIdempotencyKeyIsNotAppliedAgain() {
+    BalancePartition partition = start(System.nanoTime(), () -> {});
+
+    assertThat(partition.debit(CARD, 100, "k1").join()).isEqualTo(BalanceDecision.APPROVED);
+    assertThat(partition.debit(CARD, 100, "k1").join()).isEqualTo(BalanceDecision.ALREADY_APPLIED);
+    assertThat(partition.credit(CARD, 100, "k2").join()).isEqualTo(BalanceDecision.APPROVED);
+    assertThat(partition.credit(CARD, 1, "k3").join()).isEqualTo(BalanceDecision.DECLINED);
+    partition.stop().join();
+
+    assertThat(database.card(CARD)).containsExactly(0, 1000);
+  }
+
+  // The flushes and snapshots run right on the partition thread
+  private BalancePartition start(long leaseStart, Runnable onLeaseLost) {
+    BalancePartition partition =
+        new BalancePartition(
+            0,
+            directory,
+            Snapshot.empty(),
+            0,
+            leaseStart,
+            store,
+            Runnable::run,
+            properties,
+            "test",
+            onLeaseLost);
+    partition.start();
+    return partition;
+  }
+
+  private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime() - deadline).as("waited 5s").isNegative();
+      Thread.sleep(10);
+    }
+  }
+}
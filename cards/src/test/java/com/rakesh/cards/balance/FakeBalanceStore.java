@@ -0,0 +1,146 @@
+package com.rakesh.cards.balance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*BalanceStore of one instance without a DB. The lease row and the cards table are a Database shared by the stores of
+all the instances, the lease runs out only when a test says so (expireLease).*/
+class FakeBalanceStore extends BalanceStore {
+
+  private final Database database;
+  private final String owner;
+  private volatile boolean failFlushes;
+  private int flushAttempts;
+
+  FakeBalanceStore(Database database, String owner) {
+    super(null, null, owner, Duration.ofSeconds(30));
+    this.database = database;
+    this.owner = owner;
+  }
+
+  void failFlushes(boolean failFlushes) {
+    this.failFlushes = failFlushes;
+  }
+
+  int flushAttempts() {
+    synchronized (database) {
+      return flushAttempts;
+    }
+  }
+
+  @Override
+  String owner() {
+    return owner;
+  }
+
+  @Override
+  void createMissing(int partitions) {
+    // One partition, always there
+  }
+
+  @Override
+  boolean tryAcquire(int partition) {
+    synchronized (database) {
+      if (database.leaseOwner != null) {
+        return false;
+      }
+      database.leaseOwner = owner;
+      return true;
+    }
+  }
+
+  @Override
+  boolean renew(int partition) {
+    synchronized (database) {
+      return owner.equals(database.leaseOwner);
+    }
+  }
+
+  @Override
+  void release(int partition) {
+    synchronized (database) {
+      if (owner.equals(database.leaseOwner)) {
+        database.leaseOwner = null;
+      }
+    }
+  }
+
+  @Override
+  long flushedSeq(int partition) {
+    synchronized (database) {
+      return database.flushedSeq;
+    }
+  }
+
+  @Override
+  boolean flush(int partition, Map<String, Integer> deltas, long upToSeq, String auditor) {
+    synchronized (database) {
+      flushAttempts++;
+      if (failFlushes) {
+        throw new IllegalStateException("Connection refused");
+      }
+      if (!owner.equals(database.leaseOwner)) {
+        return false;
+      }
+      deltas.forEach(
+          (cardNumber, delta) -> {
+            int[] card = database.cards.get(cardNumber);
+            card[0] += delta;
+            card[1] -= delta;
+          });
+      database.flushedSeq = upToSeq;
+      database.flushes.add(Map.copyOf(deltas));
+      return true;
+    }
+  }
+
+  @Override
+  int[] loadBalance(String cardNumber) {
+    synchronized (database) {
+      int[] card = database.cards.get(cardNumber);
+      return card == null ? null : card.clone();
+    }
+  }
+
+  static final class Database {
+
+    // Amount used and available amount by card number
+    private final Map<String, int[]> cards = new HashMap<>();
+    private final List<Map<String, Integer>> flushes = new ArrayList<>();
+    private String leaseOwner;
+    private long flushedSeq;
+
+    synchronized void addCard(String cardNumber, int amountUsed, int availableAmount) {
+      cards.put(cardNumber, new int[] {amountUsed, availableAmount});
+    }
+
+    synchronized int[] card(String cardNumber) {
+      return cards.get(cardNumber).clone();
+    }
+
+    synchronized long flushedSeq() {
+      return flushedSeq;
+    }
+
+    synchronized void flushedSeq(long flushedSeq) {
+      this.flushedSeq = flushedSeq;
+    }
+
+    // Net changes of every successful flush, in order
+    synchronized List<Map<String, Integer>> flushes() {
+      return List.copyOf(flushes);
+    }
+
+    synchronized void leaseOwner(String leaseOwner) {
+      this.leaseOwner = leaseOwner;
+    }
+
+    // As if the owner stopped renewing for longer than the lease duration
+    synchronized void expireLease() {
+      leaseOwner = null;
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.rakesh.cards.balance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpendJournalTest {
+
+  private static final int SEGMENT_BYTES = 4096;
+  private static final String CARD = "4111111111111111";
+  // header (8) + seq (8) + timestamp (8) + delta (4) + card (2 + 16) + key (2 + 2)
+  private static final int RECORD_BYTES = 50;
+
+  @TempDir Path directory;
+
+  @Test
+  void replaysTheRecordsAfterTheGivenSequenceNumber() {
+    try (SpendJournal journal = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 100L, 500, CARD, "k1");
+      journal.append(2, 101L, -200, CARD, null);
+      journal.append(3, 102L, 300, CARD, "k3");
+      journal.sync();
+    }
+
+    List<String> records = new ArrayList<>();
+    long lastSeq = SpendJournal.replay(directory, 1, recordInto(records));
+
+    assertThat(lastSeq).isEqualTo(3);
+    assertThat(records).containsExactly("2:101:-200:" + CARD + ":null", "3:102:300:" + CARD + ":k3");
+  }
+
+  @Test
+  void stopsAtATornRecord() throws IOException {
+    try (SpendJournal journal = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 100L, 500, CARD, "k1");
+      journal.append(2, 101L, 600, CARD, "k2");
+      journal.append(3, 102L, 700, CARD, "k3");
+      journal.sync();
+    }
+    // The delta of the second record no longer matches its crc, as if the crash came halfway through writing it
+    overwrite(onlySegment(), RECORD_BYTES + 8 + 16, (byte) 0x7f);
+
+    List<String> records = new ArrayList<>();
+    long lastSeq = SpendJournal.replay(directory, 0, recordInto(records));
+
+    assertThat(lastSeq).isEqualTo(1);
+    assertThat(records).containsExactly("1:100:500:" + CARD + ":k1");
+  }
+
+  @Test
+  void stopsAtAZeroLengthRecord() {
+    try (SpendJournal journal = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 100L, 500, CARD, "k1");
+      journal.sync();
+    }
+
+    List<String> records = new ArrayList<>();
+    long lastSeq = SpendJournal.replay(directory, 0, recordInto(records));
+
+    assertThat(lastSeq).isEqualTo(1);
+    assertThat(records).hasSize(1);
+  }
+
+  @Test
+  void discardedRecordsAreNotReplayed() {
+    try (SpendJournal journal = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 100L, 500, CARD, "k1");
+      journal.sync();
+      journal.append(2, 101L, 600, CARD, "k2");
+      journal.append(3, 102L, 700, CARD, "k3");
+      journal.discardUnsynced();
+    }
+
+    List<String> records = new ArrayList<>();
+    long lastSeq = SpendJournal.replay(directory, 0, recordInto(records));
+
+    assertThat(lastSeq).isEqualTo(1);
+    assertThat(records).containsExactly("1:100:500:" + CARD + ":k1");
+  }
+
+  @Test
+  void recordsOfAStaleOwnerAfterTheTakeOverAreNotReplayed() {
+    SpendJournal stale = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1);
+    stale.append(1, 100L, 500, CARD, "k1");
+    stale.sync();
+    // owner-b took over after seq 1 and starts its own segment, owner-a keeps writing to its own
+    try (SpendJournal journal = new SpendJournal(directory, "owner-b", SEGMENT_BYTES, 2)) {
+      stale.append(2, 101L, 9999, CARD, "stale");
+      stale.sync();
+      journal.append(2, 102L, 600, CARD, "k2");
+      journal.sync();
+    }
+
+    List<String> records = new ArrayList<>();
+    long lastSeq = SpendJournal.replay(directory, 0, recordInto(records));
+
+    assertThat(lastSeq).isEqualTo(2);
+    assertThat(records)
+        .containsExactly("1:100:500:" + CARD + ":k1", "2:102:600:" + CARD + ":k2");
+  }
+
+  @Test
+  void segmentsWithNothingReplayedAreDeletedByTheNextOwner() throws IOException {
+    try (SpendJournal journal = new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 1)) {
+      journal.append(1, 100L, 500, CARD, "k1");
+      journal.sync();
+    }
+    new SpendJournal(directory, "owner-a", SEGMENT_BYTES, 2).close();
+
+    new SpendJournal(directory, "owner-b", SEGMENT_BYTES, 2).close();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.map(file -> file.getFileName().toString()))
+          .containsExactlyInAnyOrder("1-owner-a.journal", "2-owner-b.journal");
+    }
+  }
+
+  private static SpendJournal.RecordConsumer recordInto(List<String> records) {
+    return (seq, timestamp, delta, cardNumber, idempotencyKey) ->
+        records.add(seq + ":" + timestamp + ":" + delta + ":" + cardNumber + ":" + idempotencyKey);
+  }
+
+  private Path onlySegment() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.findFirst().orElseThrow();
+    }
+  }
+
+  private static void overwrite(Path file, long position, byte value) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+    }
+  }
+}
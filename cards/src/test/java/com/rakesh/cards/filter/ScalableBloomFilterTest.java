@@ -0,0 +1,69 @@
+package com.rakesh.cards.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ScalableBloomFilterTest {
+
+  @Test
+  void holdsEveryValuePutInIt() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+    for (int i = 0; i < 1_000; i++) {
+      filter.put(mobileNumber(i));
+    }
+
+    for (int i = 0; i < 1_000; i++) {
+      assertThat(filter.mightContain(mobileNumber(i))).isTrue();
+    }
+    assertThat(filter.approximateElementCount()).isBetween(990L, 1_000L);
+  }
+
+  @Test
+  void keepsTheFalsePositiveRateWhenGrownPastItsCapacity() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+    long firstStageBytes = filter.sizeInBytes();
+
+    for (int i = 0; i < 20_000; i++) {
+      filter.put(mobileNumber(i));
+    }
+
+    for (int i = 0; i < 20_000; i++) {
+      assertThat(filter.mightContain(mobileNumber(i))).isTrue();
+    }
+    int falsePositives = 0;
+    int lookups = 100_000;
+    for (int i = 0; i < lookups; i++) {
+      if (filter.mightContain(mobileNumber(1_000_000 + i))) {
+        falsePositives++;
+      }
+    }
+    // 0.01 asked for, with some room for the chance
+    assertThat((double) falsePositives / lookups).isLessThan(0.015);
+    assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+    assertThat(filter.sizeInBytes()).isGreaterThan(firstStageBytes * 16);
+  }
+
+  @Test
+  void aValuePutTwiceIsCountedOnce() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+    filter.put("9876543210");
+    filter.put("9876543210");
+
+    assertThat(filter.approximateElementCount()).isEqualTo(1);
+  }
+
+  @Test
+  void anEmptyFilterHoldsNothing() {
+    ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+    assertThat(filter.mightContain("9876543210")).isFalse();
+    assertThat(filter.expectedFalsePositiveRate()).isZero();
+  }
+
+  private static String mobileNumber(int i) {
+    return Long.toString(9_000_000_000L + i);
+  }
+}
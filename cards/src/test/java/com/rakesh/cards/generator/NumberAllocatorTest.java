@@ -0,0 +1,127 @@
+package com.rakesh.cards.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class NumberAllocatorTest {
+
+  private static final String SEQUENCE = "card_number";
+
+  @Test
+  void luhnCheckDigitOfKnownNumbers() {
+    assertThat(NumberAllocator.luhnCheckDigit(7992739871L)).isEqualTo(3);
+    assertThat(NumberAllocator.luhnCheckDigit(411111111111111L)).isEqualTo(1);
+    assertThat(NumberAllocator.luhnCheckDigit(0L)).isZero();
+  }
+
+  @Test
+  void numbersWithTheCheckDigitPassTheLuhnCheck() {
+    NumberAllocator allocator = new NumberAllocator(new FakeSequences(100_000_000_000_000L), noTransactions(), 100);
+
+    for (int i = 0; i < 1_000; i++) {
+      long cardNumber = allocator.nextWithLuhnCheckDigit(SEQUENCE);
+
+      assertThat(Long.toString(cardNumber)).hasSize(16);
+      assertThat(isLuhnValid(cardNumber)).isTrue();
+      // A mistyped last digit is caught
+      assertThat(isLuhnValid(cardNumber / 10 * 10 + (cardNumber + 1) % 10)).isFalse();
+    }
+  }
+
+  @Test
+  void leasesOneBlockPerBlockSizeNumbers() {
+    FakeSequences sequences = new FakeSequences(1_000L);
+    NumberAllocator allocator = new NumberAllocator(sequences, noTransactions(), 10);
+
+    List<Long> numbers = IntStream.range(0, 25).mapToObj(i -> allocator.next(SEQUENCE)).toList();
+
+    assertThat(numbers).containsExactlyElementsOf(IntStream.range(1_000, 1_025).mapToObj(i -> (long) i).toList());
+    assertThat(sequences.leases).isEqualTo(3);
+    assertThat(sequences.nextValues.get(SEQUENCE)).isEqualTo(1_030L);
+  }
+
+  @Test
+  void concurrentCallersNeverGetTheSameNumber() throws Exception {
+    NumberAllocator allocator = new NumberAllocator(new FakeSequences(1L), noTransactions(), 7);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    Set<Long> numbers = ConcurrentHashMap.newKeySet();
+    try {
+      List<Future<?>> callers =
+          IntStream.range(0, 4)
+              .<Future<?>>mapToObj(
+                  caller ->
+                      executor.submit(
+                          () -> {
+                            for (int i = 0; i < 500; i++) {
+                              numbers.add(allocator.next(SEQUENCE));
+                            }
+                          }))
+              .toList();
+      for (Future<?> caller : callers) {
+        caller.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(numbers).hasSize(2_000);
+  }
+
+  private static boolean isLuhnValid(long number) {
+    return NumberAllocator.luhnCheckDigit(number / 10) == number % 10;
+  }
+
+  private static PlatformTransactionManager noTransactions() {
+    return new PlatformTransactionManager() {
+      @Override
+      public TransactionStatus getTransaction(TransactionDefinition definition) {
+        return new SimpleTransactionStatus();
+      }
+
+      @Override
+      public void commit(TransactionStatus status) {}
+
+      @Override
+      public void rollback(TransactionStatus status) {}
+    };
+  }
+
+  // The number_sequence table, the select for update and the update of a lease run under the allocator's lock
+  private static class FakeSequences extends JdbcTemplate {
+
+    private final Map<String, Long> nextValues = new HashMap<>();
+    private int leases;
+
+    private FakeSequences(long firstValue) {
+      nextValues.put(SEQUENCE, firstValue);
+    }
+
+    @Override
+    public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+      return requiredType.cast(nextValues.get((String) args[0]));
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+      nextValues.put((String) args[1], (Long) args[0]);
+      leases++;
+      return 1;
+    }
+  }
+}
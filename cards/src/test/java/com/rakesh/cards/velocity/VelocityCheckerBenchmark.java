@@ -0,0 +1,89 @@
+package com.rakesh.cards.velocity;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*Time of a velocity reservation of a random card out of a million active ones, with the 1 minute, 1 hour and 24 hour
+rules of application.yml (limits high enough that nothing is declined, so every reservation does the whole work).
+The counters of that many cards are far bigger than the CPU caches, so this is mostly the cache misses of the probe
+and of the bucket words. Run it from main, or with java -cp <test classpath> org.openjdk.jmh.Main
+VelocityCheckerBenchmark.*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VelocityCheckerBenchmark {
+
+  @Param({"100000", "1000000"})
+  private int activeCards;
+
+  private String[] cardNumbers;
+  private VelocityChecker checker;
+
+  @Setup
+  public void fillCounters() {
+    VelocityProperties properties = new VelocityProperties();
+    properties.setRules(
+        List.of(rule(Duration.ofMinutes(1)), rule(Duration.ofHours(1)), rule(Duration.ofHours(24))));
+    // Twice the active cards, as it should be sized, see trackedCards
+    properties.setTrackedCards(activeCards * 2);
+    checker = new VelocityChecker(properties, new SimpleMeterRegistry());
+    cardNumbers = new String[activeCards];
+    for (int card = 0; card < activeCards; card++) {
+      cardNumbers[card] = Long.toString(4_000_000_000_000_000L + card * 7919L);
+      String violation = checker.reserve(cardNumbers[card], 100).violation();
+      if (violation != null) {
+        throw new IllegalStateException("Card " + card + " declined: " + violation);
+      }
+    }
+  }
+
+  @Benchmark
+  public VelocityChecker.Reservation reserve() {
+    return checker.reserve(randomCard(), 100);
+  }
+
+  // The reservation of a debit the balance then declines
+  @Benchmark
+  public VelocityChecker.Reservation reserveAndRelease() {
+    VelocityChecker.Reservation reservation = checker.reserve(randomCard(), 100);
+    reservation.release();
+    return reservation;
+  }
+
+  private String randomCard() {
+    return cardNumbers[ThreadLocalRandom.current().nextInt(activeCards)];
+  }
+
+  private static VelocityProperties.Rule rule(Duration window) {
+    VelocityProperties.Rule rule = new VelocityProperties.Rule();
+    rule.setWindow(window);
+    rule.setMaxCount(Integer.MAX_VALUE);
+    rule.setMaxAmount(1L << 38);
+    return rule;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(VelocityCheckerBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,96 @@
+package com.rakesh.cards.velocity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class VelocityCheckerTest {
+
+  private static final String CARD = "4111111111111111";
+
+  @Test
+  void declinesTheSpendOverTheLimit() {
+    VelocityChecker checker = checker(3, 1_000L, 1 << 10);
+
+    assertThat(checker.reserve(CARD, 400).violation()).isNull();
+    assertThat(checker.reserve(CARD, 400).violation()).isNull();
+
+    assertThat(checker.reserve(CARD, 400).violation()).contains("1000 in total");
+    // The declined spend was taken back out
+    assertThat(checker.reserve(CARD, 200).violation()).isNull();
+    assertThat(checker.reserve(CARD, 1).violation()).contains("3 spends");
+  }
+
+  @Test
+  void aReleasedReservationNoLongerCounts() {
+    VelocityChecker checker = checker(1, 1_000L, 1 << 10);
+    VelocityChecker.Reservation reservation = checker.reserve(CARD, 400);
+
+    reservation.release();
+
+    assertThat(checker.reserve(CARD, 400).violation()).isNull();
+  }
+
+  @Test
+  void untrackedCardsAreDeclined() {
+    VelocityChecker checker = checker(10, 1_000L, 2);
+    checker.reserve("1", 1);
+    checker.reserve("2", 1);
+
+    assertThat(checker.reserve("3", 1).violation()).isNotNull();
+  }
+
+  @Test
+  void concurrentSpendsDoNotGoOverTheLimit() throws Exception {
+    VelocityChecker checker = checker(50, 1_000_000L, 1 << 10);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Integer>> approved = new ArrayList<>();
+      for (int thread = 0; thread < threads; thread++) {
+        approved.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  int count = 0;
+                  for (int i = 0; i < 100; i++) {
+                    if (checker.reserve(CARD, 1).violation() == null) {
+                      count++;
+                    }
+                  }
+                  return count;
+                }));
+      }
+      start.countDown();
+      int total = 0;
+      for (Future<Integer> count : approved) {
+        total += count.get(10, TimeUnit.SECONDS);
+      }
+
+      assertThat(total).isLessThanOrEqualTo(50);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static VelocityChecker checker(int maxCount, long maxAmount, int trackedCards) {
+    VelocityProperties.Rule rule = new VelocityProperties.Rule();
+    rule.setWindow(Duration.ofHours(1));
+    rule.setMaxCount(maxCount);
+    rule.setMaxAmount(maxAmount);
+    VelocityProperties properties = new VelocityProperties();
+    properties.setRules(List.of(rule));
+    properties.setTrackedCards(trackedCards);
+    return new VelocityChecker(properties, new SimpleMeterRegistry());
+  }
+}
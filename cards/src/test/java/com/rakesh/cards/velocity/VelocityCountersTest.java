@@ -0,0 +1,121 @@
+package com.rakesh.cards.velocity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class VelocityCountersTest {
+
+  private static final long MINUTE = 60_000L;
+  private static final long HOUR = 60 * MINUTE;
+  // Both windows in 6 buckets, 10 minutes for the hour window
+  private static final long[] WINDOWS = {MINUTE, HOUR};
+  private static final long START = 1_000 * HOUR;
+
+  @Test
+  void countsTheSpendsOfEveryWindow() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+    int slot = counters.slot(4111_1111_1111_1111L, START);
+
+    counters.record(slot, 500, START);
+    counters.record(slot, 700, START + 1_000);
+
+    assertThat(counters.count(slot, 0, START + 1_000)).isEqualTo(2);
+    assertThat(counters.amount(slot, 0, START + 1_000)).isEqualTo(1_200);
+    assertThat(counters.count(slot, 1, START + 1_000)).isEqualTo(2);
+    assertThat(counters.amount(slot, 1, START + 1_000)).isEqualTo(1_200);
+  }
+
+  @Test
+  void spendsSlideOutOfTheirWindow() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+    int slot = counters.slot(42L, START);
+    counters.record(slot, 500, START);
+
+    long later = START + 2 * MINUTE;
+
+    assertThat(counters.count(slot, 0, later)).isZero();
+    assertThat(counters.amount(slot, 0, later)).isZero();
+    assertThat(counters.count(slot, 1, later)).isEqualTo(1);
+    assertThat(counters.amount(slot, 1, later)).isEqualTo(500);
+  }
+
+  @Test
+  void aBucketIsStartedOverWhenItsEpochComesAround() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+    int slot = counters.slot(42L, START);
+    counters.record(slot, 500, START);
+
+    // Same bucket of the minute window, one whole window later
+    counters.record(slot, 300, START + MINUTE);
+
+    assertThat(counters.count(slot, 0, START + MINUTE)).isEqualTo(1);
+    assertThat(counters.amount(slot, 0, START + MINUTE)).isEqualTo(300);
+  }
+
+  @Test
+  void unrecordTakesTheSpendBack() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+    int slot = counters.slot(42L, START);
+    counters.record(slot, 500, START);
+    counters.record(slot, 700, START);
+
+    counters.unrecord(slot, 700, START);
+
+    assertThat(counters.count(slot, 0, START)).isEqualTo(1);
+    assertThat(counters.amount(slot, 0, START)).isEqualTo(500);
+    assertThat(counters.count(slot, 1, START)).isEqualTo(1);
+    assertThat(counters.amount(slot, 1, START)).isEqualTo(500);
+  }
+
+  @Test
+  void unrecordLeavesABucketAloneOnceItHasSlidOut() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+    int slot = counters.slot(42L, START);
+    counters.record(slot, 500, START);
+    counters.record(slot, 300, START + MINUTE);
+
+    counters.unrecord(slot, 500, START);
+
+    assertThat(counters.count(slot, 0, START + MINUTE)).isEqualTo(1);
+    assertThat(counters.amount(slot, 0, START + MINUTE)).isEqualTo(300);
+    // The hour bucket is still the same one, the spend is taken out of it
+    assertThat(counters.count(slot, 1, START + MINUTE)).isEqualTo(1);
+    assertThat(counters.amount(slot, 1, START + MINUTE)).isEqualTo(300);
+  }
+
+  @Test
+  void aCardKeepsItsSlot() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 16);
+
+    int slot = counters.slot(42L, START);
+
+    assertThat(counters.slot(43L, START)).isNotEqualTo(slot);
+    assertThat(counters.slot(42L, START + MINUTE)).isEqualTo(slot);
+  }
+
+  @Test
+  void aHalfFullTableHasASlotForEveryCard() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 1 << 18);
+
+    for (long card = 0; card < 1 << 17; card++) {
+      int slot = counters.slot(4_000_000_000_000_000L + card * 7919, START);
+      assertThat(slot).isNotNegative();
+      counters.record(slot, 100, START);
+    }
+  }
+
+  @Test
+  void aFullTableHasNoSlotUntilACardIsIdleForTheLongestWindow() {
+    VelocityCounters counters = new VelocityCounters(WINDOWS, 6, 2);
+    counters.record(counters.slot(1L, START), 100, START);
+    counters.record(counters.slot(2L, START), 100, START + MINUTE);
+
+    assertThat(counters.slot(3L, START + MINUTE)).isEqualTo(-1);
+
+    int slot = counters.slot(3L, START + HOUR + 1);
+    assertThat(slot).isNotNegative();
+    // The counters of the card it replaced have all slid out
+    assertThat(counters.count(slot, 1, START + HOUR + 1)).isZero();
+  }
+}
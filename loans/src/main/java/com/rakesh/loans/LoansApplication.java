@@ -1,6 +1,10 @@
 package com.rakesh.loans;
 
+import com.rakesh.loans.amortization.AmortizationProperties;
+import com.rakesh.loans.datasource.DataSourceRoutingProperties;
 import com.rakesh.loans.dto.LoansContactInfoDto;
+import com.rakesh.loans.filter.MobileNumberFilterProperties;
+import com.rakesh.loans.repository.NaturalIdRepositoryImpl;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Contact;
@@ -10,12 +14,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 /*@ComponentScans({ @ComponentScan("com.rakesh.loans.controller") })
 @EnableJpaRepositories("com.rakesh.loans.repository")
 @EntityScan("com.rakesh.loans.model")*/
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
+// Every repository gets the natural id lookup of NaturalIdRepository
+@EnableJpaRepositories(repositoryBaseClass = NaturalIdRepositoryImpl.class)
 @OpenAPIDefinition(
     info =
         @Info(
@@ -33,7 +40,13 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
             description = "EazyBank Loans microservice REST API Documentation",
             url = "https://www.rakesh.com/swagger-ui.html"))
 /*This annotation tells spring to see the POJO class where we are mapping our properties from the yml file*/
-@EnableConfigurationProperties(value = {LoansContactInfoDto.class})
+@EnableConfigurationProperties(
+    value = {
+      LoansContactInfoDto.class,
+      DataSourceRoutingProperties.class,
+      MobileNumberFilterProperties.class,
+      AmortizationProperties.class
+    })
 public class LoansApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,208 @@
+package com.rakesh.loans.amortization;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import org.springframework.stereotype.Component;
+
+/*Computes EMI schedules, prepayment what-ifs and payoff quotes. The amounts are kept in paise in long and the interest
+of every installment is rounded to the paisa, so a schedule adds up exactly without a BigDecimal per installment, only
+the EMI formula itself is computed in double. The schedules of a whole portfolio are computed on a fork/join pool of
+its own, so a big portfolio does not take the common pool used by parallel streams elsewhere.*/
+@Component
+public class AmortizationEngine {
+
+    private final AmortizationProperties properties;
+    private final ForkJoinPool portfolioPool;
+    private final Timer portfolioTimer;
+
+    public AmortizationEngine(AmortizationProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.portfolioPool =
+                new ForkJoinPool(
+                        properties.getPortfolioParallelism() > 0
+                                ? properties.getPortfolioParallelism()
+                                : Runtime.getRuntime().availableProcessors());
+        this.portfolioTimer =
+                Timer.builder("loans.amortization.portfolio")
+                        .description("Time taken to compute the schedules of all the loans")
+                        .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        portfolioPool.shutdown();
+    }
+
+    /**
+     * @param principal - amount to be repaid, in paise
+     * @param annualInterestRate - yearly interest rate in percent
+     * @param months - number of monthly installments
+     * @return the EMI in paise
+     */
+    public static long emi(long principal, double annualInterestRate, int months) {
+        return emiAtMonthlyRate(principal, monthlyRate(annualInterestRate), months);
+    }
+
+    /**
+     * @param principal - amount to be repaid, in paise
+     * @param annualInterestRate - yearly interest rate in percent
+     * @param months - number of monthly installments
+     * @param prepayment - extra principal paid with an installment, in paise, 0 for none
+     * @param prepaymentMonth - installment (from 1) the prepayment is paid with
+     * @param mode - what the prepayment reduces
+     * @return one entry per installment, fewer than months when a prepayment shortens the loan
+     */
+    public Schedule schedule(
+            long principal,
+            double annualInterestRate,
+            int months,
+            long prepayment,
+            int prepaymentMonth,
+            PrepaymentMode mode) {
+        double rate = monthlyRate(annualInterestRate);
+        long[] principalPaid = new long[months];
+        long[] interestPaid = new long[months];
+        long[] prepaid = new long[months];
+        long[] balance = new long[months];
+        long firstEmi = emiAtMonthlyRate(principal, rate, months);
+        long emi = firstEmi;
+        long remaining = principal;
+        int installments = 0;
+        for (int month = 1; month <= months && remaining > 0; month++) {
+            long interest = Math.round(remaining * rate);
+            // The last installment takes whatever rounding left over
+            long principalPart = month == months ? remaining : clamp(emi - interest, remaining);
+            long extra = month == prepaymentMonth ? clamp(prepayment, remaining - principalPart) : 0;
+            remaining -= principalPart + extra;
+            principalPaid[installments] = principalPart;
+            interestPaid[installments] = interest;
+            prepaid[installments] = extra;
+            balance[installments] = remaining;
+            installments++;
+            if (extra > 0 && mode == PrepaymentMode.REDUCE_EMI) {
+                emi = emiAtMonthlyRate(remaining, rate, months - month);
+            }
+        }
+        return new Schedule(firstEmi, installments, principalPaid, interestPaid, prepaid, balance);
+    }
+
+    /**
+     * @param principal - amount to be repaid, in paise
+     * @param annualInterestRate - yearly interest rate in percent
+     * @param months - number of monthly installments
+     * @param installmentsPaid - installments paid so far
+     * @param daysSinceInstallment - days since the last installment paid, their interest is added
+     * @return the amount to close the loan, the same rounding as schedule so it matches its balance column
+     */
+    public PayoffQuote payoff(
+            long principal,
+            double annualInterestRate,
+            int months,
+            int installmentsPaid,
+            int daysSinceInstallment) {
+        double rate = monthlyRate(annualInterestRate);
+        long emi = emiAtMonthlyRate(principal, rate, months);
+        long remaining = principal;
+        for (int month = 1; month <= Math.min(installmentsPaid, months) && remaining > 0; month++) {
+            long interest = Math.round(remaining * rate);
+            remaining -= month == months ? remaining : clamp(emi - interest, remaining);
+        }
+        long accruedInterest = Math.round(remaining * annualInterestRate / 100 * daysSinceInstallment / 365);
+        long charge =
+                installmentsPaid < months
+                        ? Math.round(remaining * properties.getPrepaymentChargePercent() / 100)
+                        : 0;
+        return new PayoffQuote(remaining, accruedInterest, charge);
+    }
+
+    /**
+     * @param principals - amount to be repaid of every loan, in paise
+     * @param annualInterestRate - yearly interest rate in percent
+     * @param months - number of monthly installments
+     * @return the schedules of all the loans added up month by month
+     */
+    public PortfolioSummary portfolio(long[] principals, double annualInterestRate, int months) {
+        PortfolioTask task =
+                new PortfolioTask(
+                        principals,
+                        0,
+                        principals.length,
+                        monthlyRate(annualInterestRate),
+                        months,
+                        Math.max(1, properties.getPortfolioLeafSize()));
+        return portfolioTimer.record(() -> portfolioPool.invoke(task));
+    }
+
+    private static double monthlyRate(double annualInterestRate) {
+        return annualInterestRate / 12 / 100;
+    }
+
+    private static long emiAtMonthlyRate(long principal, double rate, int months) {
+        if (months <= 0) {
+            return principal;
+        }
+        if (rate == 0) {
+            return (principal + months - 1) / months;
+        }
+        double growth = Math.pow(1 + rate, months);
+        return Math.round(principal * rate * growth / (growth - 1));
+    }
+
+    private static long clamp(long amount, long max) {
+        return Math.max(0, Math.min(amount, max));
+    }
+
+    // Splits the loans in halves till a part has at most leafSize loans, which are then amortized one after the other
+    private static final class PortfolioTask extends RecursiveTask<PortfolioSummary> {
+
+        private final long[] principals;
+        private final int from;
+        private final int to;
+        private final double rate;
+        private final int months;
+        private final int leafSize;
+
+        private PortfolioTask(
+                long[] principals, int from, int to, double rate, int months, int leafSize) {
+            this.principals = principals;
+            this.from = from;
+            this.to = to;
+            this.rate = rate;
+            this.months = months;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected PortfolioSummary compute() {
+            if (to - from <= leafSize) {
+                return amortize();
+            }
+            int middle = (from + to) >>> 1;
+            PortfolioTask left = new PortfolioTask(principals, from, middle, rate, months, leafSize);
+            PortfolioTask right = new PortfolioTask(principals, middle, to, rate, months, leafSize);
+            left.fork();
+            PortfolioSummary summary = right.compute();
+            return summary.merge(left.join());
+        }
+
+        // Same steps as schedule without a prepayment, added to the summary instead of kept per loan
+        private PortfolioSummary amortize() {
+            PortfolioSummary summary = new PortfolioSummary(months);
+            for (int loan = from; loan < to; loan++) {
+                long remaining = principals[loan];
+                long emi = emiAtMonthlyRate(remaining, rate, months);
+                summary.addLoan(remaining, emi);
+                for (int month = 1; month <= months && remaining > 0; month++) {
+                    long interest = Math.round(remaining * rate);
+                    long principalPart = month == months ? remaining : clamp(emi - interest, remaining);
+                    remaining -= principalPart;
+                    summary.addInstallment(month - 1, principalPart, interest);
+                }
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.rakesh.loans.amortization;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Terms used by the AmortizationEngine. The loans table has no interest rate or tenure of its own, so every loan is
+amortized with these unless the request gives others.*/
+@ConfigurationProperties(prefix = "amortization")
+@Getter
+@Setter
+public class AmortizationProperties {
+
+    // Yearly interest rate in percent, eg:- 8.5
+    private double annualInterestRate = 8.5;
+
+    // Number of monthly installments the outstanding amount is repaid in
+    private int tenureMonths = 240;
+
+    // Charged on the outstanding principal when a loan is paid off before its tenure, in percent
+    private double prepaymentChargePercent = 2.0;
+
+    // Threads of the pool computing the portfolio schedule, 0 means one per available processor
+    private int portfolioParallelism = 0;
+
+    // Number of loans below which a portfolio task computes its loans itself instead of splitting them further
+    private int portfolioLeafSize = 1024;
+}
@@ -0,0 +1,15 @@
+package com.rakesh.loans.amortization;
+
+/**
+ * Amount to close a loan, in paise
+ *
+ * @param outstandingPrincipal - principal left after the installments paid
+ * @param accruedInterest - interest of the days since the last installment
+ * @param prepaymentCharge - charge for closing the loan before its tenure
+ */
+public record PayoffQuote(long outstandingPrincipal, long accruedInterest, long prepaymentCharge) {
+
+    public long payoffAmount() {
+        return outstandingPrincipal + accruedInterest + prepaymentCharge;
+    }
+}
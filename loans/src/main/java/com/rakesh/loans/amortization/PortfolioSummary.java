@@ -0,0 +1,71 @@
+package com.rakesh.loans.amortization;
+
+/*Schedules of many loans added up month by month, the result of AmortizationEngine.portfolio. All the amounts are in
+paise, month 0 of the arrays is the first installment.*/
+public final class PortfolioSummary {
+
+    private int loans;
+    private long totalOutstanding;
+    private long totalEmi;
+    private long totalInterest;
+    private final long[] principalByMonth;
+    private final long[] interestByMonth;
+
+    PortfolioSummary(int months) {
+        this.principalByMonth = new long[months];
+        this.interestByMonth = new long[months];
+    }
+
+    void addLoan(long outstanding, long emi) {
+        loans++;
+        totalOutstanding += outstanding;
+        totalEmi += emi;
+    }
+
+    void addInstallment(int month, long principal, long interest) {
+        principalByMonth[month] += principal;
+        interestByMonth[month] += interest;
+        totalInterest += interest;
+    }
+
+    // Adds the other summary to this one, used to join the results of the fork/join tasks
+    PortfolioSummary merge(PortfolioSummary other) {
+        loans += other.loans;
+        totalOutstanding += other.totalOutstanding;
+        totalEmi += other.totalEmi;
+        totalInterest += other.totalInterest;
+        for (int month = 0; month < principalByMonth.length; month++) {
+            principalByMonth[month] += other.principalByMonth[month];
+            interestByMonth[month] += other.interestByMonth[month];
+        }
+        return this;
+    }
+
+    public int loans() {
+        return loans;
+    }
+
+    public long totalOutstanding() {
+        return totalOutstanding;
+    }
+
+    public long totalEmi() {
+        return totalEmi;
+    }
+
+    public long totalInterest() {
+        return totalInterest;
+    }
+
+    public int months() {
+        return principalByMonth.length;
+    }
+
+    public long principal(int month) {
+        return principalByMonth[month];
+    }
+
+    public long interest(int month) {
+        return interestByMonth[month];
+    }
+}
@@ -0,0 +1,7 @@
+package com.rakesh.loans.amortization;
+
+// What a prepayment reduces, the installments left (same EMI) or the EMI (same tenure)
+public enum PrepaymentMode {
+    REDUCE_TENURE,
+    REDUCE_EMI
+}
@@ -0,0 +1,70 @@
+package com.rakesh.loans.amortization;
+
+/*EMI schedule of one loan as computed by the AmortizationEngine, one entry per installment in each of the arrays. All
+the amounts are in paise.*/
+public final class Schedule {
+
+    private final long emi;
+    private final int installments;
+    private final long[] principal;
+    private final long[] interest;
+    private final long[] prepayment;
+    private final long[] balance;
+
+    Schedule(
+            long emi, int installments, long[] principal, long[] interest, long[] prepayment, long[] balance) {
+        this.emi = emi;
+        this.installments = installments;
+        this.principal = principal;
+        this.interest = interest;
+        this.prepayment = prepayment;
+        this.balance = balance;
+    }
+
+    // EMI of the first installment, it changes after a prepayment in REDUCE_EMI mode
+    public long emi() {
+        return emi;
+    }
+
+    public int installments() {
+        return installments;
+    }
+
+    // Installments are numbered from 0 here, from 1 in the API
+    public long principal(int installment) {
+        return principal[installment];
+    }
+
+    public long interest(int installment) {
+        return interest[installment];
+    }
+
+    public long prepayment(int installment) {
+        return prepayment[installment];
+    }
+
+    // Principal left after the installment
+    public long balance(int installment) {
+        return balance[installment];
+    }
+
+    public long payment(int installment) {
+        return principal[installment] + interest[installment] + prepayment[installment];
+    }
+
+    public long totalInterest() {
+        long total = 0;
+        for (int i = 0; i < installments; i++) {
+            total += interest[i];
+        }
+        return total;
+    }
+
+    public long totalPayment() {
+        long total = 0;
+        for (int i = 0; i < installments; i++) {
+            total += payment(i);
+        }
+        return total;
+    }
+}
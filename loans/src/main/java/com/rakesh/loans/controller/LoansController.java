@@ -1,18 +1,32 @@
 package com.rakesh.loans.controller;
 
+import com.rakesh.loans.amortization.PrepaymentMode;
 import com.rakesh.loans.constants.LoansConstants;
 import com.rakesh.loans.dto.ErrorResponseDto;
+import com.rakesh.loans.dto.LoanBulkCreateResultDto;
 import com.rakesh.loans.dto.LoansContactInfoDto;
+import com.rakesh.loans.dto.LoanScheduleDto;
 import com.rakesh.loans.dto.LoansDto;
+import com.rakesh.loans.dto.PayoffQuoteDto;
+import com.rakesh.loans.dto.PortfolioScheduleDto;
 import com.rakesh.loans.dto.ResponseDto;
 import com.rakesh.loans.service.ILoansService;
+import com.rakesh.loans.service.IScheduleService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,6 +57,7 @@ public class LoansController {
 
   private static final Logger logger = LoggerFactory.getLogger(LoansController.class);
   private final ILoansService iLoansService;
+  private final IScheduleService iScheduleService;
 
   //  This is used to read the value from the property file
   @Value("${build.version}")
@@ -54,8 +69,9 @@ public class LoansController {
   /*We can use this as a replacement for @Value and Environment when we have a lot of properties to map*/
   @Autowired private LoansContactInfoDto loansContactInfoDto;
 
-  public LoansController(ILoansService iLoansService) {
+  public LoansController(ILoansService iLoansService, IScheduleService iScheduleService) {
     this.iLoansService = iLoansService;
+    this.iScheduleService = iScheduleService;
   }
 
   @Operation(
@@ -77,6 +93,33 @@ public class LoansController {
         .body(new ResponseDto(LoansConstants.STATUS_201, LoansConstants.MESSAGE_201));
   }
 
+  @Operation(
+      summary = "Create Loans in bulk REST API",
+      description =
+          "REST API to create loans for up to "
+              + LoansConstants.BULK_CREATE_LIMIT
+              + " mobile numbers in a single call, with the outcome of every mobile number",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/create/bulk")
+  public ResponseEntity<List<LoanBulkCreateResultDto>> createLoans(
+      @RequestBody
+          @NotEmpty(message = "Mobile numbers can not be empty")
+          @Size(
+              max = LoansConstants.BULK_CREATE_LIMIT,
+              message = "At most " + LoansConstants.BULK_CREATE_LIMIT + " mobile numbers are allowed")
+          List<String> mobileNumbers) {
+    logger.debug("createLoans started for {} mobile numbers", mobileNumbers.size());
+    List<LoanBulkCreateResultDto> results = iLoansService.createLoans(mobileNumbers);
+    logger.debug("createLoans ended");
+    return ResponseEntity.status(HttpStatus.OK).body(results);
+  }
+
   @Operation(
       summary = "Fetch Loan Details REST API",
       description = "REST API to fetch loan details based on a mobile number",
@@ -98,6 +141,150 @@ public class LoansController {
     return ResponseEntity.status(HttpStatus.OK).body(loansDto);
   }
 
+  @Operation(
+      summary = "Fetch Loan Details in bulk REST API",
+      description =
+          "REST API to fetch loan details of up to "
+              + LoansConstants.FETCH_BATCH_LIMIT
+              + " mobile numbers in a single call",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @PostMapping("/fetch/batch")
+  public ResponseEntity<List<LoansDto>> fetchLoanDetailsBatch(
+      @RequestHeader("eazybank-correlation-id") String correlationId,
+      @RequestBody
+          @NotEmpty(message = "Mobile numbers can not be empty")
+          @Size(
+              max = LoansConstants.FETCH_BATCH_LIMIT,
+              message = "At most " + LoansConstants.FETCH_BATCH_LIMIT + " mobile numbers are allowed")
+          List<
+                  @Pattern(
+                      regexp = "(^$|[0-9]{10})",
+                      message = "Mobile number must be 10 digits")
+                  String>
+              mobileNumbers) {
+    logger.debug("fetchLoanDetailsBatch started for {} mobile numbers", mobileNumbers.size());
+    List<LoansDto> loansDtos = iLoansService.fetchLoans(mobileNumbers);
+    logger.debug("fetchLoanDetailsBatch ended");
+    return ResponseEntity.status(HttpStatus.OK).body(loansDtos);
+  }
+
+  @Operation(
+      summary = "Fetch Loan EMI Schedule REST API",
+      description =
+          "REST API to fetch the EMI schedule of the outstanding amount of a loan, optionally with a prepayment"
+              + " to see the interest and installments it saves",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "HTTP Status NOT_FOUND",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @GetMapping("/schedule")
+  public ResponseEntity<LoanScheduleDto> fetchSchedule(
+      @RequestParam @Pattern(regexp = "(^$|[0-9]{10})", message = "Mobile number must be 10 digits")
+          String mobileNumber,
+      @RequestParam(required = false)
+          @DecimalMin(value = "0.0", message = "Interest rate can not be negative")
+          @DecimalMax(value = "100.0", message = "Interest rate can be at most 100")
+          Double annualInterestRate,
+      @RequestParam(required = false)
+          @Min(value = 1, message = "Tenure should be at least 1 month")
+          @Max(value = 600, message = "Tenure can be at most 600 months")
+          Integer tenureMonths,
+      @RequestParam(required = false) @Positive(message = "Prepayment should be greater than zero")
+          Integer prepaymentAmount,
+      @RequestParam(defaultValue = "1") @Min(value = 1, message = "Installments start from 1")
+          int prepaymentInstallment,
+      @RequestParam(defaultValue = "REDUCE_TENURE") PrepaymentMode prepaymentMode) {
+    LoanScheduleDto loanScheduleDto =
+        iScheduleService.fetchSchedule(
+            mobileNumber,
+            annualInterestRate,
+            tenureMonths,
+            prepaymentAmount,
+            prepaymentInstallment,
+            prepaymentMode);
+    return ResponseEntity.status(HttpStatus.OK).body(loanScheduleDto);
+  }
+
+  @Operation(
+      summary = "Fetch Loan Payoff Quote REST API",
+      description =
+          "REST API to fetch the amount to close a loan after some installments of its EMI schedule are paid",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "404",
+            description = "HTTP Status NOT_FOUND",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @GetMapping("/payoff")
+  public ResponseEntity<PayoffQuoteDto> fetchPayoffQuote(
+      @RequestParam @Pattern(regexp = "(^$|[0-9]{10})", message = "Mobile number must be 10 digits")
+          String mobileNumber,
+      @RequestParam(defaultValue = "0") @Min(value = 0, message = "Installments paid can not be negative")
+          int installmentsPaid,
+      @RequestParam(defaultValue = "0")
+          @Min(value = 0, message = "Days can not be negative")
+          @Max(value = 31, message = "Days can be at most 31")
+          int daysSinceInstallment,
+      @RequestParam(required = false)
+          @DecimalMin(value = "0.0", message = "Interest rate can not be negative")
+          @DecimalMax(value = "100.0", message = "Interest rate can be at most 100")
+          Double annualInterestRate,
+      @RequestParam(required = false)
+          @Min(value = 1, message = "Tenure should be at least 1 month")
+          @Max(value = 600, message = "Tenure can be at most 600 months")
+          Integer tenureMonths) {
+    PayoffQuoteDto payoffQuoteDto =
+        iScheduleService.fetchPayoffQuote(
+            mobileNumber, installmentsPaid, daysSinceInstallment, annualInterestRate, tenureMonths);
+    return ResponseEntity.status(HttpStatus.OK).body(payoffQuoteDto);
+  }
+
+  @Operation(
+      summary = "Fetch Portfolio EMI Schedule REST API",
+      description =
+          "REST API to compute the EMI schedules of all the loans and add them up month by month",
+      responses = {
+        @ApiResponse(responseCode = "200", description = "HTTP Status OK"),
+        @ApiResponse(
+            responseCode = "500",
+            description = "HTTP Status Internal Server Error",
+            content = @Content(schema = @Schema(implementation = ErrorResponseDto.class)))
+      })
+  @GetMapping("/schedule/portfolio")
+  public ResponseEntity<PortfolioScheduleDto> fetchPortfolioSchedule(
+      @RequestParam(required = false)
+          @DecimalMin(value = "0.0", message = "Interest rate can not be negative")
+          @DecimalMax(value = "100.0", message = "Interest rate can be at most 100")
+          Double annualInterestRate,
+      @RequestParam(required = false)
+          @Min(value = 1, message = "Tenure should be at least 1 month")
+          @Max(value = 600, message = "Tenure can be at most 600 months")
+          Integer tenureMonths) {
+    logger.debug("fetchPortfolioSchedule started");
+    PortfolioScheduleDto portfolioScheduleDto =
+        iScheduleService.fetchPortfolioSchedule(annualInterestRate, tenureMonths);
+    logger.debug("fetchPortfolioSchedule ended for {} loans", portfolioScheduleDto.getLoans());
+    return ResponseEntity.status(HttpStatus.OK).body(portfolioScheduleDto);
+  }
+
   @Operation(
       summary = "Update Loan Details REST API",
       description = "REST API to update loan details based on a loan number",
@@ -0,0 +1,39 @@
+package com.rakesh.loans.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Read replicas of the loans database, see datasource-routing in application.yml.*/
+@ConfigurationProperties(prefix = "datasource-routing")
+@Getter
+@Setter
+public class DataSourceRoutingProperties {
+
+    private boolean enabled = false;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // How often every replica is checked, a replica failing the check gets no reads till it passes again
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+
+    /*After a write, the reads of the same session go to the primary for this long so that they see the write even
+    if the replicas are lagging. The session is the eazybank-session-id header, else the mobileNumber parameter.
+    0 disables it.*/
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+
+        // The username and password of the primary are used when these are not given
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,71 @@
+package com.rakesh.loans.datasource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+/*Binds the session of the request to the thread for ReadYourWrites, like the filter of the accounts service.
+The mobileNumber of a write with a JSON body (eg:- update) is pinned once the request has been handled.*/
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String SESSION_HEADER = "eazybank-session-id";
+    private static final String MOBILE_NUMBER = "mobileNumber";
+
+    private final ReadYourWrites readYourWrites;
+    private final ObjectMapper objectMapper;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites, ObjectMapper objectMapper) {
+        this.readYourWrites = readYourWrites;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String session = request.getHeader(SESSION_HEADER);
+        if (session == null || session.isBlank()) {
+            session = request.getParameter(MOBILE_NUMBER);
+        }
+        ReadYourWrites.bind(session);
+        try {
+            if (session == null && hasJsonBody(request)) {
+                ContentCachingRequestWrapper cachingRequest = new ContentCachingRequestWrapper(request);
+                filterChain.doFilter(cachingRequest, response);
+                if (ReadYourWrites.wroteWithoutSession()) {
+                    pinBodySession(cachingRequest.getContentAsByteArray());
+                }
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    private static boolean hasJsonBody(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                && request.getContentType() != null
+                && MediaType.APPLICATION_JSON.isCompatibleWith(
+                        MediaType.parseMediaType(request.getContentType()));
+    }
+
+    private void pinBodySession(byte[] body) {
+        try {
+            JsonNode mobileNumber = objectMapper.readTree(body).path(MOBILE_NUMBER);
+            if (mobileNumber.isTextual()) {
+                readYourWrites.pin(mobileNumber.asText());
+            }
+        } catch (IOException exception) {
+            // Not a JSON object, there is no session to pin
+        }
+    }
+}
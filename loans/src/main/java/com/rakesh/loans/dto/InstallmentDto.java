@@ -0,0 +1,32 @@
+package com.rakesh.loans.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "Installment", description = "Schema to hold one installment of an EMI schedule")
+public class InstallmentDto {
+
+    @Schema(description = "Number of the installment, from 1", example = "1")
+    private int installment;
+
+    @Schema(description = "Amount paid with the installment, prepayment included", example = "867.82")
+    private BigDecimal payment;
+
+    @Schema(description = "Part of the EMI repaying principal", example = "159.49")
+    private BigDecimal principal;
+
+    @Schema(description = "Part of the EMI paying interest", example = "708.33")
+    private BigDecimal interest;
+
+    @Schema(description = "Extra principal paid with the installment, only when there is one", example = "10000.00")
+    private BigDecimal prepayment;
+
+    @Schema(description = "Principal left after the installment", example = "99840.51")
+    private BigDecimal balance;
+}
@@ -0,0 +1,27 @@
+package com.rakesh.loans.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+        name = "LoanBulkCreateResult",
+        description = "Schema to hold the outcome of one mobile number of a bulk loan creation")
+public class LoanBulkCreateResultDto {
+
+    @Schema(description = "Mobile number as given in the request", example = "4354437687")
+    private String mobileNumber;
+
+    @Schema(description = "CREATED, DUPLICATE, INVALID or FAILED", example = "CREATED")
+    private String status;
+
+    @Schema(description = "Loan number of the created loan", example = "548732457654")
+    private String loanNumber;
+
+    @Schema(description = "Reason the loan was not created")
+    private String message;
+}
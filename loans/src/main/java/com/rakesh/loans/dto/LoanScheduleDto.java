@@ -0,0 +1,43 @@
+package com.rakesh.loans.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(name = "LoanSchedule", description = "Schema to hold the EMI schedule of a loan")
+public class LoanScheduleDto {
+
+    @Schema(description = "Loan Number of the customer", example = "548732457654")
+    private String loanNumber;
+
+    @Schema(description = "Outstanding amount the schedule repays", example = "100000.00")
+    private BigDecimal principal;
+
+    @Schema(description = "Yearly interest rate in percent", example = "8.5")
+    private double annualInterestRate;
+
+    @Schema(description = "Number of monthly installments asked for", example = "240")
+    private int tenureMonths;
+
+    @Schema(description = "EMI of the first installment", example = "867.82")
+    private BigDecimal emi;
+
+    @Schema(description = "Interest paid over the whole schedule", example = "108276.80")
+    private BigDecimal totalInterest;
+
+    @Schema(description = "Amount paid over the whole schedule", example = "208276.80")
+    private BigDecimal totalPayment;
+
+    @Schema(description = "Interest saved by the prepayment, only when one is given", example = "21345.67")
+    private BigDecimal interestSaved;
+
+    @Schema(description = "Installments saved by the prepayment, only when one is given", example = "38")
+    private Integer installmentsSaved;
+
+    @Schema(description = "Installments of the schedule")
+    private List<InstallmentDto> installments;
+}
@@ -0,0 +1,30 @@
+package com.rakesh.loans.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@Schema(name = "PayoffQuote", description = "Schema to hold the amount to close a loan")
+public class PayoffQuoteDto {
+
+    @Schema(description = "Loan Number of the customer", example = "548732457654")
+    private String loanNumber;
+
+    @Schema(description = "Installments paid so far", example = "12")
+    private int installmentsPaid;
+
+    @Schema(description = "Principal left after the installments paid", example = "97980.24")
+    private BigDecimal outstandingPrincipal;
+
+    @Schema(description = "Interest of the days since the last installment", example = "228.62")
+    private BigDecimal accruedInterest;
+
+    @Schema(description = "Charge for closing the loan before its tenure", example = "1959.60")
+    private BigDecimal prepaymentCharge;
+
+    @Schema(description = "Amount to be paid to close the loan", example = "100168.46")
+    private BigDecimal payoffAmount;
+}
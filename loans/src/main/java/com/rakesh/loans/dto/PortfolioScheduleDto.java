@@ -0,0 +1,48 @@
+package com.rakesh.loans.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@Schema(
+        name = "PortfolioSchedule",
+        description = "Schema to hold the EMI schedules of all the loans added up month by month")
+public class PortfolioScheduleDto {
+
+    @Schema(description = "Number of loans", example = "1000")
+    private int loans;
+
+    @Schema(description = "Yearly interest rate in percent the loans were amortized with", example = "8.5")
+    private double annualInterestRate;
+
+    @Schema(description = "Number of monthly installments the loans were amortized over", example = "240")
+    private int tenureMonths;
+
+    @Schema(description = "Outstanding amount of all the loans", example = "100000000.00")
+    private BigDecimal totalOutstanding;
+
+    @Schema(description = "Sum of the EMI of all the loans", example = "867820.00")
+    private BigDecimal totalMonthlyEmi;
+
+    @Schema(description = "Interest to be received from all the loans", example = "108276800.00")
+    private BigDecimal totalInterest;
+
+    @Schema(description = "Principal and interest to be received, month by month")
+    private List<CashFlow> monthlyCashFlow;
+
+    @Data
+    @Schema(name = "CashFlow", description = "Principal and interest of all the loans for one month")
+    public static class CashFlow {
+
+        @Schema(description = "Number of the installment, from 1", example = "1")
+        private int installment;
+
+        @Schema(description = "Principal repaid in the month", example = "159490.00")
+        private BigDecimal principal;
+
+        @Schema(description = "Interest paid in the month", example = "708330.00")
+        private BigDecimal interest;
+    }
+}
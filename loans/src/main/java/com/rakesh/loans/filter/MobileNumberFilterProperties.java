@@ -0,0 +1,24 @@
+package com.rakesh.loans.filter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/*Settings of the bloom filter of the mobile numbers having a loan, see MobileNumberFilter.*/
+@ConfigurationProperties(prefix = "mobile-number-filter")
+@Getter
+@Setter
+public class MobileNumberFilterProperties {
+
+    private boolean enabled = true;
+
+    /*Number of mobile numbers the filter is sized for at first, it grows past it by adding a twice bigger stage,
+    which costs a little more memory and a little more lookup time than sizing it right.*/
+    private long expectedInsertions = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+
+    /*Deleted numbers can not be taken out of a bloom filter, they are answered as maybe present until the filter is
+    rebuilt. It is rebuilt once the deletes since the last rebuild are this part of the numbers in it.*/
+    private double rebuildAfterDeletedRatio = 0.1;
+}
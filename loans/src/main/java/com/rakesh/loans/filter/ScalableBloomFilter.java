@@ -0,0 +1,160 @@
+package com.rakesh.loans.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*Scalable bloom filter, the same as the ScalableBloomFilter of the cards service.*/
+class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private volatile List<Stage> stages;
+
+    /**
+     * @param initialCapacity - number of values the first stage is sized for
+     * @param falsePositiveRate - false positive rate of the whole filter, eg:- 0.01
+     */
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.stages =
+                List.of(new Stage(Math.max(1, initialCapacity), falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        List<Stage> current = stages;
+        // Already there (or a false positive), counting it again would only fill the stage sooner
+        if (mightContain(current, hash)) {
+            return;
+        }
+        Stage last = current.get(current.size() - 1);
+        if (last.isFull()) {
+            last = grow(last);
+        }
+        last.put(hash);
+    }
+
+    boolean mightContain(String value) {
+        return mightContain(stages, hash(value));
+    }
+
+    private static boolean mightContain(List<Stage> stages, long hash) {
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long approximateElementCount() {
+        return stages.stream().mapToLong(stage -> stage.count.get()).sum();
+    }
+
+    long sizeInBytes() {
+        return stages.stream().mapToLong(stage -> (long) stage.bits.length() * Long.BYTES).sum();
+    }
+
+    // Estimated from how full the stages are, a value is a false positive if any of the stages matches it
+    double expectedFalsePositiveRate() {
+        double noneMatches = 1;
+        for (Stage stage : stages) {
+            double fill = (double) stage.bitsSet.get() / stage.bitCount;
+            noneMatches *= 1 - Math.pow(fill, stage.hashFunctions);
+        }
+        return 1 - noneMatches;
+    }
+
+    private synchronized Stage grow(Stage full) {
+        List<Stage> current = stages;
+        Stage last = current.get(current.size() - 1);
+        if (last != full) {
+            return last;
+        }
+        double stageRate = falsePositiveRate * (1 - TIGHTENING) * Math.pow(TIGHTENING, current.size());
+        Stage next = new Stage(last.capacity * GROWTH, stageRate);
+        List<Stage> grown = new ArrayList<>(current);
+        grown.add(next);
+        stages = List.copyOf(grown);
+        return next;
+    }
+
+    // 64 bit FNV-1a of the utf-8 bytes with the murmur3 finalizer on top
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Stage {
+
+        private final long capacity;
+        private final long bitCount;
+        private final int hashFunctions;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong bitsSet = new AtomicLong();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            long optimalBits =
+                    (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+            this.bits = new AtomicLongArray(Math.max(1, words));
+            this.bitCount = (long) bits.length() * Long.SIZE;
+            this.hashFunctions =
+                    Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        private boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        // Double hashing, the k indexes are h1 + i * h2 (Kirsch and Mitzenmacher)
+        private void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod((long) h1 + (long) i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                while (true) {
+                    long current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                    if (bits.compareAndSet(word, current, current | mask)) {
+                        bitsSet.incrementAndGet();
+                        break;
+                    }
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod((long) h1 + (long) i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
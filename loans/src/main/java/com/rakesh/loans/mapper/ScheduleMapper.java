@@ -0,0 +1,73 @@
+package com.rakesh.loans.mapper;
+
+import com.rakesh.loans.amortization.PayoffQuote;
+import com.rakesh.loans.amortization.PortfolioSummary;
+import com.rakesh.loans.amortization.Schedule;
+import com.rakesh.loans.dto.InstallmentDto;
+import com.rakesh.loans.dto.LoanScheduleDto;
+import com.rakesh.loans.dto.PayoffQuoteDto;
+import com.rakesh.loans.dto.PortfolioScheduleDto;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// The amortization engine works in paise, the API in rupees with two decimals
+public class ScheduleMapper {
+
+    public static LoanScheduleDto mapToLoanScheduleDto(
+            Schedule schedule, LoanScheduleDto loanScheduleDto) {
+        loanScheduleDto.setEmi(rupees(schedule.emi()));
+        loanScheduleDto.setTotalInterest(rupees(schedule.totalInterest()));
+        loanScheduleDto.setTotalPayment(rupees(schedule.totalPayment()));
+        List<InstallmentDto> installments = new ArrayList<>(schedule.installments());
+        for (int i = 0; i < schedule.installments(); i++) {
+            installments.add(
+                    new InstallmentDto(
+                            i + 1,
+                            rupees(schedule.payment(i)),
+                            rupees(schedule.principal(i)),
+                            rupees(schedule.interest(i)),
+                            schedule.prepayment(i) > 0 ? rupees(schedule.prepayment(i)) : null,
+                            rupees(schedule.balance(i))));
+        }
+        loanScheduleDto.setInstallments(installments);
+        return loanScheduleDto;
+    }
+
+    public static PayoffQuoteDto mapToPayoffQuoteDto(
+            String loanNumber, int installmentsPaid, PayoffQuote payoffQuote) {
+        return new PayoffQuoteDto(
+                loanNumber,
+                installmentsPaid,
+                rupees(payoffQuote.outstandingPrincipal()),
+                rupees(payoffQuote.accruedInterest()),
+                rupees(payoffQuote.prepaymentCharge()),
+                rupees(payoffQuote.payoffAmount()));
+    }
+
+    public static PortfolioScheduleDto mapToPortfolioScheduleDto(
+            PortfolioSummary summary, PortfolioScheduleDto portfolioScheduleDto) {
+        portfolioScheduleDto.setLoans(summary.loans());
+        portfolioScheduleDto.setTotalOutstanding(rupees(summary.totalOutstanding()));
+        portfolioScheduleDto.setTotalMonthlyEmi(rupees(summary.totalEmi()));
+        portfolioScheduleDto.setTotalInterest(rupees(summary.totalInterest()));
+        List<PortfolioScheduleDto.CashFlow> cashFlows = new ArrayList<>(summary.months());
+        for (int month = 0; month < summary.months(); month++) {
+            PortfolioScheduleDto.CashFlow cashFlow = new PortfolioScheduleDto.CashFlow();
+            cashFlow.setInstallment(month + 1);
+            cashFlow.setPrincipal(rupees(summary.principal(month)));
+            cashFlow.setInterest(rupees(summary.interest(month)));
+            cashFlows.add(cashFlow);
+        }
+        portfolioScheduleDto.setMonthlyCashFlow(cashFlows);
+        return portfolioScheduleDto;
+    }
+
+    public static long paise(int rupees) {
+        return rupees * 100L;
+    }
+
+    public static BigDecimal rupees(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+}
@@ -1,15 +1,50 @@
 package com.rakesh.loans.repository;
 
 import com.rakesh.loans.entity.Loans;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface LoansRepository extends JpaRepository<Loans, Long> {
+public interface LoansRepository extends NaturalIdRepository<Loans, Long> {
 
   Optional<Loans> findByMobileNumber(String mobileNumber);
 
-  Optional<Loans> findByLoanNumber(String loanNumber);
+  // loanNumber is the natural id of Loans
+  default Optional<Loans> findByLoanNumber(String loanNumber) {
+    return findBySimpleNaturalId(loanNumber);
+  }
+
+  List<Loans> findAllByMobileNumberIn(Collection<String> mobileNumbers);
+
+  boolean existsByMobileNumber(String mobileNumber);
+
+  @Query("select l.mobileNumber from Loans l where l.mobileNumber in :mobileNumbers")
+  List<String> findExistingMobileNumbers(@Param("mobileNumbers") Collection<String> mobileNumbers);
+
+  /*Every mobile number having a loan, for building the MobileNumberFilter. Integer.MIN_VALUE as fetch size makes
+  the MySQL driver stream the rows instead of reading them all in memory first, has to be closed and used inside a
+  transaction.*/
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select l.mobileNumber from Loans l")
+  Stream<String> streamAllMobileNumbers();
+
+  // Outstanding amount of every loan for the portfolio schedule, streamed the same way as streamAllMobileNumbers
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select l.outstandingAmount from Loans l")
+  Stream<Integer> streamAllOutstandingAmounts();
 }
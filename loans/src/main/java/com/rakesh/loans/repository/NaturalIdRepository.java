@@ -0,0 +1,13 @@
+package com.rakesh.loans.repository;
+
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/*Adds lookups by the @NaturalId of an entity. Loans is not in the second level cache, so here they only save the
+select when the row is already in the persistence context.*/
+@NoRepositoryBean
+public interface NaturalIdRepository<T, ID> extends JpaRepository<T, ID> {
+
+    Optional<T> findBySimpleNaturalId(Object naturalId);
+}
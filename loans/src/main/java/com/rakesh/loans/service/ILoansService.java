@@ -1,6 +1,8 @@
 package com.rakesh.loans.service;
 
+import com.rakesh.loans.dto.LoanBulkCreateResultDto;
 import com.rakesh.loans.dto.LoansDto;
+import java.util.List;
 
 public interface ILoansService {
 
@@ -9,12 +11,24 @@ public interface ILoansService {
    */
   void createLoan(String mobileNumber);
 
+  /**
+   * @param mobileNumbers - Mobile Numbers of the Customers
+   * @return the outcome of every mobile number, in the order they were given
+   */
+  List<LoanBulkCreateResultDto> createLoans(List<String> mobileNumbers);
+
   /**
    * @param mobileNumber - Input mobile Number
    * @return Loan Details based on a given mobileNumber
    */
   LoansDto fetchLoan(String mobileNumber);
 
+  /**
+   * @param mobileNumbers - Input mobile Numbers
+   * @return Loan Details of all the given mobileNumbers that have a loan, fetched in a single query
+   */
+  List<LoansDto> fetchLoans(List<String> mobileNumbers);
+
   /**
    * @param loansDto - LoansDto Object
    * @return boolean indicating if the update of card details is successful or not
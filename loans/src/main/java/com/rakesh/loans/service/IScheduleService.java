@@ -0,0 +1,48 @@
+package com.rakesh.loans.service;
+
+import com.rakesh.loans.amortization.PrepaymentMode;
+import com.rakesh.loans.dto.LoanScheduleDto;
+import com.rakesh.loans.dto.PayoffQuoteDto;
+import com.rakesh.loans.dto.PortfolioScheduleDto;
+
+public interface IScheduleService {
+
+    /**
+     * @param mobileNumber - Input mobile Number
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @param prepaymentAmount - what-if extra principal paid, none when null
+     * @param prepaymentInstallment - installment the prepayment is paid with
+     * @param prepaymentMode - what the prepayment reduces
+     * @return EMI schedule of the outstanding amount of the loan
+     */
+    LoanScheduleDto fetchSchedule(
+            String mobileNumber,
+            Double annualInterestRate,
+            Integer tenureMonths,
+            Integer prepaymentAmount,
+            int prepaymentInstallment,
+            PrepaymentMode prepaymentMode);
+
+    /**
+     * @param mobileNumber - Input mobile Number
+     * @param installmentsPaid - installments of the schedule paid so far
+     * @param daysSinceInstallment - days since the last installment paid
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @return amount to close the loan
+     */
+    PayoffQuoteDto fetchPayoffQuote(
+            String mobileNumber,
+            int installmentsPaid,
+            int daysSinceInstallment,
+            Double annualInterestRate,
+            Integer tenureMonths);
+
+    /**
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @return schedules of all the loans added up month by month
+     */
+    PortfolioScheduleDto fetchPortfolioSchedule(Double annualInterestRate, Integer tenureMonths);
+}
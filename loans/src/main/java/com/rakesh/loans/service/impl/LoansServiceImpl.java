@@ -2,35 +2,162 @@ package com.rakesh.loans.service.impl;
 
 
 import com.rakesh.loans.constants.LoansConstants;
+import com.rakesh.loans.dto.LoanBulkCreateResultDto;
 import com.rakesh.loans.dto.LoansDto;
 import com.rakesh.loans.entity.Loans;
 import com.rakesh.loans.exception.LoanAlreadyExistsException;
 import com.rakesh.loans.exception.ResourceNotFoundException;
+import com.rakesh.loans.exception.UniqueKeys;
+import com.rakesh.loans.filter.MobileNumberFilter;
+import com.rakesh.loans.generator.NumberAllocator;
 import com.rakesh.loans.mapper.LoansMapper;
 import com.rakesh.loans.repository.LoansRepository;
 import com.rakesh.loans.service.ILoansService;
 import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 @Service
 @AllArgsConstructor
 public class LoansServiceImpl implements ILoansService {
 
+    private static final Logger logger = LoggerFactory.getLogger(LoansServiceImpl.class);
+    private static final Pattern MOBILE_NUMBER = Pattern.compile("[0-9]{10}");
+
     private LoansRepository loansRepository;
+    private NumberAllocator numberAllocator;
+    private MobileNumberFilter mobileNumberFilter;
+    private TransactionTemplate transactionTemplate;
 
     /**
      * @param mobileNumber - Mobile Number of the Customer
      */
     @Override
+    @Transactional
     public void createLoan(String mobileNumber) {
-        Optional<Loans> optionalLoans= loansRepository.findByMobileNumber(mobileNumber);
-        if(optionalLoans.isPresent()){
-            throw new LoanAlreadyExistsException("Loan already registered with given mobileNumber "+mobileNumber);
+        /*The unique key rejects a duplicate in any case, the look up only spares leasing a loan number for it and
+        only runs when the bloom filter may hold the number, see MobileNumberFilter.*/
+        if (mobileNumberFilter.needsLookup(mobileNumber)) {
+            boolean exists = loansRepository.existsByMobileNumber(mobileNumber);
+            mobileNumberFilter.lookedUp(exists);
+            if (exists) {
+                throw new LoanAlreadyExistsException("Loan already registered with given mobileNumber "+mobileNumber);
+            }
+        }
+        /*Two requests could both pass the look up and create two loans for the same mobile number. The unique key
+        on mobile_number rejects the duplicate, flushed right away so we get it here.*/
+        try {
+            loansRepository.saveAndFlush(createNewLoan(mobileNumber));
+        } catch (DataIntegrityViolationException exception) {
+            throw alreadyExistsOr(exception, mobileNumber);
+        }
+        mobileNumberFilter.added(mobileNumber);
+    }
+
+    /**
+     * @param mobileNumbers - Mobile Numbers of the Customers
+     * @return the outcome of every mobile number, in the order they were given
+     */
+    /*The mobile numbers are created in chunks of BULK_CREATE_CHUNK_SIZE, each chunk with one query for the numbers
+    that already have a loan and one transaction for the new loans. The loan ids come from the pooled-lo sequence and
+    the loan numbers from the NumberAllocator, nothing is read back per loan, so hibernate sends the inserts as JDBC
+    batches at commit. Not @Transactional, a failing chunk must not roll back the chunks before it.*/
+    @Override
+    public List<LoanBulkCreateResultDto> createLoans(List<String> mobileNumbers) {
+        LoanBulkCreateResultDto[] results = new LoanBulkCreateResultDto[mobileNumbers.size()];
+        Set<String> seenMobileNumbers = new HashSet<>();
+        List<Integer> chunk = new ArrayList<>(LoansConstants.BULK_CREATE_CHUNK_SIZE);
+        for (int i = 0; i < mobileNumbers.size(); i++) {
+            String mobileNumber = mobileNumbers.get(i);
+            if (mobileNumber == null || !MOBILE_NUMBER.matcher(mobileNumber).matches()) {
+                results[i] = bulkResult(mobileNumber, LoansConstants.BULK_INVALID, "Mobile number must be 10 digits");
+            } else if (!seenMobileNumbers.add(mobileNumber)) {
+                results[i] = bulkResult(mobileNumber, LoansConstants.BULK_DUPLICATE, "Mobile number given more than once");
+            } else {
+                chunk.add(i);
+                if (chunk.size() == LoansConstants.BULK_CREATE_CHUNK_SIZE) {
+                    createChunk(mobileNumbers, chunk, results);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            createChunk(mobileNumbers, chunk, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void createChunk(List<String> mobileNumbers, List<Integer> chunk, LoanBulkCreateResultDto[] results) {
+        List<String> chunkMobileNumbers = chunk.stream().map(mobileNumbers::get).toList();
+        // One query for the whole chunk instead of one look up per mobile number
+        Set<String> existingMobileNumbers = new HashSet<>(loansRepository.findExistingMobileNumbers(chunkMobileNumbers));
+        List<Integer> toCreate = new ArrayList<>(chunk.size());
+        for (int index : chunk) {
+            String mobileNumber = mobileNumbers.get(index);
+            if (existingMobileNumbers.contains(mobileNumber)) {
+                results[index] = duplicateResult(mobileNumber);
+            } else {
+                toCreate.add(index);
+            }
+        }
+
+        List<Loans> created = null;
+        try {
+            List<Loans> newLoans = toCreate.stream().map(index -> createNewLoan(mobileNumbers.get(index))).toList();
+            created = transactionTemplate.execute(status -> loansRepository.saveAll(newLoans));
+        } catch (RuntimeException exception) {
+            /*Some loan of the chunk could not be saved (eg:- the same mobile number was created meanwhile by another
+            request), the whole chunk is rolled back, so we retry the loans one by one to find the culprit.*/
+            logger.warn("Bulk creation of {} loans failed, retrying them one by one", toCreate.size(), exception);
+        }
+
+        for (int i = 0; i < toCreate.size(); i++) {
+            int index = toCreate.get(i);
+            String mobileNumber = mobileNumbers.get(index);
+            Loans loan;
+            if (created != null) {
+                loan = created.get(i);
+            } else {
+                try {
+                    loan = transactionTemplate.execute(status -> loansRepository.save(createNewLoan(mobileNumber)));
+                } catch (RuntimeException exception) {
+                    results[index] = UniqueKeys.isViolated(exception, LoansConstants.LOAN_MOBILE_NUMBER_KEY)
+                            ? duplicateResult(mobileNumber)
+                            : bulkResult(mobileNumber, LoansConstants.BULK_FAILED, exception.getMessage());
+                    continue;
+                }
+            }
+            mobileNumberFilter.added(mobileNumber);
+            results[index] = new LoanBulkCreateResultDto(
+                    mobileNumber, LoansConstants.BULK_CREATED, loan.getLoanNumber(), null);
+        }
+    }
+
+    private LoanBulkCreateResultDto duplicateResult(String mobileNumber) {
+        return bulkResult(mobileNumber, LoansConstants.BULK_DUPLICATE,
+                "Loan already registered with given mobileNumber " + mobileNumber);
+    }
+
+    private LoanBulkCreateResultDto bulkResult(String mobileNumber, String status, String message) {
+        return new LoanBulkCreateResultDto(mobileNumber, status, null, message);
+    }
+
+    private RuntimeException alreadyExistsOr(RuntimeException exception, String mobileNumber) {
+        if (UniqueKeys.isViolated(exception, LoansConstants.LOAN_MOBILE_NUMBER_KEY)) {
+            return new LoanAlreadyExistsException("Loan already registered with given mobileNumber "+mobileNumber);
         }
-        loansRepository.save(createNewLoan(mobileNumber));
+        return exception;
     }
 
     /**
@@ -39,8 +166,7 @@ public class LoansServiceImpl implements ILoansService {
      */
     private Loans createNewLoan(String mobileNumber) {
         Loans newLoan = new Loans();
-        long randomLoanNumber = 100000000000L + new Random().nextInt(900000000);
-        newLoan.setLoanNumber(Long.toString(randomLoanNumber));
+        newLoan.setLoanNumber(Long.toString(numberAllocator.next(LoansConstants.LOAN_NUMBER_SEQUENCE)));
         newLoan.setMobileNumber(mobileNumber);
         newLoan.setLoanType(LoansConstants.HOME_LOAN);
         newLoan.setTotalLoan(LoansConstants.NEW_LOAN_LIMIT);
@@ -55,6 +181,7 @@ public class LoansServiceImpl implements ILoansService {
      * @return Loan Details based on a given mobileNumber
      */
     @Override
+    @Transactional(readOnly = true)
     public LoansDto fetchLoan(String mobileNumber) {
         Loans loans = loansRepository.findByMobileNumber(mobileNumber).orElseThrow(
                 () -> new ResourceNotFoundException("Loan", "mobileNumber", mobileNumber)
@@ -62,17 +189,36 @@ public class LoansServiceImpl implements ILoansService {
         return LoansMapper.mapToLoansDto(loans, new LoansDto());
     }
 
+    /**
+     *
+     * @param mobileNumbers - Input mobile Numbers
+     * @return Loan Details of all the given mobileNumbers that have a loan, fetched in a single query
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<LoansDto> fetchLoans(List<String> mobileNumbers) {
+        return loansRepository.findAllByMobileNumberIn(mobileNumbers).stream()
+                .map(loans -> LoansMapper.mapToLoansDto(loans, new LoansDto()))
+                .toList();
+    }
+
     /**
      *
      * @param loansDto - LoansDto Object
      * @return boolean indicating if the update of loan details is successful or not
      */
     @Override
+    @Transactional
     public boolean updateLoan(LoansDto loansDto) {
         Loans loans = loansRepository.findByLoanNumber(loansDto.getLoanNumber()).orElseThrow(
                 () -> new ResourceNotFoundException("Loan", "LoanNumber", loansDto.getLoanNumber()));
         LoansMapper.mapToLoans(loansDto, loans);
-        loansRepository.save(loans);
+        try {
+            loansRepository.saveAndFlush(loans);
+        } catch (DataIntegrityViolationException exception) {
+            throw alreadyExistsOr(exception, loans.getMobileNumber());
+        }
+        mobileNumberFilter.added(loans.getMobileNumber());
         return  true;
     }
 
@@ -81,11 +227,13 @@ public class LoansServiceImpl implements ILoansService {
      * @return boolean indicating if the delete of loan details is successful or not
      */
     @Override
+    @Transactional
     public boolean deleteLoan(String mobileNumber) {
         Loans loans = loansRepository.findByMobileNumber(mobileNumber).orElseThrow(
                 () -> new ResourceNotFoundException("Loan", "mobileNumber", mobileNumber)
         );
         loansRepository.deleteById(loans.getLoanId());
+        mobileNumberFilter.removed();
         return true;
     }
 
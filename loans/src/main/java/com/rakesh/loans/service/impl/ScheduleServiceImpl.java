@@ -0,0 +1,130 @@
+package com.rakesh.loans.service.impl;
+
+import com.rakesh.loans.amortization.AmortizationEngine;
+import com.rakesh.loans.amortization.AmortizationProperties;
+import com.rakesh.loans.amortization.PayoffQuote;
+import com.rakesh.loans.amortization.PrepaymentMode;
+import com.rakesh.loans.amortization.Schedule;
+import com.rakesh.loans.dto.LoanScheduleDto;
+import com.rakesh.loans.dto.PayoffQuoteDto;
+import com.rakesh.loans.dto.PortfolioScheduleDto;
+import com.rakesh.loans.entity.Loans;
+import com.rakesh.loans.exception.ResourceNotFoundException;
+import com.rakesh.loans.mapper.ScheduleMapper;
+import com.rakesh.loans.repository.LoansRepository;
+import com.rakesh.loans.service.IScheduleService;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+public class ScheduleServiceImpl implements IScheduleService {
+
+    private LoansRepository loansRepository;
+    private AmortizationEngine amortizationEngine;
+    private AmortizationProperties amortizationProperties;
+
+    /**
+     * @param mobileNumber - Input mobile Number
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @param prepaymentAmount - what-if extra principal paid, none when null
+     * @param prepaymentInstallment - installment the prepayment is paid with
+     * @param prepaymentMode - what the prepayment reduces
+     * @return EMI schedule of the outstanding amount of the loan
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public LoanScheduleDto fetchSchedule(String mobileNumber, Double annualInterestRate, Integer tenureMonths,
+                                         Integer prepaymentAmount, int prepaymentInstallment,
+                                         PrepaymentMode prepaymentMode) {
+        Loans loans = findLoan(mobileNumber);
+        double rate = rateOrDefault(annualInterestRate);
+        int months = tenureOrDefault(tenureMonths);
+        long principal = ScheduleMapper.paise(loans.getOutstandingAmount());
+        long prepayment = prepaymentAmount != null ? ScheduleMapper.paise(prepaymentAmount) : 0;
+        Schedule schedule = amortizationEngine.schedule(
+                principal, rate, months, prepayment, prepaymentInstallment, prepaymentMode);
+
+        LoanScheduleDto loanScheduleDto = ScheduleMapper.mapToLoanScheduleDto(schedule, new LoanScheduleDto());
+        loanScheduleDto.setLoanNumber(loans.getLoanNumber());
+        loanScheduleDto.setPrincipal(ScheduleMapper.rupees(principal));
+        loanScheduleDto.setAnnualInterestRate(rate);
+        loanScheduleDto.setTenureMonths(months);
+        // The what-if is told against the same loan without the prepayment
+        if (prepayment > 0) {
+            Schedule withoutPrepayment = amortizationEngine.schedule(
+                    principal, rate, months, 0, 0, prepaymentMode);
+            loanScheduleDto.setInterestSaved(
+                    ScheduleMapper.rupees(withoutPrepayment.totalInterest() - schedule.totalInterest()));
+            loanScheduleDto.setInstallmentsSaved(withoutPrepayment.installments() - schedule.installments());
+        }
+        return loanScheduleDto;
+    }
+
+    /**
+     * @param mobileNumber - Input mobile Number
+     * @param installmentsPaid - installments of the schedule paid so far
+     * @param daysSinceInstallment - days since the last installment paid
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @return amount to close the loan
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PayoffQuoteDto fetchPayoffQuote(String mobileNumber, int installmentsPaid, int daysSinceInstallment,
+                                           Double annualInterestRate, Integer tenureMonths) {
+        Loans loans = findLoan(mobileNumber);
+        PayoffQuote payoffQuote = amortizationEngine.payoff(
+                ScheduleMapper.paise(loans.getOutstandingAmount()), rateOrDefault(annualInterestRate),
+                tenureOrDefault(tenureMonths), installmentsPaid, daysSinceInstallment);
+        return ScheduleMapper.mapToPayoffQuoteDto(loans.getLoanNumber(), installmentsPaid, payoffQuote);
+    }
+
+    /**
+     * @param annualInterestRate - yearly interest rate in percent, the configured one when null
+     * @param tenureMonths - number of monthly installments, the configured one when null
+     * @return schedules of all the loans added up month by month
+     */
+    /*The outstanding amounts are streamed into a long array, a few bytes per loan, and the schedules are computed
+    from it by the engine in parallel, no entity is loaded.*/
+    @Override
+    @Transactional(readOnly = true)
+    public PortfolioScheduleDto fetchPortfolioSchedule(Double annualInterestRate, Integer tenureMonths) {
+        double rate = rateOrDefault(annualInterestRate);
+        int months = tenureOrDefault(tenureMonths);
+        long[] principals = new long[1024];
+        int loans = 0;
+        try (Stream<Integer> outstandingAmounts = loansRepository.streamAllOutstandingAmounts()) {
+            for (Integer outstandingAmount : (Iterable<Integer>) outstandingAmounts::iterator) {
+                if (loans == principals.length) {
+                    principals = Arrays.copyOf(principals, loans * 2);
+                }
+                principals[loans++] = ScheduleMapper.paise(outstandingAmount);
+            }
+        }
+        PortfolioScheduleDto portfolioScheduleDto = ScheduleMapper.mapToPortfolioScheduleDto(
+                amortizationEngine.portfolio(Arrays.copyOf(principals, loans), rate, months),
+                new PortfolioScheduleDto());
+        portfolioScheduleDto.setAnnualInterestRate(rate);
+        portfolioScheduleDto.setTenureMonths(months);
+        return portfolioScheduleDto;
+    }
+
+    private Loans findLoan(String mobileNumber) {
+        return loansRepository.findByMobileNumber(mobileNumber).orElseThrow(
+                () -> new ResourceNotFoundException("Loan", "mobileNumber", mobileNumber));
+    }
+
+    private double rateOrDefault(Double annualInterestRate) {
+        return annualInterestRate != null ? annualInterestRate : amortizationProperties.getAnnualInterestRate();
+    }
+
+    private int tenureOrDefault(Integer tenureMonths) {
+        return tenureMonths != null ? tenureMonths : amortizationProperties.getTenureMonths();
+    }
+}
@@ -10,5 +10,45 @@ CREATE TABLE IF NOT EXISTS `loans` (
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
   `updated_by` varchar(20) DEFAULT NULL,
-  PRIMARY KEY (`loan_id`)
-);
\ No newline at end of file
+  PRIMARY KEY (`loan_id`),
+  UNIQUE KEY `uk_loans_mobile_number` (`mobile_number`),
+  UNIQUE KEY `uk_loans_loan_number` (`loan_number`)
+);
+
+/*The tables created by an older version of this script do not have the keys above, CREATE TABLE IF NOT EXISTS
+does not touch them and MySQL has no ADD INDEX IF NOT EXISTS, so the missing keys are added here. This fails on
+start up if the table already holds duplicates, they have to be cleaned up by hand first.*/
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `loans` ADD UNIQUE KEY `uk_loans_mobile_number` (`mobile_number`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'loans' AND index_name = 'uk_loans_mobile_number');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE `loans` ADD UNIQUE KEY `uk_loans_loan_number` (`loan_number`)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'loans' AND index_name = 'uk_loans_loan_number');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+/*Table behind the pooled-lo sequence of the loan ids (MySQL has no sequences, hibernate emulates them with a one row
+table). It starts after the biggest id already present.
+The aggregate sits in a derived table, so the WHERE filters its single row and a restart inserts nothing.*/
+CREATE TABLE IF NOT EXISTS `loans_seq` (
+  `next_val` bigint
+);
+
+INSERT INTO `loans_seq` (`next_val`)
+SELECT `next_val` FROM (SELECT COALESCE(MAX(`loan_id`), 0) + 1 AS `next_val` FROM `loans`) AS `m`
+WHERE NOT EXISTS (SELECT 1 FROM `loans_seq`);
+
+/*Blocks of loan numbers are leased from this table by the NumberAllocator. The sequence starts after
+the biggest number already present, so it never hands out a number that was generated before it existed.*/
+CREATE TABLE IF NOT EXISTS `number_sequence` (
+  `sequence_name` varchar(50) PRIMARY KEY,
+  `next_value` bigint NOT NULL
+);
+
+INSERT IGNORE INTO `number_sequence` (`sequence_name`, `next_value`)
+SELECT 'loan_number', COALESCE(MAX(CAST(`loan_number` AS UNSIGNED)) + 1, 100000000000) FROM `loans`;
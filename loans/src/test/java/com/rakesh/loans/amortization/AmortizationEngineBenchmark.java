@@ -0,0 +1,106 @@
+package com.rakesh.loans.amortization;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*Time of the schedule and the payoff quote of one loan over the default 240 months, and of the summary of a whole
+portfolio on the pool of the engine, with the default terms of AmortizationProperties. Run it from main, or with
+java -cp <test classpath> org.openjdk.jmh.Main AmortizationEngineBenchmark.*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AmortizationEngineBenchmark {
+
+    // 1,00,000.00 rupees
+    private static final long PRINCIPAL = 10_000_000L;
+
+    private final AmortizationProperties properties = new AmortizationProperties();
+    private AmortizationEngine engine;
+
+    @State(Scope.Benchmark)
+    public static class Portfolio {
+
+        @Param({"10000", "100000"})
+        private int loans;
+
+        private long[] principals;
+
+        // Between 10,000.00 and 50,00,000.00 rupees, the same loans every run
+        @Setup
+        public void fillPrincipals() {
+            SplittableRandom random = new SplittableRandom(42);
+            principals = new long[loans];
+            for (int loan = 0; loan < loans; loan++) {
+                principals[loan] = random.nextLong(1_000_000L, 500_000_000L);
+            }
+        }
+    }
+
+    @Setup
+    public void startEngine() {
+        engine = new AmortizationEngine(properties, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void shutdown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public Schedule schedule() {
+        return engine.schedule(
+                PRINCIPAL,
+                properties.getAnnualInterestRate(),
+                properties.getTenureMonths(),
+                0,
+                0,
+                PrepaymentMode.REDUCE_TENURE);
+    }
+
+    @Benchmark
+    public Schedule scheduleWithPrepayment() {
+        return engine.schedule(
+                PRINCIPAL,
+                properties.getAnnualInterestRate(),
+                properties.getTenureMonths(),
+                PRINCIPAL / 10,
+                60,
+                PrepaymentMode.REDUCE_EMI);
+    }
+
+    @Benchmark
+    public PayoffQuote payoff() {
+        return engine.payoff(
+                PRINCIPAL, properties.getAnnualInterestRate(), properties.getTenureMonths(), 120, 15);
+    }
+
+    @Benchmark
+    public PortfolioSummary portfolio(Portfolio portfolio) {
+        return engine.portfolio(
+                portfolio.principals, properties.getAnnualInterestRate(), properties.getTenureMonths());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AmortizationEngineBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.rakesh.loans.amortization;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AmortizationEngineTest {
+
+    // 1,00,000.00 rupees
+    private static final long PRINCIPAL = 10_000_000L;
+    private static final double RATE = 8.5;
+    private static final int MONTHS = 240;
+
+    private final AmortizationProperties properties = new AmortizationProperties();
+    private final AmortizationEngine engine = new AmortizationEngine(properties, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void emiIsRoundedToThePaisa() {
+        assertThat(AmortizationEngine.emi(PRINCIPAL, RATE, MONTHS)).isEqualTo(86_782L);
+        assertThat(AmortizationEngine.emi(120_000L, 12, 12)).isEqualTo(10_662L);
+    }
+
+    @Test
+    void emiWithoutInterestIsRoundedUp() {
+        assertThat(AmortizationEngine.emi(1_200L, 0, 12)).isEqualTo(100L);
+        assertThat(AmortizationEngine.emi(1_201L, 0, 12)).isEqualTo(101L);
+    }
+
+    @Test
+    void scheduleAddsUpToThePrincipalExactly() {
+        Schedule schedule = engine.schedule(PRINCIPAL, RATE, MONTHS, 0, 0, PrepaymentMode.REDUCE_TENURE);
+
+        assertThat(schedule.emi()).isEqualTo(86_782L);
+        assertThat(schedule.installments()).isEqualTo(MONTHS);
+        long principalPaid = 0;
+        long balance = PRINCIPAL;
+        for (int i = 0; i < schedule.installments(); i++) {
+            // Every interest is that of the balance before it, rounded to the paisa
+            assertThat(schedule.interest(i)).isEqualTo(Math.round(balance * RATE / 12 / 100));
+            principalPaid += schedule.principal(i);
+            balance = schedule.balance(i);
+            if (i < MONTHS - 1) {
+                assertThat(schedule.payment(i)).isEqualTo(schedule.emi());
+            }
+        }
+        assertThat(principalPaid).isEqualTo(PRINCIPAL);
+        assertThat(schedule.balance(MONTHS - 1)).isZero();
+        // The last installment takes the rounding left over, a few paise at most
+        assertThat(Math.abs(schedule.payment(MONTHS - 1) - schedule.emi())).isLessThan(MONTHS);
+        assertThat(schedule.totalPayment()).isEqualTo(PRINCIPAL + schedule.totalInterest());
+    }
+
+    @Test
+    void prepaymentReducingTheTenureKeepsTheEmi() {
+        Schedule schedule =
+                engine.schedule(PRINCIPAL, RATE, MONTHS, 2_000_000L, 12, PrepaymentMode.REDUCE_TENURE);
+
+        assertThat(schedule.installments()).isLessThan(MONTHS);
+        assertThat(schedule.prepayment(11)).isEqualTo(2_000_000L);
+        assertThat(schedule.payment(12)).isEqualTo(schedule.emi());
+        assertThat(schedule.balance(schedule.installments() - 1)).isZero();
+        assertThat(principalPaid(schedule)).isEqualTo(PRINCIPAL);
+    }
+
+    @Test
+    void prepaymentReducingTheEmiKeepsTheTenure() {
+        Schedule schedule =
+                engine.schedule(PRINCIPAL, RATE, MONTHS, 2_000_000L, 12, PrepaymentMode.REDUCE_EMI);
+
+        assertThat(schedule.installments()).isEqualTo(MONTHS);
+        assertThat(schedule.emi()).isEqualTo(86_782L);
+        long reducedEmi = AmortizationEngine.emi(schedule.balance(11), RATE, MONTHS - 12);
+        assertThat(reducedEmi).isLessThan(schedule.emi());
+        for (int i = 12; i < MONTHS - 1; i++) {
+            assertThat(schedule.payment(i)).isEqualTo(reducedEmi);
+        }
+        assertThat(schedule.balance(MONTHS - 1)).isZero();
+        assertThat(principalPaid(schedule)).isEqualTo(PRINCIPAL);
+    }
+
+    @Test
+    void payoffMatchesTheBalanceOfTheSchedule() {
+        Schedule schedule = engine.schedule(PRINCIPAL, RATE, MONTHS, 0, 0, PrepaymentMode.REDUCE_TENURE);
+
+        PayoffQuote quote = engine.payoff(PRINCIPAL, RATE, MONTHS, 11, 0);
+
+        assertThat(quote.outstandingPrincipal()).isEqualTo(schedule.balance(10));
+        assertThat(quote.accruedInterest()).isZero();
+        assertThat(quote.prepaymentCharge())
+                .isEqualTo(Math.round(schedule.balance(10) * properties.getPrepaymentChargePercent() / 100));
+        assertThat(quote.payoffAmount()).isEqualTo(quote.outstandingPrincipal() + quote.prepaymentCharge());
+    }
+
+    @Test
+    void payoffAddsTheInterestOfTheDaysSinceTheInstallment() {
+        PayoffQuote quote = engine.payoff(PRINCIPAL, RATE, MONTHS, 0, 73);
+
+        assertThat(quote.outstandingPrincipal()).isEqualTo(PRINCIPAL);
+        // 73 days are a fifth of the year
+        assertThat(quote.accruedInterest()).isEqualTo(170_000L);
+    }
+
+    @Test
+    void payoffAfterTheLastInstallmentIsNothing() {
+        PayoffQuote quote = engine.payoff(PRINCIPAL, RATE, MONTHS, MONTHS, 10);
+
+        assertThat(quote.payoffAmount()).isZero();
+    }
+
+    @Test
+    void portfolioIsTheSumOfTheSchedules() {
+        properties.setPortfolioLeafSize(2);
+        long[] principals = {PRINCIPAL, 5_000_000L, 123_456_789L, 1_000L, 77_777L};
+
+        PortfolioSummary summary = engine.portfolio(principals, RATE, MONTHS);
+
+        long totalInterest = 0;
+        long firstMonthPrincipal = 0;
+        for (long principal : principals) {
+            Schedule schedule = engine.schedule(principal, RATE, MONTHS, 0, 0, PrepaymentMode.REDUCE_TENURE);
+            totalInterest += schedule.totalInterest();
+            firstMonthPrincipal += schedule.principal(0);
+        }
+        assertThat(summary.loans()).isEqualTo(principals.length);
+        assertThat(summary.totalInterest()).isEqualTo(totalInterest);
+        assertThat(summary.principal(0)).isEqualTo(firstMonthPrincipal);
+    }
+
+    private static long principalPaid(Schedule schedule) {
+        long total = 0;
+        for (int i = 0; i < schedule.installments(); i++) {
+            total += schedule.principal(i) + schedule.prepayment(i);
+        }
+        return total;
+    }
+}